@@ -0,0 +1,93 @@
+package com.github.repositorysearcher.config;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.ConnectionObserver;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP client for GitHub API calls: a bounded, metered connection pool with idle
+ * eviction, separate connect/read/response timeouts, gzip responses and optional
+ * HTTP/2. {@code github.api.timeout} still bounds a whole call in {@code GitHubApiService}.
+ */
+@Configuration
+public class GitHubClientConfig {
+
+    private static final String READ_TIMEOUT_HANDLER = "gitHubReadTimeout";
+    private static final String WRITE_TIMEOUT_HANDLER = "gitHubWriteTimeout";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider gitHubConnectionProvider(
+            @Value("${github.api.client.max-connections:50}") int maxConnections,
+            @Value("${github.api.client.pending-acquire-max-count:500}") int pendingAcquireMaxCount,
+            @Value("${github.api.client.pending-acquire-timeout:5000}") long pendingAcquireTimeoutMs,
+            @Value("${github.api.client.max-idle-time:30000}") long maxIdleTimeMs,
+            @Value("${github.api.client.max-life-time:300000}") long maxLifeTimeMs) {
+        return ConnectionProvider.builder("github")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                // Drop connections GitHub's load balancers may already have closed
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .maxLifeTime(Duration.ofMillis(maxLifeTimeMs))
+                .evictInBackground(Duration.ofMillis(Math.max(1000, maxIdleTimeMs / 2)))
+                // Active, idle and pending connections plus acquire time, as reactor.netty.connection.provider.*
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient gitHubWebClient(@Qualifier("gitHubConnectionProvider") ConnectionProvider connectionProvider,
+                                     @Value("${github.api.base-url}") String baseUrl,
+                                     @Value("${github.api.client.connect-timeout:5000}") int connectTimeoutMs,
+                                     @Value("${github.api.client.read-timeout:10000}") long readTimeoutMs,
+                                     @Value("${github.api.client.response-timeout:10000}") long responseTimeoutMs,
+                                     @Value("${github.api.client.compression:true}") boolean compression,
+                                     @Value("${github.api.client.http2:false}") boolean http2) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                // Time until the response headers arrive
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs))
+                // Longest silence while a body is being read or a request written. Added per request
+                // and removed whenever the connection goes back to the pool - after a response, an
+                // error or a cancelled call alike - so they never close idle pooled connections
+                .doOnRequest((request, connection) -> connection
+                        .addHandlerLast(READ_TIMEOUT_HANDLER,
+                                new ReadTimeoutHandler(readTimeoutMs, TimeUnit.MILLISECONDS))
+                        .addHandlerLast(WRITE_TIMEOUT_HANDLER,
+                                new WriteTimeoutHandler(readTimeoutMs, TimeUnit.MILLISECONDS)))
+                .observe((connection, state) -> {
+                    if (state == ConnectionObserver.State.RELEASED) {
+                        connection.removeHandler(READ_TIMEOUT_HANDLER)
+                                .removeHandler(WRITE_TIMEOUT_HANDLER);
+                    }
+                })
+                // Sends Accept-Encoding: gzip and inflates compressed bodies
+                .compress(compression)
+                // One fixed URI tag, so per-request timers stay low-cardinality
+                .metrics(true, uri -> "/search/repositories");
+        if (http2) {
+            // h2 is negotiated over TLS (ALPN) and falls back to HTTP/1.1; plain-text http uses h2c
+            httpClient = baseUrl.startsWith("https") ?
+                    httpClient.secure().protocol(HttpProtocol.H2, HttpProtocol.HTTP11) :
+                    httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        return WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
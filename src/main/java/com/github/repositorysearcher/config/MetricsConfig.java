@@ -0,0 +1,186 @@
+package com.github.repositorysearcher.config;
+
+import com.github.repositorysearcher.index.RepositoryReadIndex;
+import com.github.repositorysearcher.index.RepositoryStatsIndex;
+import com.github.repositorysearcher.index.RepositoryTextIndex;
+import com.github.repositorysearcher.service.GitHubApiService;
+import com.github.repositorysearcher.service.GitHubCircuitBreaker;
+import com.github.repositorysearcher.service.GitHubRateLimiter;
+import com.github.repositorysearcher.service.GitHubResilience;
+import com.github.repositorysearcher.service.GitHubResponseCache;
+import com.github.repositorysearcher.service.RepositoryService;
+import com.github.repositorysearcher.service.SearchCoalescer;
+import com.github.repositorysearcher.service.WriteBehindQueue;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the counters the services already keep as meters. Timers on the request
+ * paths are recorded where the work happens; everything here is read at scrape time.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder gitHubRateLimitMetrics(GitHubRateLimiter rateLimiter) {
+        return registry -> {
+            Gauge.builder("github.api.rate-limit.remaining", rateLimiter, GitHubRateLimiter::getRemaining)
+                    .description("GitHub search budget left in the current window, -1 when unknown")
+                    .register(registry);
+            TimeGauge.builder("github.api.rate-limit.reset", rateLimiter, TimeUnit.MILLISECONDS,
+                            limiter -> limiter.getTimeUntilReset().toMillis())
+                    .description("Time until GitHub's rate limit window resets")
+                    .register(registry);
+            Gauge.builder("github.api.rate-limit.queued", rateLimiter, GitHubRateLimiter::getQueued)
+                    .description("Requests waiting for rate limit budget")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder gitHubResilienceMetrics(GitHubResilience resilience) {
+        return registry -> {
+            FunctionCounter.builder("github.api.hedges", resilience, GitHubResilience::getHedgeCount)
+                    .description("Second calls sent because the first was slower than the hedge delay")
+                    .tag("result", "sent")
+                    .register(registry);
+            FunctionCounter.builder("github.api.hedges", resilience, GitHubResilience::getHedgeWinCount)
+                    .description("Second calls sent because the first was slower than the hedge delay")
+                    .tag("result", "won")
+                    .register(registry);
+            FunctionCounter.builder("github.api.retries", resilience, GitHubResilience::getRetryCount)
+                    .description("Calls repeated after a transient failure")
+                    .register(registry);
+            TimeGauge.builder("github.api.hedge.delay", resilience, TimeUnit.MILLISECONDS, r -> {
+                        Duration delay = r.getHedgeDelay();
+                        return delay != null ? delay.toMillis() : 0;
+                    })
+                    .description("Current hedge delay, 0 while hedging is off or still learning")
+                    .register(registry);
+
+            GitHubCircuitBreaker circuitBreaker = resilience.getCircuitBreaker();
+            if (circuitBreaker == null) {
+                return;
+            }
+            for (GitHubCircuitBreaker.State state : GitHubCircuitBreaker.State.values()) {
+                Gauge.builder("github.api.circuit-breaker.state", circuitBreaker, b -> b.getState() == state ? 1 : 0)
+                        .tag("state", state.name().toLowerCase(Locale.ROOT))
+                        .register(registry);
+            }
+            FunctionCounter.builder("github.api.circuit-breaker.rejected", circuitBreaker,
+                            GitHubCircuitBreaker::getRejectedCount)
+                    .description("Calls failed fast while the breaker was open")
+                    .register(registry);
+            FunctionCounter.builder("github.api.circuit-breaker.opened", circuitBreaker,
+                            GitHubCircuitBreaker::getOpenedCount)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder readRoutingMetrics(ObjectProvider<ReadWriteRoutingDataSource> routingDataSource) {
+        return registry -> routingDataSource.ifAvailable(routing -> {
+            FunctionCounter.builder("datasource.routing.connections", routing,
+                            ReadWriteRoutingDataSource::getPrimaryConnectionCount)
+                    .description("Connections handed out, by the datasource they came from")
+                    .tag("target", "primary")
+                    .register(registry);
+            FunctionCounter.builder("datasource.routing.connections", routing,
+                            ReadWriteRoutingDataSource::getReplicaConnectionCount)
+                    .description("Connections handed out, by the datasource they came from")
+                    .tag("target", "replica")
+                    .register(registry);
+            Gauge.builder("datasource.routing.replicas.healthy", routing,
+                            ReadWriteRoutingDataSource::getHealthyReplicaCount)
+                    .description("Replicas currently receiving reads")
+                    .register(registry);
+            FunctionCounter.builder("datasource.routing.ejections", routing, ReadWriteRoutingDataSource::getEjectionCount)
+                    .register(registry);
+        });
+    }
+
+    @Bean
+    public MeterBinder gitHubResponseCacheMetrics(GitHubApiService gitHubApiService) {
+        GitHubResponseCache cache = gitHubApiService.getResponseCache();
+        return registry -> {
+            FunctionCounter.builder("github.api.cache.requests", cache, GitHubResponseCache::getHitCount)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("github.api.cache.requests", cache, GitHubResponseCache::getMissCount)
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("github.api.cache.revalidations", cache, GitHubResponseCache::getRevalidationCount)
+                    .description("Expired entries GitHub confirmed with 304 Not Modified")
+                    .register(registry);
+            Gauge.builder("github.api.cache.size", cache, GitHubResponseCache::size)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder repositoryServiceMetrics(RepositoryService repositoryService) {
+        return registry -> {
+            SearchCoalescer coalescer = repositoryService.getSearchCoalescer();
+            FunctionCounter.builder("repositories.search.requests", coalescer, SearchCoalescer::getRequestCount)
+                    .register(registry);
+            FunctionCounter.builder("repositories.search.coalesced", coalescer, SearchCoalescer::getCoalescedCount)
+                    .description("Searches answered by an identical search already in flight")
+                    .register(registry);
+            Gauge.builder("repositories.search.in-flight", coalescer, SearchCoalescer::getInFlightCount)
+                    .register(registry);
+
+            WriteBehindQueue queue = repositoryService.getWriteBehindQueue();
+            if (queue == null) {
+                return;
+            }
+            Gauge.builder("repositories.write-behind.depth", queue, WriteBehindQueue::getQueueDepth)
+                    .description("Repositories waiting to be written")
+                    .register(registry);
+            FunctionCounter.builder("repositories.write-behind.rows", queue, WriteBehindQueue::getFlushedRowCount)
+                    .tag("result", "written")
+                    .register(registry);
+            FunctionCounter.builder("repositories.write-behind.rows", queue, WriteBehindQueue::getFailedRowCount)
+                    .tag("result", "failed")
+                    .register(registry);
+            FunctionCounter.builder("repositories.write-behind.rows", queue, WriteBehindQueue::getRejectedCount)
+                    .tag("result", "rejected")
+                    .register(registry);
+            FunctionCounter.builder("repositories.write-behind.retries", queue, WriteBehindQueue::getRetryCount)
+                    .description("Failed batch writes that were tried again")
+                    .register(registry);
+            FunctionTimer.builder("repositories.write-behind.flush", queue, WriteBehindQueue::getFlushCount,
+                            q -> q.getTotalFlushTime().toNanos(), TimeUnit.NANOSECONDS)
+                    .description("Batches written by the write-behind workers")
+                    .register(registry);
+            TimeGauge.builder("repositories.write-behind.flush.max", queue, TimeUnit.NANOSECONDS,
+                            q -> q.getMaxFlushTime().toNanos())
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder repositoryIndexMetrics(RepositoryReadIndex readIndex, RepositoryTextIndex textIndex,
+                                              RepositoryStatsIndex statsIndex) {
+        return registry -> {
+            Gauge.builder("repositories.index.size", readIndex, RepositoryReadIndex::size)
+                    .tag("index", "read")
+                    .register(registry);
+            Gauge.builder("repositories.index.size", textIndex, RepositoryTextIndex::size)
+                    .tag("index", "text")
+                    .register(registry);
+            Gauge.builder("repositories.index.size", statsIndex, RepositoryStatsIndex::size)
+                    .tag("index", "stats")
+                    .register(registry);
+        };
+    }
+}
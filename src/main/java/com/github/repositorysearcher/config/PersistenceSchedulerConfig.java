@@ -0,0 +1,21 @@
+package com.github.repositorysearcher.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Blocking JPA/JDBC work started from reactive pipelines runs on this bounded
+ * scheduler, so it neither blocks event-loop threads nor grows without limit.
+ */
+@Configuration
+public class PersistenceSchedulerConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler persistenceScheduler(@Value("${repositories.persistence.threads:8}") int threads,
+                                          @Value("${repositories.persistence.queued-tasks:1000}") int queuedTasks) {
+        return Schedulers.newBoundedElastic(threads, queuedTasks, "repository-persistence");
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.repositorysearcher.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the single auto-configured datasource with one that sends read-only
+ * transactions to the replicas in {@code repositories.read-routing.replica-urls}
+ * and everything else to {@code spring.datasource}. Replicas use the primary's
+ * driver and, unless set, its credentials.
+ */
+@Configuration
+@ConditionalOnProperty(name = "repositories.read-routing.enabled", havingValue = "true")
+public class ReadRoutingDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(
+            HikariDataSource primaryDataSource, DataSourceProperties properties,
+            @Value("${repositories.read-routing.replica-urls:}") List<String> replicaUrls,
+            @Value("${repositories.read-routing.replica-username:${spring.datasource.username:}}") String username,
+            @Value("${repositories.read-routing.replica-password:${spring.datasource.password:}}") String password,
+            @Value("${repositories.read-routing.replica-pool-size:10}") int poolSize,
+            @Value("${repositories.read-routing.replica-connection-timeout:1000}") long connectionTimeoutMs,
+            @Value("${repositories.read-routing.health-check-timeout:2}") int healthCheckTimeoutSeconds) {
+        List<DataSource> replicas = new ArrayList<>(replicaUrls.size());
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(replicaUrls.get(i).trim());
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            // Start even while a replica is down; reads fall back once it fails to connect
+            replica.setInitializationFailTimeout(-1);
+            replica.setConnectionTimeout(connectionTimeoutMs);
+            replicas.add(replica);
+        }
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicas, healthCheckTimeoutSeconds);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+        proxy.setTargetDataSource(readWriteRoutingDataSource);
+        // Known up front, so the proxy never opens a connection just to read them
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        proxy.afterPropertiesSet();
+        return proxy;
+    }
+}
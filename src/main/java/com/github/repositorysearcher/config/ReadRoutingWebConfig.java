@@ -0,0 +1,39 @@
+package com.github.repositorysearcher.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Registers the read-your-writes window when reads are routed to replicas.
+ */
+@Configuration
+public class ReadRoutingWebConfig implements WebMvcConfigurer {
+
+    private final boolean routingEnabled;
+    private final long readYourWritesMs;
+    private final String clientHeader;
+    private final int maxClients;
+
+    public ReadRoutingWebConfig(@Value("${repositories.read-routing.enabled:false}") boolean routingEnabled,
+                                @Value("${repositories.read-routing.read-your-writes:0}") long readYourWritesMs,
+                                @Value("${repositories.read-routing.client-header:X-Client-Id}") String clientHeader,
+                                @Value("${repositories.read-routing.max-clients:10000}") int maxClients) {
+        this.routingEnabled = routingEnabled;
+        this.readYourWritesMs = readYourWritesMs;
+        this.clientHeader = clientHeader;
+        this.maxClients = maxClients;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (routingEnabled && readYourWritesMs > 0) {
+            registry.addInterceptor(new ReadYourWritesInterceptor(clientHeader, Duration.ofMillis(readYourWritesMs),
+                            maxClients))
+                    .addPathPatterns("/api/**");
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.github.repositorysearcher.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends connections for read-only transactions to the replicas, round-robin over
+ * the healthy ones, and everything else to the primary. A replica that fails to
+ * hand out a connection or a health check is ejected until a later check passes;
+ * without a healthy replica reads go to the primary.
+ * <p>
+ * The read-only flag of a transaction is only known after it began, so this must
+ * sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * which fetches the physical connection at the first statement.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+
+    // Set for requests that must see their own recent writes; see ReadYourWritesInterceptor
+    private static final ThreadLocal<Boolean> primaryRequired = new ThreadLocal<>();
+    // Set when a replica connection was handed out; see pollReplicaRead
+    private static final ThreadLocal<Boolean> replicaRead = new ThreadLocal<>();
+
+    private final List<Replica> replicas;
+    private final int healthCheckTimeoutSeconds;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final AtomicLong primaryConnections = new AtomicLong();
+    private final AtomicLong replicaConnections = new AtomicLong();
+    private final AtomicLong ejections = new AtomicLong();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources,
+                                      int healthCheckTimeoutSeconds) {
+        this.healthCheckTimeoutSeconds = healthCheckTimeoutSeconds;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        List<Replica> replicaList = new ArrayList<>(replicaDataSources.size());
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            Replica replica = new Replica("replica-" + i, replicaDataSources.get(i));
+            replicaList.add(replica);
+            targets.put(replica.key, replica.dataSource);
+        }
+        this.replicas = List.copyOf(replicaList);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Routes the current thread's reads to the primary, or back to the replicas with {@code false}.
+     */
+    public static void setPrimaryRequired(boolean required) {
+        if (required) {
+            primaryRequired.set(Boolean.TRUE);
+        } else {
+            primaryRequired.remove();
+        }
+    }
+
+    /**
+     * Whether the current thread was handed a replica connection since the last call.
+     */
+    public static boolean pollReplicaRead() {
+        boolean used = replicaRead.get() != null;
+        replicaRead.remove();
+        return used;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || primaryRequired.get() != null) {
+            return PRIMARY;
+        }
+        Replica replica = nextHealthyReplica();
+        return replica != null ? replica.key : PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connect(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connect(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    /**
+     * Probes every replica, ejecting the failing ones and readmitting those that recovered.
+     */
+    @Scheduled(initialDelayString = "${repositories.read-routing.health-check-interval:5000}",
+            fixedDelayString = "${repositories.read-routing.health-check-interval:5000}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean valid;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                valid = connection.isValid(healthCheckTimeoutSeconds);
+            } catch (SQLException e) {
+                valid = false;
+            }
+            if (valid && !replica.healthy) {
+                logger.info("Replica {} passed its health check, routing reads to it again", replica.key);
+                replica.healthy = true;
+            } else if (!valid && replica.healthy) {
+                eject(replica, "health check failed");
+            }
+        }
+    }
+
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    public int getHealthyReplicaCount() {
+        int healthy = 0;
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                healthy++;
+            }
+        }
+        return healthy;
+    }
+
+    public long getPrimaryConnectionCount() {
+        return primaryConnections.get();
+    }
+
+    public long getReplicaConnectionCount() {
+        return replicaConnections.get();
+    }
+
+    public long getEjectionCount() {
+        return ejections.get();
+    }
+
+    /**
+     * Closes the replica pools; the primary is closed by its own bean.
+     */
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private Connection connect(ConnectionFactory factory) throws SQLException {
+        Object key = determineCurrentLookupKey();
+        DataSource primary = getResolvedDataSources().get(PRIMARY);
+        if (PRIMARY.equals(key)) {
+            primaryConnections.incrementAndGet();
+            return factory.connect(primary);
+        }
+        Replica replica = replicaOf(key);
+        try {
+            Connection connection = factory.connect(replica.dataSource);
+            replicaConnections.incrementAndGet();
+            replicaRead.set(Boolean.TRUE);
+            return connection;
+        } catch (SQLException e) {
+            eject(replica, e.getMessage());
+            primaryConnections.incrementAndGet();
+            return factory.connect(primary);
+        }
+    }
+
+    private Replica nextHealthyReplica() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private Replica replicaOf(Object key) {
+        for (Replica replica : replicas) {
+            if (replica.key.equals(key)) {
+                return replica;
+            }
+        }
+        throw new IllegalStateException("Unknown replica " + key);
+    }
+
+    private synchronized void eject(Replica replica, String reason) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            ejections.incrementAndGet();
+            logger.warn("Ejected replica {}, reads go to the other replicas or the primary: {}", replica.key, reason);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionFactory {
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+
+    private static final class Replica {
+
+        private final String key;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        Replica(String key, DataSource dataSource) {
+            this.key = key;
+            this.dataSource = dataSource;
+        }
+    }
+}
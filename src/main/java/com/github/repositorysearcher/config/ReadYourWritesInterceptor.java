@@ -0,0 +1,86 @@
+package com.github.repositorysearcher.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sends a client's reads to the primary for a while after its own successful write
+ * request, so it sees what it wrote even while the replicas lag behind. Clients are
+ * told apart by a request header, or by their address without one.
+ */
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    private final String clientHeader;
+    private final long windowNanos;
+    private final int maxClients;
+
+    // Client -> System.nanoTime() of its last successful write
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesInterceptor(String clientHeader, Duration window, int maxClients) {
+        this.clientHeader = clientHeader;
+        this.windowNanos = window.toNanos();
+        this.maxClients = maxClients;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!isWrite(request) && wroteRecently(clientOf(request))) {
+            ReadWriteRoutingDataSource.setPrimaryRequired(true);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        // The servlet thread goes back to the pool; the async dispatch runs preHandle again
+        ReadWriteRoutingDataSource.setPrimaryRequired(false);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        ReadWriteRoutingDataSource.setPrimaryRequired(false);
+        // Async searches complete here after their result was written, not when they start
+        if (isWrite(request) && ex == null && response.getStatus() < 400) {
+            recordWrite(clientOf(request));
+        }
+    }
+
+    boolean wroteRecently(String client) {
+        Long writtenAt = lastWrites.get(client);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - writtenAt < windowNanos) {
+            return true;
+        }
+        lastWrites.remove(client, writtenAt);
+        return false;
+    }
+
+    void recordWrite(String client) {
+        long now = System.nanoTime();
+        if (lastWrites.size() >= maxClients) {
+            lastWrites.values().removeIf(writtenAt -> now - writtenAt >= windowNanos);
+        }
+        if (lastWrites.size() < maxClients || lastWrites.containsKey(client)) {
+            lastWrites.put(client, now);
+        }
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        return "POST".equals(request.getMethod());
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String client = request.getHeader(clientHeader);
+        return client != null && !client.isBlank() ? client : request.getRemoteAddr();
+    }
+}
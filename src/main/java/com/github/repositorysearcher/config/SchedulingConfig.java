@@ -0,0 +1,12 @@
+package com.github.repositorysearcher.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the background re-sync of recorded searches.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,17 +1,27 @@
 package com.github.repositorysearcher.controller;
 
 import com.github.repositorysearcher.dto.ApiResponse;
+import com.github.repositorysearcher.dto.BatchSearchRequest;
+import com.github.repositorysearcher.dto.BatchSearchResult;
 import com.github.repositorysearcher.dto.GitHubSearchRequest;
 import com.github.repositorysearcher.dto.RepositoryDto;
+import com.github.repositorysearcher.dto.RepositoryPage;
+import com.github.repositorysearcher.dto.RepositoryStats;
+import com.github.repositorysearcher.dto.SearchQueryStatus;
 import com.github.repositorysearcher.service.RepositoryService;
+import com.github.repositorysearcher.service.SearchResyncService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/github")
@@ -20,42 +30,137 @@ public class GitHubController {
     private static final Logger logger = LoggerFactory.getLogger(GitHubController.class);
 
     private final RepositoryService repositoryService;
+    private final SearchResyncService searchResyncService;
 
     @Autowired
-    public GitHubController(RepositoryService repositoryService) {
+    public GitHubController(RepositoryService repositoryService, SearchResyncService searchResyncService) {
         this.repositoryService = repositoryService;
+        this.searchResyncService = searchResyncService;
     }
 
     @PostMapping("/search")
-    public ResponseEntity<ApiResponse.SearchResponse> searchRepositories(
+    public Mono<ResponseEntity<ApiResponse.SearchResponse>> searchRepositories(
             @Valid @RequestBody GitHubSearchRequest request) {
         
         logger.info("Received search request: {}", request);
         
-        List<RepositoryDto> repositories = repositoryService.searchAndSaveRepositories(request);
-        
-        String message = repositories.isEmpty() ? 
-                "No repositories found for the given criteria" : 
-                "Repositories fetched and saved successfully";
-        
-        ApiResponse.SearchResponse response = new ApiResponse.SearchResponse(message, repositories);
-        
-        return ResponseEntity.ok(response);
+        // The servlet thread is released here; the response is written when the Mono completes
+        return repositoryService.searchAndSaveRepositories(request)
+                .map(results -> {
+                    List<RepositoryDto> repositories = results.getRepositories();
+                    String message;
+                    if (results.isStale()) {
+                        message = "GitHub API is unavailable, returning repositories from an earlier search";
+                    } else {
+                        message = repositories.isEmpty() ? 
+                                "No repositories found for the given criteria" : 
+                                "Repositories fetched and saved successfully";
+                    }
+                    
+                    ApiResponse.SearchResponse response = new ApiResponse.SearchResponse(message, repositories,
+                            results.isStale(), results.getFetchedAt());
+                    
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    @PostMapping("/search/batch")
+    public Mono<ResponseEntity<BatchSearchResult>> searchRepositoriesBatch(
+            @Valid @RequestBody BatchSearchRequest request) {
+
+        logger.info("Received batch search request with {} searches", request.getSearches().size());
+
+        // Failed searches are reported per entry; the batch itself still succeeds
+        return repositoryService.searchAndSaveBatch(request.getSearches())
+                .map(ResponseEntity::ok);
     }
 
     @GetMapping("/repositories")
     public ResponseEntity<ApiResponse.RepositoriesResponse> getRepositories(
             @RequestParam(required = false) String language,
             @RequestParam(required = false) Integer minStars,
-            @RequestParam(defaultValue = "stars") String sort) {
+            @RequestParam(defaultValue = "stars") String sort,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            WebRequest webRequest) {
         
-        logger.info("Received get repositories request - language: {}, minStars: {}, sort: {}", 
-                   language, minStars, sort);
-        
-        List<RepositoryDto> repositories = repositoryService.getRepositories(language, minStars, sort);
+        logger.info("Received get repositories request - language: {}, minStars: {}, sort: {}, limit: {}", 
+                   language, minStars, sort, limit);
+
+        String etag = repositoriesETag(repositoryService.getDataVersion(), language, minStars, sort, limit, cursor);
+        RepositoryPage page = null;
+        if (repositoryService.mayReplicasLag()) {
+            // A replica may not have the write behind this version yet, so the page is read first
+            // and only tagged when it did not come from a replica
+            page = repositoryService.getRepositories(language, minStars, sort, limit, cursor);
+            if (page.isFromReplica()) {
+                return ResponseEntity.ok()
+                        .cacheControl(CacheControl.noCache())
+                        .body(new ApiResponse.RepositoriesResponse(page.getRepositories(), page.getNext()));
+            }
+        }
+        // Unchanged polls are answered from the data version alone, without reading any rows
+        if (webRequest.checkNotModified(etag)) {
+            logger.debug("Repositories not modified since {}", etag);
+            return null;
+        }
+        if (page == null) {
+            page = repositoryService.getRepositories(language, minStars, sort, limit, cursor);
+        }
         
-        ApiResponse.RepositoriesResponse response = new ApiResponse.RepositoriesResponse(repositories);
+        ApiResponse.RepositoriesResponse response =
+                new ApiResponse.RepositoriesResponse(page.getRepositories(), page.getNext());
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(response);
+    }
+
+    /**
+     * Weak validator: it names the data version and filters, not the bytes, and Tomcat only
+     * gzips responses without a strong ETag. A write racing this read at worst returns newer
+     * rows under the older version, which the next poll replaces. Pages read from a replica
+     * shortly after a write get no ETag, so older rows are never tagged with the newer version.
+     */
+    private static String repositoriesETag(long dataVersion, String language, Integer minStars, String sort,
+                                           Integer limit, String cursor) {
+        return "W/\"" + Long.toHexString(dataVersion) + "-" +
+                Integer.toHexString(Objects.hash(language, minStars, sort, limit, cursor)) + "\"";
+    }
+
+    @GetMapping("/repositories/search")
+    public ResponseEntity<ApiResponse.TextSearchResponse> searchStoredRepositories(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer limit) {
+
+        logger.info("Received text search request - q: {}, limit: {}", q, limit);
+
+        List<RepositoryDto> repositories = repositoryService.searchStoredRepositories(q, limit);
+
+        return ResponseEntity.ok(new ApiResponse.TextSearchResponse(q, repositories));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse.StatsResponse> getStats(@RequestParam(required = false) Integer top) {
+        RepositoryStats stats = repositoryService.getRepositoryStats(top);
+
+        return ResponseEntity.ok(new ApiResponse.StatsResponse(stats.getTotal(), stats.getLanguages()));
+    }
+
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<ApiResponse.StatsResponse> rebuildStats() {
+        logger.info("Received stats rebuild request");
+
+        RepositoryStats stats = repositoryService.rebuildRepositoryStats();
+
+        return ResponseEntity.ok(new ApiResponse.StatsResponse(stats.getTotal(), stats.getLanguages()));
+    }
+
+    @GetMapping("/queries")
+    public ResponseEntity<ApiResponse.QueriesResponse> getRecordedQueries() {
+        List<SearchQueryStatus> queries = searchResyncService.getQueryStatuses();
+
+        return ResponseEntity.ok(new ApiResponse.QueriesResponse(queries));
     }
-} 
\ No newline at end of file
+}
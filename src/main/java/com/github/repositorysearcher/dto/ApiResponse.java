@@ -1,9 +1,11 @@
 package com.github.repositorysearcher.dto;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -30,6 +32,10 @@ public class ApiResponse<T> {
     public static class SearchResponse {
         private String message;
         private List<RepositoryDto> repositories;
+        // True when GitHub could not be reached and the repositories are those of an earlier fetch
+        private boolean stale;
+        @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'")
+        private LocalDateTime fetchedAt;
     }
 
     @Data
@@ -37,5 +43,29 @@ public class ApiResponse<T> {
     @AllArgsConstructor
     public static class RepositoriesResponse {
         private List<RepositoryDto> repositories;
+        private String next;
     }
-} 
\ No newline at end of file
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TextSearchResponse {
+        private String query;
+        private List<RepositoryDto> repositories;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class QueriesResponse {
+        private List<SearchQueryStatus> queries;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StatsResponse {
+        private LanguageStats total;
+        private List<LanguageStats> languages;
+    }
+}
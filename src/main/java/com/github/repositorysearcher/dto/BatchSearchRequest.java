@@ -0,0 +1,18 @@
+package com.github.repositorysearcher.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSearchRequest {
+
+    @NotEmpty(message = "At least one search is required")
+    private List<@Valid GitHubSearchRequest> searches;
+}
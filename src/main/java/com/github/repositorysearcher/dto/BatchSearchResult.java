@@ -0,0 +1,39 @@
+package com.github.repositorysearcher.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch search: one result per submitted search, in submission order,
+ * and the counts of the single write that saved the union of their repositories.
+ * The write counts stay zero when write-behind persistence queues the rows instead.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSearchResult {
+
+    private int distinctSearches;
+    private int failedSearches;
+    private int repositories;
+    private int inserted;
+    private int updated;
+    private int unchanged;
+    private List<SearchResult> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SearchResult {
+        // The search as it was sent to GitHub; duplicates share the first spelling's run
+        private String query;
+        private String language;
+        private String sort;
+        private boolean success;
+        private int repositories;
+        private String error;
+    }
+}
@@ -0,0 +1,26 @@
+package com.github.repositorysearcher.dto;
+
+import com.github.repositorysearcher.repository.UpsertResult;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One re-sync fetch: what it wrote, and whether it covered every repository GitHub
+ * matched. Only a complete delta may move the search's last sync forward.
+ */
+@Data
+@AllArgsConstructor
+public class DeltaSyncResult {
+
+    private UpsertResult upsertResult;
+    private int fetched;
+    private int totalCount;
+    private boolean complete;
+
+    public static DeltaSyncResult of(GitHubSearchResult searchResult, UpsertResult upsertResult) {
+        int fetched = searchResult.getRepositories() != null ? searchResult.getRepositories().size() : 0;
+        int totalCount = searchResult.getTotalCount() != null ? searchResult.getTotalCount() : fetched;
+        boolean complete = !Boolean.TRUE.equals(searchResult.getIncompleteResults()) && fetched >= totalCount;
+        return new DeltaSyncResult(upsertResult, fetched, totalCount, complete);
+    }
+}
@@ -1,14 +1,21 @@
 package com.github.repositorysearcher.dto;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Locale;
+import java.util.Set;
+
 @Data
 @NoArgsConstructor
 public class GitHubSearchRequest {
 
+    private static final Set<String> OPERATORS = Set.of("AND", "OR", "NOT");
+
     @NotBlank(message = "Query is required")
     private String query;
 
@@ -17,9 +24,45 @@ public class GitHubSearchRequest {
     @Pattern(regexp = "^(stars|forks|updated)$", message = "Sort must be one of: stars, forks, updated")
     private String sort = "stars";
 
+    // Upper bound on results to ingest; above one page this switches to a multi-page fetch
+    @Min(value = 1, message = "maxResults must be at least 1")
+    @Max(value = 1000, message = "maxResults must be at most 1000")
+    private Integer maxResults;
+
     public GitHubSearchRequest(String query, String language, String sort) {
         this.query = query;
         this.language = language;
         this.sort = sort != null ? sort : "stars";
     }
-} 
\ No newline at end of file
+
+    public GitHubSearchRequest(String query, String language, String sort, Integer maxResults) {
+        this(query, language, sort);
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Returns the key under which equivalent searches are cached, coalesced and recorded:
+     * whitespace collapsed and keywords lower-cased, as GitHub matches keywords without
+     * regard to case. {@code AND}, {@code OR} and {@code NOT} are operators only in upper
+     * case, so they keep it. Searches GitHub still sends the request as given.
+     */
+    public GitHubSearchRequest normalized() {
+        String normalizedQuery = query != null ? normalizeQuery(query) : null;
+        String normalizedLanguage = language != null && !language.trim().isEmpty() ?
+                language.trim().toLowerCase(Locale.ROOT) : null;
+        String normalizedSort = sort != null && !sort.trim().isEmpty() ? sort.trim().toLowerCase(Locale.ROOT) : "stars";
+        return new GitHubSearchRequest(normalizedQuery, normalizedLanguage, normalizedSort, maxResults);
+    }
+
+    private static String normalizeQuery(String query) {
+        String[] terms = query.trim().split("\\s+");
+        StringBuilder normalized = new StringBuilder(query.length());
+        for (String term : terms) {
+            if (normalized.length() > 0) {
+                normalized.append(' ');
+            }
+            normalized.append(OPERATORS.contains(term) ? term : term.toLowerCase(Locale.ROOT));
+        }
+        return normalized.toString();
+    }
+}
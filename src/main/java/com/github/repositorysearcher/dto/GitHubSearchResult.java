@@ -0,0 +1,22 @@
+package com.github.repositorysearcher.dto;
+
+import com.github.repositorysearcher.entity.Repository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One GitHub search result decoded straight into the fields we store. The
+ * repositories are shared through the response cache and must not be modified.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GitHubSearchResult {
+
+    private Integer totalCount;
+    private Boolean incompleteResults;
+    private List<Repository> repositories;
+}
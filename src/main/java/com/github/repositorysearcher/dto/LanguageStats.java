@@ -0,0 +1,36 @@
+package com.github.repositorysearcher.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Star statistics for the repositories of one language, or of all of them.
+ * Percentiles are approximate, within 1% of the exact value.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LanguageStats {
+
+    private String language;
+    private long repositories;
+    private long totalStars;
+    private double averageStars;
+    private long starsP50;
+    private long starsP90;
+    private long starsP99;
+    private List<TopRepository> top;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TopRepository {
+        private Long id;
+        private String name;
+        private String owner;
+        private Integer stars;
+    }
+}
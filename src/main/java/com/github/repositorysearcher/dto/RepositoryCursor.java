@@ -0,0 +1,77 @@
+package com.github.repositorysearcher.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor: the sort key and repository id of the last row of a page.
+ * Encoded as URL-safe Base64 so clients treat it as a token rather than a format.
+ */
+@Data
+@AllArgsConstructor
+public class RepositoryCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private String sort;
+    private String value;
+    private long repositoryId;
+
+    public static RepositoryCursor after(String sort, RepositoryDto repository) {
+        String value = switch (sort) {
+            case "forks" -> String.valueOf(repository.getForks());
+            case "updated" -> repository.getLastUpdated().toString();
+            default -> String.valueOf(repository.getStars());
+        };
+        return new RepositoryCursor(sort, value, repository.getId());
+    }
+
+    public static RepositoryCursor decode(String token, String expectedSort) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+
+        String[] parts = decoded.split("\\|", -1);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        if (!parts[0].equals(expectedSort)) {
+            throw new IllegalArgumentException("Cursor was issued for sort '" + parts[0] + "', not '" + expectedSort + "'");
+        }
+
+        RepositoryCursor cursor;
+        try {
+            cursor = new RepositoryCursor(parts[0], parts[1], Long.parseLong(parts[2]));
+            // Parse eagerly so a tampered value is rejected as a bad request
+            if ("updated".equals(cursor.getSort())) {
+                cursor.getUpdatedValue();
+            } else {
+                cursor.getCountValue();
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return cursor;
+    }
+
+    public String encode() {
+        String raw = sort + SEPARATOR + value + SEPARATOR + repositoryId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public int getCountValue() {
+        return Integer.parseInt(value);
+    }
+
+    public LocalDateTime getUpdatedValue() {
+        return LocalDateTime.parse(value);
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.repositorysearcher.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepositoryPage {
+
+    private List<RepositoryDto> repositories;
+    private String next;
+    // Read from a replica that may not have applied the latest write yet
+    private boolean fromReplica;
+
+    public RepositoryPage(List<RepositoryDto> repositories, String next) {
+        this(repositories, next, false);
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.repositorysearcher.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepositoryStats {
+
+    private LanguageStats total;
+    private List<LanguageStats> languages;
+}
@@ -0,0 +1,55 @@
+package com.github.repositorysearcher.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.github.repositorysearcher.entity.SearchQuery;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Re-sync state of one recorded search: how far behind GitHub it may be (lag)
+ * and how many rows the last and all re-syncs wrote (churn).
+ */
+@Data
+@NoArgsConstructor
+public class SearchQueryStatus {
+
+    private String query;
+    private String language;
+    private String sort;
+    private Integer maxResults;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'")
+    private LocalDateTime lastRequestedAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'")
+    private LocalDateTime lastSyncedAt;
+
+    private long lagSeconds;
+    private int syncCount;
+    private int lastSyncInserted;
+    private int lastSyncUpdated;
+    private int lastSyncUnchanged;
+    private long totalSyncedRows;
+    private Long lastSyncDurationMs;
+    private String lastSyncError;
+
+    public SearchQueryStatus(SearchQuery searchQuery, LocalDateTime now) {
+        this.query = searchQuery.getQuery();
+        this.language = searchQuery.getLanguage();
+        this.sort = searchQuery.getSort();
+        this.maxResults = searchQuery.getMaxResults();
+        this.lastRequestedAt = searchQuery.getLastRequestedAt();
+        this.lastSyncedAt = searchQuery.getLastSyncedAt();
+        this.lagSeconds = Math.max(0, Duration.between(searchQuery.getLastSyncedAt(), now).toSeconds());
+        this.syncCount = searchQuery.getSyncCount();
+        this.lastSyncInserted = searchQuery.getLastSyncInserted();
+        this.lastSyncUpdated = searchQuery.getLastSyncUpdated();
+        this.lastSyncUnchanged = searchQuery.getLastSyncUnchanged();
+        this.totalSyncedRows = searchQuery.getTotalSyncedRows();
+        this.lastSyncDurationMs = searchQuery.getLastSyncDurationMs();
+        this.lastSyncError = searchQuery.getLastSyncError();
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.repositorysearcher.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositories answering one search. {@code stale} marks an answer read from the stored
+ * snapshot of an earlier fetch because GitHub could not be reached; {@code fetchedAt}
+ * is when the answer was fetched from GitHub (UTC).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResults {
+
+    private List<RepositoryDto> repositories;
+    private boolean stale;
+    private LocalDateTime fetchedAt;
+
+    public static SearchResults fetched(List<RepositoryDto> repositories, LocalDateTime fetchedAt) {
+        return new SearchResults(repositories, false, fetchedAt);
+    }
+}
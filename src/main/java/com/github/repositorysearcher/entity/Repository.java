@@ -7,15 +7,30 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Locale;
 
 @Entity
-@Table(name = "repositories")
+@Table(name = "repositories", indexes = {
+        @Index(name = "idx_repositories_stars", columnList = "stars_count DESC, repository_id DESC"),
+        @Index(name = "idx_repositories_forks", columnList = "forks_count DESC, repository_id DESC"),
+        @Index(name = "idx_repositories_updated", columnList = "last_updated_date DESC, repository_id DESC"),
+        @Index(name = "idx_repositories_language_stars",
+                columnList = "language_key, stars_count DESC, repository_id DESC"),
+        @Index(name = "idx_repositories_language_forks",
+                columnList = "language_key, forks_count DESC, repository_id DESC"),
+        @Index(name = "idx_repositories_language_updated",
+                columnList = "language_key, last_updated_date DESC, repository_id DESC")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString(exclude = {"createdAt", "updatedAt"})
 public class Repository {
 
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
     @Id
     @Column(name = "repository_id", unique = true, nullable = false)
     private Long repositoryId;
@@ -32,6 +47,10 @@ public class Repository {
     @Column(name = "programming_language")
     private String programmingLanguage;
 
+    // Lower-cased copy of programmingLanguage so language filters can use a plain index
+    @Column(name = "language_key")
+    private String languageKey;
+
     @Column(name = "stars_count", nullable = false)
     private Integer starsCount;
 
@@ -41,6 +60,10 @@ public class Repository {
     @Column(name = "last_updated_date", nullable = false)
     private LocalDateTime lastUpdatedDate;
 
+    // Hash of the fields synced from GitHub; an upsert skips rows whose hash is unchanged
+    @Column(name = "content_hash")
+    private Long contentHash;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -56,13 +79,67 @@ public class Repository {
         this.description = description;
         this.ownerName = ownerName;
         this.programmingLanguage = programmingLanguage;
+        this.languageKey = normalizeLanguage(programmingLanguage);
         this.starsCount = starsCount;
         this.forksCount = forksCount;
         this.lastUpdatedDate = lastUpdatedDate;
     }
 
+    public static String normalizeLanguage(String language) {
+        if (language == null || language.trim().isEmpty()) {
+            return null;
+        }
+        return language.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 64-bit FNV-1a hash over the fields synced from GitHub, with a marker for
+     * {@code null} and a separator after every field.
+     */
+    public long computeContentHash() {
+        long hash = FNV_OFFSET_BASIS;
+        hash = mix(hash, name);
+        hash = mix(hash, description);
+        hash = mix(hash, ownerName);
+        hash = mix(hash, programmingLanguage);
+        hash = mix(hash, starsCount != null ? (long) starsCount : null);
+        hash = mix(hash, forksCount != null ? (long) forksCount : null);
+        hash = mix(hash, lastUpdatedDate != null ? lastUpdatedDate.toEpochSecond(ZoneOffset.UTC) : null);
+        hash = mix(hash, lastUpdatedDate != null ? (long) lastUpdatedDate.getNano() : null);
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return mixChar(mixChar(hash, '\uFFFE'), '\uFFFF');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = mixChar(hash, value.charAt(i));
+        }
+        return mixChar(hash, '\uFFFF');
+    }
+
+    private static long mix(long hash, Long value) {
+        if (value == null) {
+            return mixChar(mixChar(hash, '\uFFFE'), '\uFFFF');
+        }
+        long bits = value;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = (hash ^ (bits & 0xff)) * FNV_PRIME;
+            bits >>>= 8;
+        }
+        return mixChar(hash, '\uFFFF');
+    }
+
+    private static long mixChar(long hash, char c) {
+        hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+        return (hash ^ (c >>> 8)) * FNV_PRIME;
+    }
+
     @PrePersist
     public void prePersist() {
+        this.languageKey = normalizeLanguage(programmingLanguage);
+        this.contentHash = computeContentHash();
         LocalDateTime now = LocalDateTime.now();
         this.createdAt = now;
         this.updatedAt = now;
@@ -70,6 +147,8 @@ public class Repository {
 
     @PreUpdate
     public void preUpdate() {
+        this.languageKey = normalizeLanguage(programmingLanguage);
+        this.contentHash = computeContentHash();
         this.updatedAt = LocalDateTime.now();
     }
 } 
\ No newline at end of file
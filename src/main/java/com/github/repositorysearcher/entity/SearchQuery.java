@@ -0,0 +1,150 @@
+package com.github.repositorysearcher.entity;
+
+import com.github.repositorysearcher.dto.GitHubSearchRequest;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A search that a client has run, kept so its results can be re-synced in the
+ * background. All timestamps are UTC. Updates only write the changed columns, as
+ * client searches and re-syncs change different ones of the same row concurrently.
+ */
+@Entity
+@DynamicUpdate
+@Table(name = "search_queries", indexes = {
+        @Index(name = "idx_search_queries_last_synced", columnList = "last_synced_at")
+})
+@Data
+@NoArgsConstructor
+public class SearchQuery {
+
+    private static final int SNAPSHOT_IDS_LENGTH = 16000;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Normalized request, so different spellings of one search share a row
+    @Column(name = "query_key", unique = true, nullable = false, length = 1024)
+    private String queryKey;
+
+    @Column(name = "query_text", nullable = false, length = 1024)
+    private String query;
+
+    @Column(name = "language")
+    private String language;
+
+    @Column(name = "sort", nullable = false)
+    private String sort;
+
+    @Column(name = "max_results")
+    private Integer maxResults;
+
+    @Column(name = "last_requested_at", nullable = false)
+    private LocalDateTime lastRequestedAt;
+
+    // Start of the last fetch that covered this search; the next delta asks for changes since then
+    @Column(name = "last_synced_at", nullable = false)
+    private LocalDateTime lastSyncedAt;
+
+    @Column(name = "sync_count", nullable = false)
+    private int syncCount;
+
+    @Column(name = "last_sync_inserted", nullable = false)
+    private int lastSyncInserted;
+
+    @Column(name = "last_sync_updated", nullable = false)
+    private int lastSyncUpdated;
+
+    @Column(name = "last_sync_unchanged", nullable = false)
+    private int lastSyncUnchanged;
+
+    @Column(name = "total_synced_rows", nullable = false)
+    private long totalSyncedRows;
+
+    @Column(name = "last_sync_duration_ms")
+    private Long lastSyncDurationMs;
+
+    @Column(name = "last_sync_error", length = 1024)
+    private String lastSyncError;
+
+    // Ordered ids of the last full fetch, comma separated, to answer the search while GitHub is down
+    @Column(name = "snapshot_ids", length = SNAPSHOT_IDS_LENGTH)
+    private String snapshotIds;
+
+    @Column(name = "snapshot_fetched_at")
+    private LocalDateTime snapshotFetchedAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public static String keyOf(GitHubSearchRequest normalizedRequest) {
+        return normalizedRequest.getQuery() + "|" +
+                (normalizedRequest.getLanguage() != null ? normalizedRequest.getLanguage() : "") + "|" +
+                normalizedRequest.getSort() + "|" +
+                (normalizedRequest.getMaxResults() != null ? normalizedRequest.getMaxResults() : "");
+    }
+
+    /**
+     * A new row for {@code request}, keyed by its normalized form. The query text is kept as
+     * written, because re-syncs send it to GitHub, whose operators are case-sensitive.
+     */
+    public static SearchQuery of(GitHubSearchRequest request, LocalDateTime now) {
+        GitHubSearchRequest normalizedRequest = request.normalized();
+        SearchQuery searchQuery = new SearchQuery();
+        searchQuery.setQueryKey(keyOf(normalizedRequest));
+        searchQuery.setQuery(request.getQuery().trim());
+        searchQuery.setLanguage(normalizedRequest.getLanguage());
+        searchQuery.setSort(normalizedRequest.getSort());
+        searchQuery.setMaxResults(normalizedRequest.getMaxResults());
+        searchQuery.setLastRequestedAt(now);
+        searchQuery.setLastSyncedAt(now);
+        searchQuery.setCreatedAt(now);
+        return searchQuery;
+    }
+
+    /**
+     * Keeps the ordered result of a fetch that started at {@code fetchedAt}. Ids that do not
+     * fit the column are dropped from the end, which only shortens a stale answer.
+     */
+    public void setSnapshot(List<Long> repositoryIds, LocalDateTime fetchedAt) {
+        StringBuilder ids = new StringBuilder();
+        for (Long id : repositoryIds) {
+            String encoded = Long.toString(id);
+            if (ids.length() + encoded.length() + 1 > SNAPSHOT_IDS_LENGTH) {
+                break;
+            }
+            if (ids.length() > 0) {
+                ids.append(',');
+            }
+            ids.append(encoded);
+        }
+        this.snapshotIds = ids.toString();
+        this.snapshotFetchedAt = fetchedAt;
+    }
+
+    /**
+     * Repository ids of the snapshot in result order; empty without one.
+     */
+    public List<Long> snapshotRepositoryIds() {
+        if (snapshotIds == null || snapshotIds.isEmpty()) {
+            return List.of();
+        }
+        String[] parts = snapshotIds.split(",");
+        List<Long> ids = new ArrayList<>(parts.length);
+        for (String part : parts) {
+            ids.add(Long.parseLong(part));
+        }
+        return ids;
+    }
+
+    public GitHubSearchRequest toRequest() {
+        return new GitHubSearchRequest(query, language, sort, maxResults);
+    }
+}
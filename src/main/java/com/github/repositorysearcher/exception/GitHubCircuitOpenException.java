@@ -0,0 +1,20 @@
+package com.github.repositorysearcher.exception;
+
+import java.time.Duration;
+
+/**
+ * GitHub calls are failing fast because recent calls failed too often.
+ */
+public class GitHubCircuitOpenException extends GitHubApiException {
+
+    private final Duration retryAfter;
+
+    public GitHubCircuitOpenException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.repositorysearcher.exception;
+
+/**
+ * GitHub answered with a server error; the same request may succeed when retried.
+ */
+public class GitHubUnavailableException extends GitHubApiException {
+
+    public GitHubUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -3,6 +3,7 @@ package com.github.repositorysearcher.exception;
 import com.github.repositorysearcher.dto.ApiResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -25,6 +26,42 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body(response);
     }
 
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ApiResponse<Object>> handleRateLimitExceededException(RateLimitExceededException e) {
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        logger.warn("GitHub rate limit budget exhausted, retry after {}s: {}", retryAfterSeconds, e.getMessage());
+        ApiResponse<Object> response = ApiResponse.error(e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(response);
+    }
+
+    @ExceptionHandler(GitHubCircuitOpenException.class)
+    public ResponseEntity<ApiResponse<Object>> handleGitHubCircuitOpenException(GitHubCircuitOpenException e) {
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        logger.warn("GitHub calls suspended, retry after {}s: {}", retryAfterSeconds, e.getMessage());
+        ApiResponse<Object> response = ApiResponse.error(e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(response);
+    }
+
+    @ExceptionHandler(SearchIndexUnavailableException.class)
+    public ResponseEntity<ApiResponse<Object>> handleSearchIndexUnavailableException(SearchIndexUnavailableException e) {
+        logger.warn("Search index unavailable: {}", e.getMessage());
+        ApiResponse<Object> response = ApiResponse.error(e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+    }
+
+    @ExceptionHandler(WriteQueueFullException.class)
+    public ResponseEntity<ApiResponse<Object>> handleWriteQueueFullException(WriteQueueFullException e) {
+        logger.warn("Repository write queue rejected a search: {}", e.getMessage());
+        ApiResponse<Object> response = ApiResponse.error(e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponse<Object>> handleValidationExceptions(MethodArgumentNotValidException e) {
         Map<String, String> errors = new HashMap<>();
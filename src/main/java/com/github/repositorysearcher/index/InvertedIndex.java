@@ -0,0 +1,366 @@
+package com.github.repositorysearcher.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Inverted index over repository name, owner and description with BM25 ranking.
+ * Fields are weighted by repeating their term frequencies (BM25F), so a match in
+ * the name outranks the same match in a long description.
+ * <p>
+ * Updating a repository appends a new document and tombstones the old one;
+ * postings of dead documents are dropped by a compaction once they make up a
+ * large share of the index. Each term keeps its live document frequency, and
+ * searches skip documents that cannot reach the top results (MaxScore).
+ * Not thread-safe.
+ */
+public final class InvertedIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_WEIGHT = 3;
+    private static final int OWNER_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final double COMPACTION_DEAD_RATIO = 0.25;
+    private static final int COMPACTION_MIN_DEAD = 1024;
+
+    // Best first; ties go to the higher repository id, like the other listings
+    private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::score).reversed()
+            .thenComparing(Comparator.comparingLong(Hit::repositoryId).reversed());
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> documentsByRepositoryId = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private long[] repositoryIds = new long[1024];
+    private int[] lengths = new int[1024];
+    private long[] textHashes = new long[1024];
+    // Posting lists of each live document's terms, to keep their live counts on removal
+    private Postings[][] documentTerms = new Postings[1024][];
+    private int documentCount;
+    private int liveCount;
+    private long liveLength;
+
+    public record Hit(long repositoryId, double score) {
+    }
+
+    public int size() {
+        return liveCount;
+    }
+
+    public void clear() {
+        Arrays.fill(documentTerms, 0, documentCount, null);
+        postings.clear();
+        documentsByRepositoryId.clear();
+        live.clear();
+        documentCount = 0;
+        liveCount = 0;
+        liveLength = 0;
+    }
+
+    /**
+     * Adds or replaces the document of a repository. Returns false when the text is
+     * unchanged, which is the common case for re-synced repositories.
+     */
+    public boolean put(long repositoryId, String name, String owner, String description) {
+        long textHash = textHash(name, owner, description);
+        Integer previous = documentsByRepositoryId.get(repositoryId);
+        if (previous != null) {
+            if (textHashes[previous] == textHash) {
+                return false;
+            }
+            remove(previous);
+        }
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = addTerms(frequencies, name, NAME_WEIGHT)
+                + addTerms(frequencies, owner, OWNER_WEIGHT)
+                + addTerms(frequencies, description, DESCRIPTION_WEIGHT);
+
+        int document = documentCount++;
+        ensureCapacity(documentCount);
+        repositoryIds[document] = repositoryId;
+        lengths[document] = length;
+        textHashes[document] = textHash;
+        live.set(document);
+        liveCount++;
+        liveLength += length;
+        documentsByRepositoryId.put(repositoryId, document);
+        Postings[] terms = new Postings[frequencies.size()];
+        int next = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            Postings list = postings.computeIfAbsent(entry.getKey(), key -> new Postings());
+            list.add(document, entry.getValue());
+            terms[next++] = list;
+        }
+        documentTerms[document] = terms;
+
+        if (documentCount - liveCount >= COMPACTION_MIN_DEAD
+                && documentCount - liveCount > documentCount * COMPACTION_DEAD_RATIO) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the {@code limit} best matching repositories for any of the query terms.
+     * Postings are merged document at a time, so no per-document score array is needed.
+     * Once the top results are full, terms whose score bounds together stay below the
+     * last of them no longer propose documents, and only documents found through the
+     * other terms are looked up in them.
+     */
+    public List<Hit> search(String query, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        List<TermCursor> matched = new ArrayList<>();
+        for (String term : new LinkedHashSet<>(TextTokenizer.tokenize(query))) {
+            Postings list = postings.get(term);
+            if (list != null && list.liveCount > 0) {
+                double idf = Math.log(1 + (liveCount - list.liveCount + 0.5) / (list.liveCount + 0.5));
+                matched.add(new TermCursor(matched.size(), list, idf));
+            }
+        }
+        if (matched.isEmpty()) {
+            return List.of();
+        }
+        // Smallest bound first; boundBelow[i] is the most terms 0..i-1 can add to a score
+        TermCursor[] cursors = matched.toArray(new TermCursor[0]);
+        Arrays.sort(cursors, Comparator.comparingDouble(TermCursor::upperBound));
+        double[] boundBelow = new double[cursors.length + 1];
+        for (int i = 0; i < cursors.length; i++) {
+            boundBelow[i + 1] = boundBelow[i] + cursors[i].upperBound();
+        }
+
+        double averageLength = (double) liveLength / liveCount;
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        // Per query term, summed in query order so equal documents get bit-identical scores
+        double[] contributions = new double[cursors.length];
+        int firstEssential = 0;
+        while (true) {
+            if (best.size() == limit) {
+                double threshold = best.peek().score();
+                while (firstEssential < cursors.length && boundBelow[firstEssential + 1] < threshold) {
+                    firstEssential++;
+                }
+            }
+            int document = Integer.MAX_VALUE;
+            for (int i = firstEssential; i < cursors.length; i++) {
+                document = Math.min(document, cursors[i].document());
+            }
+            if (document == Integer.MAX_VALUE) {
+                break;
+            }
+
+            double lengthNorm = K1 * (1 - B + B * lengths[document] / averageLength);
+            Arrays.fill(contributions, 0);
+            double score = 0;
+            for (int i = firstEssential; i < cursors.length; i++) {
+                if (cursors[i].document() == document) {
+                    score += contributions[cursors[i].order] = cursors[i].score(lengthNorm);
+                    cursors[i].next();
+                }
+            }
+            if (!live.get(document)) {
+                continue;
+            }
+            boolean competitive = true;
+            for (int i = firstEssential - 1; i >= 0 && competitive; i--) {
+                if (score + boundBelow[i + 1] < best.peek().score()) {
+                    competitive = false;
+                } else if (cursors[i].advanceTo(document) == document) {
+                    score += contributions[cursors[i].order] = cursors[i].score(lengthNorm);
+                }
+            }
+            if (!competitive) {
+                continue;
+            }
+            score = 0;
+            for (double contribution : contributions) {
+                score += contribution;
+            }
+            if (best.size() < limit || ranksAbove(score, repositoryIds[document], best.peek())) {
+                best.add(new Hit(repositoryIds[document], score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(RANKING);
+        return hits;
+    }
+
+    private static boolean ranksAbove(double score, long repositoryId, Hit other) {
+        return score > other.score() || (score == other.score() && repositoryId > other.repositoryId());
+    }
+
+    private void remove(int document) {
+        for (Postings list : documentTerms[document]) {
+            list.liveCount--;
+        }
+        documentTerms[document] = null;
+        live.clear(document);
+        liveCount--;
+        liveLength -= lengths[document];
+    }
+
+    /**
+     * Renumbers live documents densely and drops dead postings. Numbering keeps
+     * the document order, so postings stay sorted.
+     */
+    private void compact() {
+        int[] renumbered = new int[documentCount];
+        int next = 0;
+        for (int document = 0; document < documentCount; document++) {
+            if (live.get(document)) {
+                renumbered[document] = next;
+                repositoryIds[next] = repositoryIds[document];
+                lengths[next] = lengths[document];
+                textHashes[next] = textHashes[document];
+                documentTerms[next] = documentTerms[document];
+                next++;
+            } else {
+                renumbered[document] = -1;
+            }
+        }
+
+        Arrays.fill(documentTerms, next, documentCount, null);
+        postings.values().removeIf(list -> list.retain(renumbered) == 0);
+        documentsByRepositoryId.replaceAll((repositoryId, document) -> renumbered[document]);
+        live.clear();
+        live.set(0, next);
+        documentCount = next;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > repositoryIds.length) {
+            int newLength = Math.max(capacity, repositoryIds.length * 2);
+            repositoryIds = Arrays.copyOf(repositoryIds, newLength);
+            lengths = Arrays.copyOf(lengths, newLength);
+            textHashes = Arrays.copyOf(textHashes, newLength);
+            documentTerms = Arrays.copyOf(documentTerms, newLength);
+        }
+    }
+
+    private static int addTerms(Map<String, Integer> frequencies, String text, int weight) {
+        List<String> terms = TextTokenizer.tokenize(text);
+        for (String term : terms) {
+            frequencies.merge(term, weight, Integer::sum);
+        }
+        return terms.size() * weight;
+    }
+
+    // 64-bit FNV-1a over the three fields, with a separator so field boundaries count
+    private static long textHash(String... fields) {
+        long hash = 0xcbf29ce484222325L;
+        for (String field : fields) {
+            if (field != null) {
+                for (int i = 0; i < field.length(); i++) {
+                    hash = (hash ^ field.charAt(i)) * 0x100000001b3L;
+                }
+            }
+            hash = (hash ^ 0xFFFF) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Documents containing one term, in increasing document order, with their weighted
+     * frequency, plus how many of them are live and the highest frequency seen.
+     */
+    private static final class Postings {
+
+        private int[] documents = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+        private int liveCount;
+        private int maxFrequency;
+
+        void add(int document, int frequency) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size] = frequency;
+            size++;
+            liveCount++;
+            maxFrequency = Math.max(maxFrequency, frequency);
+        }
+
+        int retain(int[] renumbered) {
+            int kept = 0;
+            maxFrequency = 0;
+            for (int i = 0; i < size; i++) {
+                int document = renumbered[documents[i]];
+                if (document >= 0) {
+                    documents[kept] = document;
+                    frequencies[kept] = frequencies[i];
+                    maxFrequency = Math.max(maxFrequency, frequencies[i]);
+                    kept++;
+                }
+            }
+            size = kept;
+            liveCount = kept;
+            return kept;
+        }
+    }
+
+    /**
+     * Position of a search in one term's postings.
+     */
+    private static final class TermCursor {
+
+        private final int order;
+        private final Postings list;
+        private final double idf;
+        private final double upperBound;
+        private int position;
+
+        TermCursor(int order, Postings list, double idf) {
+            this.order = order;
+            this.list = list;
+            this.idf = idf;
+            // The score of the highest frequency in the shortest possible document, rounded up
+            // a little so summing bounds in another order never ends below a real score
+            int frequency = list.maxFrequency;
+            this.upperBound = idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B)) * (1 + 1e-9);
+        }
+
+        double upperBound() {
+            return upperBound;
+        }
+
+        int document() {
+            return position < list.size ? list.documents[position] : Integer.MAX_VALUE;
+        }
+
+        double score(double lengthNorm) {
+            int frequency = list.frequencies[position];
+            return idf * frequency * (K1 + 1) / (frequency + lengthNorm);
+        }
+
+        void next() {
+            position++;
+        }
+
+        /**
+         * Moves to the first document at or after {@code target} and returns it.
+         */
+        int advanceTo(int target) {
+            if (document() < target) {
+                int found = Arrays.binarySearch(list.documents, position, list.size, target);
+                position = found >= 0 ? found : -found - 1;
+            }
+            return document();
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.github.repositorysearcher.index;
+
+import com.github.repositorysearcher.dto.RepositoryCursor;
+import com.github.repositorysearcher.dto.RepositoryDto;
+import com.github.repositorysearcher.entity.Repository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Immutable column-per-field copy of the repositories table. Each row lives in a
+ * slot; filters and sort keys are primitive arrays indexed by slot, and one
+ * pre-sorted slot permutation per sort key gives the (value DESC, id DESC) order
+ * the database uses. Updates produce a new instance and never touch this one.
+ */
+final class RepositoryColumns {
+
+    enum SortKey {
+        STARS, FORKS, UPDATED;
+
+        static SortKey of(String sort) {
+            return switch (sort) {
+                case "forks" -> FORKS;
+                case "updated" -> UPDATED;
+                default -> STARS;
+            };
+        }
+    }
+
+    private static final int NO_LANGUAGE = -1;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final int size;
+    private final long[] ids;
+    private final int[] languageIds;
+    private final int[] stars;
+    private final int[] forks;
+    private final long[] updatedMicros;
+    private final String[] names;
+    private final String[] descriptions;
+    private final String[] owners;
+    private final String[] languages;
+
+    // Dictionary of normalized language keys; languageIds holds positions in it
+    private final String[] languageKeys;
+    private final Map<String, Integer> languageIdsByKey;
+
+    private final int[] byStars;
+    private final int[] byForks;
+    private final int[] byUpdated;
+
+    private RepositoryColumns(int size, long[] ids, int[] languageIds, int[] stars, int[] forks,
+                              long[] updatedMicros, String[] names, String[] descriptions, String[] owners,
+                              String[] languages, String[] languageKeys, Map<String, Integer> languageIdsByKey,
+                              int[] byStars, int[] byForks, int[] byUpdated) {
+        this.size = size;
+        this.ids = ids;
+        this.languageIds = languageIds;
+        this.stars = stars;
+        this.forks = forks;
+        this.updatedMicros = updatedMicros;
+        this.names = names;
+        this.descriptions = descriptions;
+        this.owners = owners;
+        this.languages = languages;
+        this.languageKeys = languageKeys;
+        this.languageIdsByKey = languageIdsByKey;
+        this.byStars = byStars;
+        this.byForks = byForks;
+        this.byUpdated = byUpdated;
+    }
+
+    static RepositoryColumns empty() {
+        return new RepositoryColumns(0, new long[0], new int[0], new int[0], new int[0], new long[0],
+                new String[0], new String[0], new String[0], new String[0], new String[0], Map.of(),
+                new int[0], new int[0], new int[0]);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns a copy with the given rows inserted or replaced. {@code slots} maps
+     * repository ids to slots of this instance and is updated for the new one;
+     * {@code changes} must not contain the same id twice.
+     */
+    RepositoryColumns withUpserts(Collection<Repository> changes, Map<Long, Integer> slots) {
+        int[] changedSlots = new int[changes.size()];
+        int newSize = size;
+        int i = 0;
+        for (Repository repository : changes) {
+            Integer slot = slots.get(repository.getRepositoryId());
+            changedSlots[i++] = slot != null ? slot : newSize++;
+        }
+
+        long[] newIds = Arrays.copyOf(ids, newSize);
+        int[] newLanguageIds = Arrays.copyOf(languageIds, newSize);
+        int[] newStars = Arrays.copyOf(stars, newSize);
+        int[] newForks = Arrays.copyOf(forks, newSize);
+        long[] newUpdated = Arrays.copyOf(updatedMicros, newSize);
+        String[] newNames = Arrays.copyOf(names, newSize);
+        String[] newDescriptions = Arrays.copyOf(descriptions, newSize);
+        String[] newOwners = Arrays.copyOf(owners, newSize);
+        String[] newLanguages = Arrays.copyOf(languages, newSize);
+        List<String> newLanguageKeys = new ArrayList<>(Arrays.asList(languageKeys));
+        Map<String, Integer> newLanguageIdsByKey = new HashMap<>(languageIdsByKey);
+
+        i = 0;
+        for (Repository repository : changes) {
+            int slot = changedSlots[i++];
+            newIds[slot] = repository.getRepositoryId();
+            newStars[slot] = repository.getStarsCount();
+            newForks[slot] = repository.getForksCount();
+            newUpdated[slot] = toMicros(repository.getLastUpdatedDate());
+            newNames[slot] = repository.getName();
+            newDescriptions[slot] = repository.getDescription();
+            newOwners[slot] = repository.getOwnerName();
+            newLanguages[slot] = repository.getProgrammingLanguage();
+
+            String languageKey = Repository.normalizeLanguage(repository.getProgrammingLanguage());
+            if (languageKey == null) {
+                newLanguageIds[slot] = NO_LANGUAGE;
+            } else {
+                newLanguageIds[slot] = newLanguageIdsByKey.computeIfAbsent(languageKey, key -> {
+                    newLanguageKeys.add(key);
+                    return newLanguageKeys.size() - 1;
+                });
+            }
+        }
+
+        boolean[] changed = new boolean[newSize];
+        for (int slot : changedSlots) {
+            changed[slot] = true;
+        }
+        RepositoryColumns updated = new RepositoryColumns(newSize, newIds, newLanguageIds, newStars, newForks,
+                newUpdated, newNames, newDescriptions, newOwners, newLanguages,
+                newLanguageKeys.toArray(new String[0]), Map.copyOf(newLanguageIdsByKey),
+                new int[newSize], new int[newSize], new int[newSize]);
+        for (SortKey sortKey : SortKey.values()) {
+            updated.mergeOrder(sortKey, permutation(sortKey), changed, changedSlots);
+        }
+
+        i = 0;
+        for (Repository repository : changes) {
+            slots.put(repository.getRepositoryId(), changedSlots[i++]);
+        }
+        return updated;
+    }
+
+    /**
+     * The rows of this instance in slot order, as upserted.
+     */
+    List<Repository> rows() {
+        List<Repository> rows = new ArrayList<>(size);
+        for (int slot = 0; slot < size; slot++) {
+            rows.add(row(slot));
+        }
+        return rows;
+    }
+
+    Repository row(int slot) {
+        return new Repository(ids[slot], names[slot], descriptions[slot], owners[slot], languages[slot],
+                stars[slot], forks[slot], fromMicros(updatedMicros[slot]));
+    }
+
+    /**
+     * Same rows and order as {@code RepositoryRepository.findPage} for the same arguments.
+     */
+    List<RepositoryDto> page(String languageKey, Integer minStars, SortKey sortKey, RepositoryCursor after, int limit) {
+        Scan scan = scan(languageKey, minStars, sortKey, after);
+        List<RepositoryDto> page = new ArrayList<>(Math.min(limit, size));
+        while (page.size() < limit && scan.advance()) {
+            page.add(scan.dto());
+        }
+        return page;
+    }
+
+    /**
+     * Walks the rows matching the filters in page order, starting after {@code after}.
+     */
+    Scan scan(String languageKey, Integer minStars, SortKey sortKey, RepositoryCursor after) {
+        return new Scan(languageKey, minStars, sortKey, after);
+    }
+
+    final class Scan {
+
+        private final Integer minStars;
+        private final SortKey sortKey;
+        private final int[] order;
+        private final int languageId;
+        private int position;
+        private int slot = -1;
+
+        private Scan(String languageKey, Integer minStars, SortKey sortKey, RepositoryCursor after) {
+            this.minStars = minStars;
+            this.sortKey = sortKey;
+            this.order = permutation(sortKey);
+            Integer id = languageKey != null ? languageIdsByKey.get(languageKey) : Integer.valueOf(NO_LANGUAGE);
+            this.languageId = id != null ? id : NO_LANGUAGE;
+            if (id == null) {
+                // A language no row has
+                this.position = size;
+            } else if (after != null) {
+                this.position = firstAfter(order, sortKey, cursorValue(sortKey, after), after.getRepositoryId());
+            }
+        }
+
+        /**
+         * Moves to the next matching row; {@code false} once there is none.
+         */
+        boolean advance() {
+            while (position < size) {
+                int candidate = order[position++];
+                if (minStars != null && stars[candidate] < minStars) {
+                    if (sortKey == SortKey.STARS) {
+                        // Every following row has fewer stars
+                        position = size;
+                        break;
+                    }
+                    continue;
+                }
+                if (languageId != NO_LANGUAGE && languageIds[candidate] != languageId) {
+                    continue;
+                }
+                slot = candidate;
+                return true;
+            }
+            slot = -1;
+            return false;
+        }
+
+        long sortValue() {
+            return RepositoryColumns.this.sortValue(sortKey, slot);
+        }
+
+        long id() {
+            return ids[slot];
+        }
+
+        RepositoryDto dto() {
+            return toDto(slot);
+        }
+    }
+
+    private void mergeOrder(SortKey sortKey, int[] previousOrder, boolean[] changed, int[] changedSlots) {
+        IntBinaryOperator comparator = (a, b) -> compare(sortKey, a, b);
+        int[] changedOrder = changedSlots.clone();
+        sort(changedOrder, comparator);
+
+        // Unchanged rows keep their values, so their previous relative order still holds
+        int[] target = permutation(sortKey);
+        int out = 0;
+        int c = 0;
+        for (int slot : previousOrder) {
+            if (changed[slot]) {
+                continue;
+            }
+            while (c < changedOrder.length && comparator.applyAsInt(changedOrder[c], slot) < 0) {
+                target[out++] = changedOrder[c++];
+            }
+            target[out++] = slot;
+        }
+        while (c < changedOrder.length) {
+            target[out++] = changedOrder[c++];
+        }
+    }
+
+    // Negative when slot a comes first: higher sort value, then higher id
+    private int compare(SortKey sortKey, int a, int b) {
+        int bySortValue = Long.compare(sortValue(sortKey, b), sortValue(sortKey, a));
+        return bySortValue != 0 ? bySortValue : Long.compare(ids[b], ids[a]);
+    }
+
+    private int firstAfter(int[] order, SortKey sortKey, long value, long id) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int slot = order[mid];
+            long slotValue = sortValue(sortKey, slot);
+            boolean after = slotValue < value || (slotValue == value && ids[slot] < id);
+            if (after) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private long sortValue(SortKey sortKey, int slot) {
+        return switch (sortKey) {
+            case STARS -> stars[slot];
+            case FORKS -> forks[slot];
+            case UPDATED -> updatedMicros[slot];
+        };
+    }
+
+    private int[] permutation(SortKey sortKey) {
+        return switch (sortKey) {
+            case STARS -> byStars;
+            case FORKS -> byForks;
+            case UPDATED -> byUpdated;
+        };
+    }
+
+    private static long cursorValue(SortKey sortKey, RepositoryCursor cursor) {
+        return sortKey == SortKey.UPDATED ? toMicros(cursor.getUpdatedValue()) : cursor.getCountValue();
+    }
+
+    private RepositoryDto toDto(int slot) {
+        return new RepositoryDto(ids[slot], names[slot], descriptions[slot], owners[slot], languages[slot],
+                stars[slot], forks[slot], fromMicros(updatedMicros[slot]));
+    }
+
+    // Rounded to microseconds like the timestamp column
+    private static long toMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + (dateTime.getNano() + 500) / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Stable merge sort of slot numbers, so sorting does not box them.
+     */
+    private static void sort(int[] slots, IntBinaryOperator comparator) {
+        if (slots.length > 1) {
+            mergeSort(slots, slots.clone(), 0, slots.length, comparator);
+        }
+    }
+
+    // Sorts src[from, to) into dst[from, to); both arrays start with the same content
+    private static void mergeSort(int[] dst, int[] src, int from, int to, IntBinaryOperator comparator) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int value = dst[i];
+                int j = i - 1;
+                while (j >= from && comparator.applyAsInt(dst[j], value) > 0) {
+                    dst[j + 1] = dst[j];
+                    j--;
+                }
+                dst[j + 1] = value;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(src, dst, from, mid, comparator);
+        mergeSort(src, dst, mid, to, comparator);
+        int left = from;
+        int right = mid;
+        for (int out = from; out < to; out++) {
+            if (right >= to || (left < mid && comparator.applyAsInt(src[left], src[right]) <= 0)) {
+                dst[out] = src[left++];
+            } else {
+                dst[out] = src[right++];
+            }
+        }
+    }
+}
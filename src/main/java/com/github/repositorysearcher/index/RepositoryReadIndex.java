@@ -0,0 +1,290 @@
+package com.github.repositorysearcher.index;
+
+import com.github.repositorysearcher.dto.RepositoryCursor;
+import com.github.repositorysearcher.dto.RepositoryDto;
+import com.github.repositorysearcher.entity.Repository;
+import com.github.repositorysearcher.service.RepositoryChangeListener;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Optional in-memory copy of the repositories table that answers the filtered,
+ * sorted page reads of GET /api/github/repositories without a database round trip.
+ * Built at startup and kept current from committed upserts; until it is ready, or
+ * when it is disabled, callers read from the database instead.
+ * <p>
+ * Upserts go to a small delta segment, so their cost does not grow with the table;
+ * once the delta holds {@code merge-threshold} rows it is merged into the base on a
+ * background thread.
+ */
+@Component
+public class RepositoryReadIndex implements RepositoryChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryReadIndex.class);
+
+    private static final String LOAD_SQL =
+            "SELECT repository_id, name, description, owner_name, programming_language, " +
+            "stars_count, forks_count, last_updated_date FROM repositories";
+    private static final int LOAD_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int mergeThreshold;
+    private final Executor mergeExecutor;
+
+    // Segments and their slot maps; only touched while holding the lock
+    private RepositoryColumns base;
+    private Map<Long, Integer> baseSlots = new HashMap<>();
+    private RepositoryColumns delta;
+    private final Map<Long, Integer> deltaSlots = new HashMap<>();
+    private int replacedBaseRows;
+    private boolean merging;
+    // Rows upserted after the running merge took its copy of the delta
+    private final Set<Long> upsertedDuringMerge = new HashSet<>();
+    // Bumped by rebuild, so a merge that started before it is discarded
+    private long generation;
+
+    private volatile RepositorySegments segments;
+
+    @Autowired
+    public RepositoryReadIndex(JdbcTemplate jdbcTemplate,
+                               @Value("${repositories.read-index.enabled:false}") boolean enabled,
+                               @Value("${repositories.read-index.merge-threshold:8192}") int mergeThreshold) {
+        this(jdbcTemplate, enabled, mergeThreshold, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "repository-read-index-merge");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    RepositoryReadIndex(JdbcTemplate jdbcTemplate, boolean enabled, int mergeThreshold, Executor mergeExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.mergeThreshold = Math.max(1, mergeThreshold);
+        this.mergeExecutor = mergeExecutor;
+    }
+
+    public boolean isReady() {
+        return segments != null;
+    }
+
+    public int size() {
+        RepositorySegments current = segments;
+        return current != null ? current.size() : 0;
+    }
+
+    int deltaSize() {
+        RepositorySegments current = segments;
+        return current != null ? current.deltaSize() : 0;
+    }
+
+    /**
+     * Loads the whole table. Upserts committed while this runs wait for it and are
+     * applied afterwards, which is harmless for rows the load already saw. Not read-only,
+     * so it reads the primary: rows a lagging replica had not seen would never be added later.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        generation++;
+        try {
+            List<Repository> rows = loadRepositories();
+            Map<Long, Integer> slots = new HashMap<>();
+            base = RepositoryColumns.empty().withUpserts(rows, slots);
+            baseSlots = slots;
+            resetDelta(List.of());
+            logger.info("Built repository read index with {} rows in {} ms",
+                    rows.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            clear();
+            logger.error("Could not build repository read index, reads will use the database", e);
+        }
+    }
+
+    @Override
+    public synchronized void onRepositoriesUpserted(List<Repository> repositories) {
+        if (segments == null || repositories.isEmpty()) {
+            // Not built yet: the initial load will read these rows from the table
+            return;
+        }
+        Map<Long, Repository> uniqueRepositories = new LinkedHashMap<>();
+        for (Repository repository : repositories) {
+            uniqueRepositories.put(repository.getRepositoryId(), repository);
+        }
+        try {
+            for (Long id : uniqueRepositories.keySet()) {
+                if (!deltaSlots.containsKey(id) && baseSlots.containsKey(id)) {
+                    replacedBaseRows++;
+                }
+            }
+            delta = delta.withUpserts(uniqueRepositories.values(), deltaSlots);
+            if (merging) {
+                upsertedDuringMerge.addAll(uniqueRepositories.keySet());
+            }
+            publish();
+        } catch (RuntimeException e) {
+            // A partially applied change must never be served
+            clear();
+            logger.error("Could not apply upserts to repository read index, disabling it until rebuilt", e);
+            return;
+        }
+        if (delta.size() >= mergeThreshold && !merging) {
+            startMerge();
+        }
+    }
+
+    @PreDestroy
+    void stopMerging() {
+        if (mergeExecutor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Same contract as {@code RepositoryRepository.findPage}, answered from memory.
+     */
+    public List<RepositoryDto> findPage(String language, Integer minStars, String sort,
+                                        RepositoryCursor after, int limit) {
+        RepositorySegments current = segments;
+        if (current == null) {
+            throw new IllegalStateException("Repository read index is not ready");
+        }
+        return current.page(Repository.normalizeLanguage(language), minStars,
+                RepositoryColumns.SortKey.of(sort), after, limit);
+    }
+
+    /**
+     * Merges the current delta into a copy of the base off the caller's thread. Rows
+     * upserted while it runs stay in the delta and are merged the next time.
+     */
+    private void startMerge() {
+        merging = true;
+        long mergeGeneration = generation;
+        RepositoryColumns mergeBase = base;
+        RepositoryColumns mergeDelta = delta;
+        // Never changed in place once published, so the copy can be taken on the merge thread
+        Map<Long, Integer> currentSlots = baseSlots;
+        try {
+            mergeExecutor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    Map<Long, Integer> mergeSlots = new HashMap<>(currentSlots);
+                    RepositoryColumns mergedBase = mergeBase.withUpserts(mergeDelta.rows(), mergeSlots);
+                    completeMerge(mergeGeneration, mergedBase, mergeSlots);
+                    logger.debug("Merged {} delta rows into the repository read index in {} ms",
+                            mergeDelta.size(), (System.nanoTime() - start) / 1_000_000);
+                } catch (RuntimeException e) {
+                    // The base and delta still answer correctly; the next upsert retries
+                    logger.error("Could not merge the repository read index delta", e);
+                    mergeFailed(mergeGeneration);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            merging = false;
+            upsertedDuringMerge.clear();
+        }
+    }
+
+    private synchronized void completeMerge(long mergeGeneration, RepositoryColumns mergedBase,
+                                            Map<Long, Integer> mergedSlots) {
+        if (mergeGeneration != generation) {
+            return;
+        }
+        List<Repository> newer = new ArrayList<>(upsertedDuringMerge.size());
+        for (Long id : upsertedDuringMerge) {
+            newer.add(delta.row(deltaSlots.get(id)));
+        }
+        merging = false;
+        upsertedDuringMerge.clear();
+        base = mergedBase;
+        baseSlots = mergedSlots;
+        resetDelta(newer);
+        if (delta.size() >= mergeThreshold) {
+            startMerge();
+        }
+    }
+
+    private synchronized void mergeFailed(long mergeGeneration) {
+        if (mergeGeneration == generation) {
+            merging = false;
+            upsertedDuringMerge.clear();
+        }
+    }
+
+    private void resetDelta(List<Repository> rows) {
+        deltaSlots.clear();
+        replacedBaseRows = 0;
+        for (Repository repository : rows) {
+            if (baseSlots.containsKey(repository.getRepositoryId())) {
+                replacedBaseRows++;
+            }
+        }
+        delta = RepositoryColumns.empty().withUpserts(rows, deltaSlots);
+        publish();
+    }
+
+    private void publish() {
+        long[] deltaIds = new long[deltaSlots.size()];
+        int i = 0;
+        for (Long id : deltaSlots.keySet()) {
+            deltaIds[i++] = id;
+        }
+        segments = new RepositorySegments(base, delta, deltaIds, replacedBaseRows);
+    }
+
+    private void clear() {
+        generation++;
+        merging = false;
+        segments = null;
+        base = null;
+        delta = null;
+        baseSlots = new HashMap<>();
+        deltaSlots.clear();
+        upsertedDuringMerge.clear();
+        replacedBaseRows = 0;
+    }
+
+    private List<Repository> loadRepositories() {
+        List<Repository> rows = new ArrayList<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOAD_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(LOAD_FETCH_SIZE);
+            return statement;
+        }, resultSet -> {
+            Timestamp lastUpdated = resultSet.getTimestamp("last_updated_date");
+            rows.add(new Repository(resultSet.getLong("repository_id"), resultSet.getString("name"),
+                    resultSet.getString("description"), resultSet.getString("owner_name"),
+                    resultSet.getString("programming_language"), resultSet.getInt("stars_count"),
+                    resultSet.getInt("forks_count"), lastUpdated != null ? lastUpdated.toLocalDateTime() : null));
+        });
+        return rows;
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.repositorysearcher.index;
+
+import com.github.repositorysearcher.dto.RepositoryCursor;
+import com.github.repositorysearcher.dto.RepositoryDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * What the read index serves from: a large base segment, and a small delta segment
+ * holding the rows upserted since the base was built. A delta row replaces the base
+ * row with the same id, so an upsert only copies the delta. Immutable.
+ */
+final class RepositorySegments {
+
+    private final RepositoryColumns base;
+    private final RepositoryColumns delta;
+    // Ids of the delta rows, sorted, to skip the base rows they replace
+    private final long[] deltaIds;
+    private final int size;
+
+    RepositorySegments(RepositoryColumns base, RepositoryColumns delta, long[] deltaIds, int replacedBaseRows) {
+        this.base = base;
+        this.delta = delta;
+        this.deltaIds = deltaIds.clone();
+        Arrays.sort(this.deltaIds);
+        this.size = base.size() + delta.size() - replacedBaseRows;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int deltaSize() {
+        return delta.size();
+    }
+
+    /**
+     * Same rows and order as {@code RepositoryRepository.findPage} for the same arguments.
+     */
+    List<RepositoryDto> page(String languageKey, Integer minStars, RepositoryColumns.SortKey sortKey,
+                             RepositoryCursor after, int limit) {
+        if (delta.size() == 0) {
+            return base.page(languageKey, minStars, sortKey, after, limit);
+        }
+        RepositoryColumns.Scan fromBase = base.scan(languageKey, minStars, sortKey, after);
+        RepositoryColumns.Scan fromDelta = delta.scan(languageKey, minStars, sortKey, after);
+        boolean hasBase = nextInBase(fromBase);
+        boolean hasDelta = fromDelta.advance();
+
+        List<RepositoryDto> page = new ArrayList<>(Math.min(limit, size));
+        while (page.size() < limit && (hasBase || hasDelta)) {
+            if (hasBase && (!hasDelta || comesFirst(fromBase, fromDelta))) {
+                page.add(fromBase.dto());
+                hasBase = nextInBase(fromBase);
+            } else {
+                page.add(fromDelta.dto());
+                hasDelta = fromDelta.advance();
+            }
+        }
+        return page;
+    }
+
+    private boolean nextInBase(RepositoryColumns.Scan scan) {
+        while (scan.advance()) {
+            if (Arrays.binarySearch(deltaIds, scan.id()) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Higher sort value first, then higher id; ids are unique across the two scans
+    private static boolean comesFirst(RepositoryColumns.Scan a, RepositoryColumns.Scan b) {
+        int bySortValue = Long.compare(a.sortValue(), b.sortValue());
+        return bySortValue != 0 ? bySortValue > 0 : a.id() > b.id();
+    }
+}
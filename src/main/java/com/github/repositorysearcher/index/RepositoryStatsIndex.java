@@ -0,0 +1,220 @@
+package com.github.repositorysearcher.index;
+
+import com.github.repositorysearcher.dto.LanguageStats;
+import com.github.repositorysearcher.dto.RepositoryStats;
+import com.github.repositorysearcher.entity.Repository;
+import com.github.repositorysearcher.service.RepositoryChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Per-language star aggregates over the repositories table: counts, star totals,
+ * a {@link StarsSketch} for percentiles and a star ranking for the top repositories.
+ * Built at startup and adjusted from committed upserts by removing each row's
+ * previous contribution and adding the new one, so stats requests never read the table.
+ */
+@Component
+public class RepositoryStatsIndex implements RepositoryChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryStatsIndex.class);
+
+    private static final String LOAD_SQL =
+            "SELECT repository_id, name, owner_name, programming_language, stars_count FROM repositories";
+    private static final int LOAD_FETCH_SIZE = 1000;
+    private static final double SKETCH_ACCURACY = 0.01;
+
+    private static final Comparator<Entry> BY_STARS_DESC = Comparator.comparingInt(Entry::stars).reversed()
+            .thenComparingLong(Entry::repositoryId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    // Repository id -> its current contribution; only touched while holding the lock
+    private final Map<Long, Entry> entries = new HashMap<>();
+    // Language key (null for repositories without a language) -> aggregate
+    private final Map<String, LanguageAggregate> aggregates = new HashMap<>();
+    private volatile boolean ready;
+
+    public RepositoryStatsIndex(JdbcTemplate jdbcTemplate,
+                                @Value("${repositories.stats.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Recomputes every aggregate from the table. Runs at startup and can be called
+     * again to recover from drift; upserts committed meanwhile are applied afterwards.
+     * Reads the primary, since a replica's lag would leave rows out for good.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        ready = false;
+        entries.clear();
+        aggregates.clear();
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(LOAD_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(LOAD_FETCH_SIZE);
+                return statement;
+            }, (RowCallbackHandler) resultSet -> apply(new Entry(resultSet.getLong("repository_id"),
+                    resultSet.getString("name"), resultSet.getString("owner_name"),
+                    resultSet.getString("programming_language"), resultSet.getInt("stars_count"))));
+            ready = true;
+            logger.info("Built repository stats for {} repositories in {} languages in {} ms",
+                    entries.size(), aggregates.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            entries.clear();
+            aggregates.clear();
+            logger.error("Could not build repository stats, they are unavailable until rebuilt", e);
+        }
+    }
+
+    @Override
+    public synchronized void onRepositoriesUpserted(List<Repository> repositories) {
+        if (!ready) {
+            // Not built yet: the initial load will read these rows from the table
+            return;
+        }
+        try {
+            // Applied in order, so a repeated id ends with its last version
+            for (Repository repository : repositories) {
+                apply(Entry.of(repository));
+            }
+        } catch (RuntimeException e) {
+            // Partially applied aggregates must never be served
+            ready = false;
+            entries.clear();
+            aggregates.clear();
+            logger.error("Could not apply upserts to repository stats, disabling them until rebuilt", e);
+        }
+    }
+
+    /**
+     * Stats per language, most repositories first, plus the totals over all languages.
+     * Costs one pass over the buckets and top entries of each language, independent of table size.
+     */
+    public synchronized RepositoryStats snapshot(int topN) {
+        if (!ready) {
+            throw new IllegalStateException("Repository stats are not ready");
+        }
+        List<LanguageStats> languages = new ArrayList<>(aggregates.size());
+        StarsSketch allStars = new StarsSketch(SKETCH_ACCURACY);
+        List<Entry> topCandidates = new ArrayList<>();
+        long totalStars = 0;
+        for (LanguageAggregate aggregate : aggregates.values()) {
+            List<Entry> top = aggregate.top(topN);
+            languages.add(toStats(aggregate.language, aggregate.repositories, aggregate.totalStars,
+                    aggregate.stars, top));
+            // The overall top N is among the top N of each language
+            topCandidates.addAll(top);
+            allStars.merge(aggregate.stars);
+            totalStars += aggregate.totalStars;
+        }
+        languages.sort(Comparator.comparingLong(LanguageStats::getRepositories).reversed()
+                .thenComparing(LanguageStats::getLanguage, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+        topCandidates.sort(BY_STARS_DESC);
+        List<Entry> allTop = topCandidates.subList(0, Math.min(topN, topCandidates.size()));
+        return new RepositoryStats(toStats(null, entries.size(), totalStars, allStars, allTop), languages);
+    }
+
+    private void apply(Entry entry) {
+        Entry previous = entries.put(entry.repositoryId(), entry);
+        if (previous != null) {
+            String previousKey = Repository.normalizeLanguage(previous.language());
+            LanguageAggregate aggregate = aggregates.get(previousKey);
+            aggregate.remove(previous);
+            if (aggregate.repositories == 0) {
+                aggregates.remove(previousKey);
+            }
+        }
+        aggregates.computeIfAbsent(Repository.normalizeLanguage(entry.language()), key -> new LanguageAggregate())
+                .add(entry);
+    }
+
+    private static LanguageStats toStats(String language, long repositories, long totalStars,
+                                         StarsSketch stars, List<Entry> top) {
+        List<LanguageStats.TopRepository> topRepositories = new ArrayList<>(top.size());
+        for (Entry entry : top) {
+            topRepositories.add(new LanguageStats.TopRepository(entry.repositoryId(), entry.name(),
+                    entry.ownerName(), entry.stars()));
+        }
+        double averageStars = repositories == 0 ? 0.0 : (double) totalStars / repositories;
+        return new LanguageStats(language, repositories, totalStars, averageStars,
+                stars.quantile(0.5), stars.quantile(0.9), stars.quantile(0.99), topRepositories);
+    }
+
+    private record Entry(long repositoryId, String name, String ownerName, String language, int stars) {
+
+        static Entry of(Repository repository) {
+            Integer stars = repository.getStarsCount();
+            return new Entry(repository.getRepositoryId(), repository.getName(), repository.getOwnerName(),
+                    repository.getProgrammingLanguage(), stars != null ? stars : 0);
+        }
+    }
+
+    private static final class LanguageAggregate {
+
+        private String language;
+        private long repositories;
+        private long totalStars;
+        private final StarsSketch stars = new StarsSketch(SKETCH_ACCURACY);
+        // Every repository of the language, by stars; the head is the top N
+        private final TreeSet<Entry> ranked = new TreeSet<>(BY_STARS_DESC);
+
+        void add(Entry entry) {
+            // Spellings of a language differ only in case and whitespace; show the latest one
+            language = entry.language() != null ? entry.language().trim() : null;
+            repositories++;
+            totalStars += entry.stars();
+            stars.add(entry.stars());
+            ranked.add(entry);
+        }
+
+        void remove(Entry entry) {
+            repositories--;
+            totalStars -= entry.stars();
+            stars.remove(entry.stars());
+            ranked.remove(entry);
+        }
+
+        List<Entry> top(int n) {
+            List<Entry> top = new ArrayList<>(Math.min(n, ranked.size()));
+            Iterator<Entry> iterator = ranked.iterator();
+            while (top.size() < n && iterator.hasNext()) {
+                top.add(iterator.next());
+            }
+            return top;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.repositorysearcher.index;
+
+import com.github.repositorysearcher.entity.Repository;
+import com.github.repositorysearcher.service.RepositoryChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Full-text search over stored repositories, answered from an in-memory
+ * {@link InvertedIndex}. Built at startup and updated from committed upserts.
+ */
+@Component
+public class RepositoryTextIndex implements RepositoryChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryTextIndex.class);
+
+    private static final String LOAD_SQL = "SELECT repository_id, name, owner_name, description FROM repositories";
+    private static final int LOAD_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final InvertedIndex index = new InvertedIndex();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+
+    public RepositoryTextIndex(JdbcTemplate jdbcTemplate,
+                               @Value("${repositories.text-index.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the whole table while holding the write lock, so upserts committed
+     * meanwhile are applied after it instead of being lost. Reads the primary, not a replica.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            index.clear();
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(LOAD_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(LOAD_FETCH_SIZE);
+                return statement;
+            }, (RowCallbackHandler) resultSet -> index.put(resultSet.getLong("repository_id"),
+                    resultSet.getString("name"), resultSet.getString("owner_name"),
+                    resultSet.getString("description")));
+            ready = true;
+            logger.info("Built repository text index with {} documents in {} ms",
+                    index.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            index.clear();
+            logger.error("Could not build repository text index, text search is unavailable", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onRepositoriesUpserted(List<Repository> repositories) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                // Not built yet: the initial load will read these rows from the table
+                return;
+            }
+            for (Repository repository : repositories) {
+                index.put(repository.getRepositoryId(), repository.getName(),
+                        repository.getOwnerName(), repository.getDescription());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<InvertedIndex.Hit> search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.search(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
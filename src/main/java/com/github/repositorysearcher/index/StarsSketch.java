@@ -0,0 +1,105 @@
+package com.github.repositorysearcher.index;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Quantile sketch over non-negative counts with a fixed relative error, in the
+ * style of DDSketch: values fall into logarithmic buckets and only bucket counts
+ * are kept. Unlike sample-based sketches it supports removing a value, and two
+ * sketches with the same accuracy merge by adding their bucket counts.
+ * Not thread-safe.
+ */
+public class StarsSketch {
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    // Bucket i holds values in (gamma^(i-1), gamma^i]; zero has its own counter
+    private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+    private long zeroCount;
+    private long count;
+
+    public StarsSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("relativeAccuracy must be between 0 and 1");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public void add(long value) {
+        adjust(value, 1);
+    }
+
+    /**
+     * Removes one occurrence of a value that was added before.
+     */
+    public void remove(long value) {
+        adjust(value, -1);
+    }
+
+    public void merge(StarsSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different accuracy");
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        other.buckets.forEach((index, bucketCount) -> buckets.merge(index, bucketCount, Long::sum));
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Value at quantile {@code q} (0 to 1), within the relative accuracy of the
+     * true value; 0 when the sketch is empty.
+     */
+    public long quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("q must be between 0 and 1");
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = zeroCount;
+        if (rank <= seen) {
+            return 0;
+        }
+        for (Map.Entry<Integer, Long> bucket : buckets.entrySet()) {
+            seen += bucket.getValue();
+            if (seen >= rank) {
+                return Math.round(2 * Math.pow(gamma, bucket.getKey()) / (gamma + 1));
+            }
+        }
+        throw new IllegalStateException("Bucket counts do not add up to " + count);
+    }
+
+    private void adjust(long value, long delta) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value must not be negative");
+        }
+        if (value == 0) {
+            zeroCount = checkedCount(zeroCount + delta);
+        } else {
+            int index = (int) Math.ceil(Math.log(value) / logGamma);
+            long bucketCount = checkedCount(buckets.getOrDefault(index, 0L) + delta);
+            if (bucketCount == 0) {
+                buckets.remove(index);
+            } else {
+                buckets.put(index, bucketCount);
+            }
+        }
+        count += delta;
+    }
+
+    private static long checkedCount(long count) {
+        if (count < 0) {
+            throw new IllegalStateException("Removed a value that was never added");
+        }
+        return count;
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.repositorysearcher.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits names and descriptions into lower-case terms. Besides punctuation,
+ * camelCase boundaries separate terms, so "SpringBoot" and "spring-boot" both
+ * yield "spring" and "boot".
+ */
+final class TextTokenizer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "that", "the", "this", "to", "with");
+
+    private TextTokenizer() {
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            boolean wordChar = Character.isLetterOrDigit(c);
+            boolean camelBoundary = wordChar && start >= 0 && Character.isUpperCase(c)
+                    && Character.isLowerCase(text.charAt(i - 1));
+            if (start >= 0 && (!wordChar || camelBoundary)) {
+                addTerm(terms, text.substring(start, i));
+                start = -1;
+            }
+            if (wordChar && start < 0) {
+                start = i;
+            }
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<String> terms, String word) {
+        String term = word.toLowerCase(Locale.ROOT);
+        if (!STOP_WORDS.contains(term)) {
+            terms.add(term);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.repositorysearcher.repository;
+
+import com.github.repositorysearcher.dto.RepositoryCursor;
+import com.github.repositorysearcher.entity.Repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the keyset page query for one combination of filters and sort.
+ * Only the predicates that are actually in use are emitted, so every
+ * combination has a fixed shape that the planner can match to an index.
+ */
+final class RepositoryPageQuery {
+
+    // Only what a RepositoryDto shows, read by position; description is the one wide column
+    static final String COLUMNS = "r.repository_id, r.name, r.description, r.owner_name, " +
+            "r.programming_language, r.stars_count, r.forks_count, r.last_updated_date";
+
+    private final String sql;
+    private final Map<String, Object> parameters;
+
+    private RepositoryPageQuery(String sql, Map<String, Object> parameters) {
+        this.sql = sql;
+        this.parameters = parameters;
+    }
+
+    static RepositoryPageQuery of(String language, Integer minStars, String sort,
+                                  RepositoryCursor after, int limit) {
+        String sortColumn = sortColumn(sort);
+        List<String> predicates = new ArrayList<>();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+
+        String languageKey = Repository.normalizeLanguage(language);
+        if (languageKey != null) {
+            predicates.add("r.language_key = :languageKey");
+            parameters.put("languageKey", languageKey);
+        }
+        if (minStars != null) {
+            // Under another sort the index in sort order is walked and filtered instead, so the
+            // planner must not trade it for a range on the stars index followed by a sort
+            predicates.add("stars_count".equals(sortColumn) ?
+                    "r.stars_count >= :minStars" : "r.stars_count + 0 >= :minStars");
+            parameters.put("minStars", minStars);
+        }
+        if (after != null) {
+            // Equivalent to (sort, id) < (:afterValue, :afterId), written so the leading
+            // sort column gets a range condition the index can seek on
+            predicates.add("r." + sortColumn + " <= :afterValue AND " +
+                    "(r." + sortColumn + " < :afterValue OR r.repository_id < :afterId)");
+            parameters.put("afterValue", "updated".equals(sort) ? after.getUpdatedValue() : after.getCountValue());
+            parameters.put("afterId", after.getRepositoryId());
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM repositories r");
+        if (!predicates.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", predicates));
+        }
+        sql.append(" ORDER BY r.").append(sortColumn).append(" DESC, r.repository_id DESC");
+        sql.append(" LIMIT :limit");
+        parameters.put("limit", limit);
+
+        return new RepositoryPageQuery(sql.toString(), parameters);
+    }
+
+    private static String sortColumn(String sort) {
+        return switch (sort) {
+            case "forks" -> "forks_count";
+            case "updated" -> "last_updated_date";
+            default -> "stars_count";
+        };
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    Map<String, Object> getParameters() {
+        return parameters;
+    }
+}
@@ -9,26 +9,12 @@ import java.util.List;
 import java.util.Optional;
 
 @org.springframework.stereotype.Repository
-public interface RepositoryRepository extends JpaRepository<Repository, Long> {
+public interface RepositoryRepository extends JpaRepository<Repository, Long>, RepositoryRepositoryCustom {
 
     Optional<Repository> findByRepositoryId(Long repositoryId);
 
     @Query(value = "SELECT * FROM repositories r WHERE " +
-            "(:language IS NULL OR LOWER(r.programming_language) = LOWER(:language)) AND " +
-            "(:minStars IS NULL OR r.stars_count >= :minStars) " +
-            "ORDER BY " +
-            "CASE WHEN :sort = 'stars' THEN r.stars_count END DESC, " +
-            "CASE WHEN :sort = 'forks' THEN r.forks_count END DESC, " +
-            "CASE WHEN :sort = 'updated' THEN r.last_updated_date END DESC", 
-            nativeQuery = true)
-    List<Repository> findRepositoriesWithFilters(
-            @Param("language") String language,
-            @Param("minStars") Integer minStars,
-            @Param("sort") String sort
-    );
-
-    @Query(value = "SELECT * FROM repositories r WHERE " +
-            "LOWER(r.programming_language) = LOWER(:language) " +
+            "r.language_key = LOWER(TRIM(:language)) " +
             "ORDER BY r.stars_count DESC", 
             nativeQuery = true)
     List<Repository> findByProgrammingLanguageIgnoreCaseOrderByStarsCountDesc(@Param("language") String language);
@@ -0,0 +1,28 @@
+package com.github.repositorysearcher.repository;
+
+import com.github.repositorysearcher.dto.RepositoryCursor;
+import com.github.repositorysearcher.dto.RepositoryDto;
+import com.github.repositorysearcher.entity.Repository;
+
+import java.util.List;
+
+public interface RepositoryRepositoryCustom {
+
+    /**
+     * Inserts or updates the given repositories using batched JDBC statements,
+     * so the number of round trips does not grow with the number of rows.
+     */
+    UpsertResult upsertAll(List<Repository> repositories);
+
+    /**
+     * Returns at most {@code limit} repositories ordered by the sort key and id,
+     * starting after {@code after} when a cursor is given. Rows are read straight
+     * into DTOs, without loading entities into the persistence context.
+     */
+    List<RepositoryDto> findPage(String language, Integer minStars, String sort, RepositoryCursor after, int limit);
+
+    /**
+     * Fills {@code language_key} for rows written before the column existed.
+     */
+    int backfillLanguageKeys();
+}
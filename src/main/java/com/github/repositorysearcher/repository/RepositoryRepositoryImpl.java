@@ -0,0 +1,231 @@
+package com.github.repositorysearcher.repository;
+
+import com.github.repositorysearcher.dto.RepositoryCursor;
+import com.github.repositorysearcher.dto.RepositoryDto;
+import com.github.repositorysearcher.entity.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RepositoryRepositoryImpl implements RepositoryRepositoryCustom {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryRepositoryImpl.class);
+
+    private static final String SELECT_EXISTING_HASHES_SQL =
+            "SELECT repository_id, content_hash FROM repositories WHERE repository_id IN (:ids)";
+
+    private static final String POSTGRES_UPSERT_SQL =
+            "INSERT INTO repositories (repository_id, name, description, owner_name, programming_language, " +
+            "language_key, stars_count, forks_count, last_updated_date, content_hash, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (repository_id) DO UPDATE SET " +
+            "name = EXCLUDED.name, " +
+            "description = EXCLUDED.description, " +
+            "owner_name = EXCLUDED.owner_name, " +
+            "programming_language = EXCLUDED.programming_language, " +
+            "language_key = EXCLUDED.language_key, " +
+            "stars_count = EXCLUDED.stars_count, " +
+            "forks_count = EXCLUDED.forks_count, " +
+            "last_updated_date = EXCLUDED.last_updated_date, " +
+            "content_hash = EXCLUDED.content_hash, " +
+            "updated_at = EXCLUDED.updated_at " +
+            // Guards against a concurrent writer having stored the same content since the hash lookup
+            "WHERE repositories.content_hash IS DISTINCT FROM EXCLUDED.content_hash";
+
+    private static final String MERGE_UPSERT_SQL =
+            "MERGE INTO repositories t USING (SELECT " +
+            "CAST(? AS BIGINT) AS repository_id, " +
+            "CAST(? AS VARCHAR(255)) AS name, " +
+            "CAST(? AS VARCHAR) AS description, " +
+            "CAST(? AS VARCHAR(255)) AS owner_name, " +
+            "CAST(? AS VARCHAR(255)) AS programming_language, " +
+            "CAST(? AS VARCHAR(255)) AS language_key, " +
+            "CAST(? AS INTEGER) AS stars_count, " +
+            "CAST(? AS INTEGER) AS forks_count, " +
+            "CAST(? AS TIMESTAMP) AS last_updated_date, " +
+            "CAST(? AS BIGINT) AS content_hash, " +
+            "CAST(? AS TIMESTAMP) AS created_at, " +
+            "CAST(? AS TIMESTAMP) AS updated_at) s " +
+            "ON t.repository_id = s.repository_id " +
+            "WHEN MATCHED AND t.content_hash IS DISTINCT FROM s.content_hash THEN UPDATE SET " +
+            "name = s.name, " +
+            "description = s.description, " +
+            "owner_name = s.owner_name, " +
+            "programming_language = s.programming_language, " +
+            "language_key = s.language_key, " +
+            "stars_count = s.stars_count, " +
+            "forks_count = s.forks_count, " +
+            "last_updated_date = s.last_updated_date, " +
+            "content_hash = s.content_hash, " +
+            "updated_at = s.updated_at " +
+            "WHEN NOT MATCHED THEN INSERT (repository_id, name, description, owner_name, programming_language, " +
+            "language_key, stars_count, forks_count, last_updated_date, content_hash, created_at, updated_at) " +
+            "VALUES (s.repository_id, s.name, s.description, s.owner_name, s.programming_language, " +
+            "s.language_key, s.stars_count, s.forks_count, s.last_updated_date, s.content_hash, " +
+            "s.created_at, s.updated_at)";
+
+    private static final String BACKFILL_LANGUAGE_KEYS_SQL =
+            "UPDATE repositories SET language_key = LOWER(TRIM(programming_language)) " +
+            "WHERE language_key IS NULL AND programming_language IS NOT NULL " +
+            "AND TRIM(programming_language) <> ''";
+
+    // Maps the columns of RepositoryPageQuery.COLUMNS by position
+    private static final RowMapper<RepositoryDto> PAGE_ROW_MAPPER = (resultSet, rowNum) -> {
+        Timestamp lastUpdated = resultSet.getTimestamp(8);
+        return new RepositoryDto(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+                resultSet.getString(4), resultSet.getString(5), resultSet.getInt(6), resultSet.getInt(7),
+                lastUpdated != null ? lastUpdated.toLocalDateTime() : null);
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    // Forward-only, read-only statements that stream rows in chunks of the fetch size
+    private final NamedParameterJdbcTemplate readJdbcTemplate;
+    private final int batchSize;
+
+    private volatile String upsertSql;
+
+    public RepositoryRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                    @Value("${repositories.persistence.batch-size:500}") int batchSize,
+                                    @Value("${repositories.persistence.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        JdbcTemplate readTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        readTemplate.setExceptionTranslator(jdbcTemplate.getExceptionTranslator());
+        // PostgreSQL only honours the fetch size inside a transaction, as page reads run
+        readTemplate.setFetchSize(fetchSize);
+        this.readJdbcTemplate = new NamedParameterJdbcTemplate(readTemplate);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public UpsertResult upsertAll(List<Repository> repositories) {
+        if (repositories == null || repositories.isEmpty()) {
+            return UpsertResult.empty();
+        }
+
+        // A single statement must not touch the same row twice (Postgres rejects it
+        // once the driver rewrites the batch), so keep the last version of each id.
+        Map<Long, Repository> uniqueRepositories = new LinkedHashMap<>();
+        for (Repository repository : repositories) {
+            uniqueRepositories.put(repository.getRepositoryId(), repository);
+        }
+        List<Repository> rows = new ArrayList<>(uniqueRepositories.values());
+
+        int inserted = 0;
+        int updated = 0;
+        int unchanged = 0;
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<Repository> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            UpsertResult chunkResult = upsertChunk(chunk);
+            inserted += chunkResult.getInserted();
+            updated += chunkResult.getUpdated();
+            unchanged += chunkResult.getUnchanged();
+        }
+
+        logger.debug("Bulk upserted {} repositories ({} inserted, {} updated, {} unchanged)",
+                rows.size(), inserted, updated, unchanged);
+        return new UpsertResult(inserted, updated, unchanged);
+    }
+
+    private UpsertResult upsertChunk(List<Repository> chunk) {
+        List<Long> ids = chunk.stream().map(Repository::getRepositoryId).toList();
+        Map<Long, Long> storedHashes = new HashMap<>();
+        namedParameterJdbcTemplate.query(SELECT_EXISTING_HASHES_SQL, new MapSqlParameterSource("ids", ids),
+                resultSet -> {
+                    long hash = resultSet.getLong("content_hash");
+                    storedHashes.put(resultSet.getLong("repository_id"), resultSet.wasNull() ? null : hash);
+                });
+
+        // Rows stored before hashes existed have no hash and are rewritten once
+        List<Repository> changed = new ArrayList<>(chunk.size());
+        List<Long> hashes = new ArrayList<>(chunk.size());
+        int updated = 0;
+        for (Repository repository : chunk) {
+            long hash = repository.getContentHash() != null ?
+                    repository.getContentHash() : repository.computeContentHash();
+            Long repositoryId = repository.getRepositoryId();
+            if (storedHashes.containsKey(repositoryId)) {
+                if (Long.valueOf(hash).equals(storedHashes.get(repositoryId))) {
+                    continue;
+                }
+                updated++;
+            }
+            changed.add(repository);
+            hashes.add(hash);
+        }
+        int unchanged = chunk.size() - changed.size();
+        if (changed.isEmpty()) {
+            return new UpsertResult(0, 0, unchanged);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(resolveUpsertSql(), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Repository repository = changed.get(i);
+                ps.setLong(1, repository.getRepositoryId());
+                ps.setString(2, repository.getName());
+                ps.setString(3, repository.getDescription());
+                ps.setString(4, repository.getOwnerName());
+                ps.setString(5, repository.getProgrammingLanguage());
+                ps.setString(6, Repository.normalizeLanguage(repository.getProgrammingLanguage()));
+                ps.setInt(7, repository.getStarsCount());
+                ps.setInt(8, repository.getForksCount());
+                ps.setTimestamp(9, repository.getLastUpdatedDate() != null ?
+                        Timestamp.valueOf(repository.getLastUpdatedDate()) : null);
+                ps.setLong(10, hashes.get(i));
+                ps.setTimestamp(11, now);
+                ps.setTimestamp(12, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return changed.size();
+            }
+        });
+
+        return new UpsertResult(changed.size() - updated, updated, unchanged);
+    }
+
+    @Override
+    public List<RepositoryDto> findPage(String language, Integer minStars, String sort,
+                                        RepositoryCursor after, int limit) {
+        RepositoryPageQuery pageQuery = RepositoryPageQuery.of(language, minStars, sort, after, limit);
+        return readJdbcTemplate.query(pageQuery.getSql(), new MapSqlParameterSource(pageQuery.getParameters()),
+                PAGE_ROW_MAPPER);
+    }
+
+    @Override
+    public int backfillLanguageKeys() {
+        return jdbcTemplate.update(BACKFILL_LANGUAGE_KEYS_SQL);
+    }
+
+    private String resolveUpsertSql() {
+        if (upsertSql == null) {
+            String productName = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            upsertSql = productName != null && productName.toLowerCase().contains("postgresql") ?
+                    POSTGRES_UPSERT_SQL : MERGE_UPSERT_SQL;
+            logger.debug("Using {} upsert statement for database {}",
+                    upsertSql == POSTGRES_UPSERT_SQL ? "ON CONFLICT" : "MERGE", productName);
+        }
+        return upsertSql;
+    }
+}
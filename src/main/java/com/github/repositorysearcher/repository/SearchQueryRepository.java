@@ -0,0 +1,50 @@
+package com.github.repositorysearcher.repository;
+
+import com.github.repositorysearcher.entity.SearchQuery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@org.springframework.stereotype.Repository
+public interface SearchQueryRepository extends JpaRepository<SearchQuery, Long> {
+
+    Optional<SearchQuery> findByQueryKey(String queryKey);
+
+    /**
+     * Searches not synced since {@code syncedBefore} that a client still ran after
+     * {@code requestedAfter}, longest unsynced first.
+     */
+    List<SearchQuery> findByLastSyncedAtBeforeAndLastRequestedAtAfterOrderByLastSyncedAtAsc(
+            LocalDateTime syncedBefore, LocalDateTime requestedAfter, Pageable pageable);
+
+    List<SearchQuery> findAllByOrderByLastSyncedAtAsc();
+
+    /**
+     * Records a finished re-sync in the sync columns only, so a search recorded meanwhile
+     * keeps its request time and snapshot. The last sync never moves backwards.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE SearchQuery q SET " +
+            "q.lastSyncedAt = CASE WHEN q.lastSyncedAt < :syncedAt THEN :syncedAt ELSE q.lastSyncedAt END, " +
+            "q.syncCount = q.syncCount + 1, q.lastSyncInserted = :inserted, q.lastSyncUpdated = :updated, " +
+            "q.lastSyncUnchanged = :unchanged, q.totalSyncedRows = q.totalSyncedRows + :written, " +
+            "q.lastSyncDurationMs = :durationMs, q.lastSyncError = :error " +
+            "WHERE q.id = :id")
+    int recordSync(@Param("id") Long id, @Param("syncedAt") LocalDateTime syncedAt,
+                   @Param("inserted") int inserted, @Param("updated") int updated,
+                   @Param("unchanged") int unchanged, @Param("written") long written,
+                   @Param("durationMs") long durationMs, @Param("error") String error);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE SearchQuery q SET q.lastSyncDurationMs = :durationMs, q.lastSyncError = :error WHERE q.id = :id")
+    int recordSyncFailure(@Param("id") Long id, @Param("durationMs") long durationMs, @Param("error") String error);
+}
@@ -0,0 +1,33 @@
+package com.github.repositorysearcher.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class UpsertResult {
+
+    private int inserted;
+    private int updated;
+    // Existing rows whose content hash matched, so they were not written
+    private int unchanged;
+
+    public UpsertResult(int inserted, int updated) {
+        this(inserted, updated, 0);
+    }
+
+    public static UpsertResult empty() {
+        return new UpsertResult(0, 0, 0);
+    }
+
+    /**
+     * Rows that were inserted or updated.
+     */
+    public int getWritten() {
+        return inserted + updated;
+    }
+
+    public int getTotal() {
+        return inserted + updated + unchanged;
+    }
+}
@@ -1,90 +1,334 @@
 package com.github.repositorysearcher.service;
 
-import com.github.repositorysearcher.dto.GitHubApiResponse;
 import com.github.repositorysearcher.dto.GitHubSearchRequest;
+import com.github.repositorysearcher.dto.GitHubSearchResult;
+import com.github.repositorysearcher.entity.Repository;
 import com.github.repositorysearcher.exception.GitHubApiException;
+import com.github.repositorysearcher.exception.GitHubUnavailableException;
+import com.github.repositorysearcher.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class GitHubApiService {
 
     private static final Logger logger = LoggerFactory.getLogger(GitHubApiService.class);
 
+    // GitHub's search API never returns more than 1000 results for one query
+    private static final int SEARCH_RESULT_LIMIT = 1000;
+    private static final int DEFAULT_PER_PAGE = 30;
+    private static final int DEEP_FETCH_PER_PAGE = 100;
+    // A page of 100 full repository objects is well under a megabyte
+    private static final int MAX_RESPONSE_BYTES = 16 * 1024 * 1024;
+
     private final WebClient webClient;
-    private final String baseUrl;
     private final Duration timeout;
+    private final GitHubResponseCache responseCache;
+    private final int deepFetchMaxResults;
+    private final int deepFetchConcurrency;
+    private final GitHubRateLimiter rateLimiter;
+    private final GitHubResilience resilience;
+    private final GitHubSearchResponseParser responseParser = new GitHubSearchResponseParser();
+    private final MeterRegistry meterRegistry;
+    private final Timer decodeTimer;
+    private final Map<UpstreamTags, Timer> upstreamTimers = new ConcurrentHashMap<>();
+    private final DistributionSummary responseBytes;
+    private final DistributionSummary searchResults;
 
-    public GitHubApiService(@Value("${github.api.base-url}") String baseUrl,
-                           @Value("${github.api.timeout:30000}") long timeoutMs) {
-        this.baseUrl = baseUrl;
+    public GitHubApiService(@Qualifier("gitHubWebClient") WebClient webClient,
+                           @Value("${github.api.timeout:30000}") long timeoutMs,
+                           @Value("${github.api.cache.ttl:60000}") long cacheTtlMs,
+                           @Value("${github.api.cache.max-entries:500}") int cacheMaxEntries,
+                           @Value("${github.api.deep-fetch.max-results:1000}") int deepFetchMaxResults,
+                           @Value("${github.api.deep-fetch.concurrency:5}") int deepFetchConcurrency,
+                           GitHubRateLimiter rateLimiter, GitHubResilience resilience, MeterRegistry meterRegistry) {
+        this.webClient = webClient;
         this.timeout = Duration.ofMillis(timeoutMs);
-        this.webClient = WebClient.builder()
-                .baseUrl(baseUrl)
-                .build();
+        this.responseCache = new GitHubResponseCache(Duration.ofMillis(cacheTtlMs), cacheMaxEntries);
+        this.deepFetchMaxResults = Math.min(deepFetchMaxResults, SEARCH_RESULT_LIMIT);
+        this.deepFetchConcurrency = Math.max(1, deepFetchConcurrency);
+        this.rateLimiter = rateLimiter;
+        this.resilience = resilience;
+        this.meterRegistry = meterRegistry;
+        this.decodeTimer = Timer.builder("github.api.decode")
+                .description("Time to decode one GitHub search response page into entities")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.responseBytes = DistributionSummary.builder("github.api.response.size")
+                .description("Size of GitHub search response bodies")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.searchResults = DistributionSummary.builder("github.search.results")
+                .description("Repositories returned by one search, after merging all pages")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
-    public GitHubApiResponse searchRepositories(GitHubSearchRequest request) {
-        logger.info("Searching GitHub repositories with request: {}", request);
+    public Mono<GitHubSearchResult> searchRepositories(GitHubSearchRequest request) {
+        return Mono.defer(() -> {
+                    logger.info("Searching GitHub repositories with request: {}", request);
 
-        try {
-            String queryString = buildQueryString(request);
+                    // The normalized request only keys the cache; GitHub gets the query as written
+                    GitHubSearchRequest normalizedRequest = request.normalized();
+                    int maxResults = resolveMaxResults(normalizedRequest);
+                    return maxResults > DEFAULT_PER_PAGE ?
+                            fetchAllPages(request, normalizedRequest, maxResults) :
+                            fetchPage(request, normalizedRequest, 1, DEFAULT_PER_PAGE);
+                })
+                .switchIfEmpty(Mono.error(() -> new GitHubApiException("No response received from GitHub API")))
+                .doOnNext(response -> {
+                    logger.info("Successfully fetched {} repositories from GitHub API", response.getRepositories().size());
+                    searchResults.record(response.getRepositories().size());
+                })
+                .onErrorMap(e -> !(e instanceof GitHubApiException), this::toGitHubApiException);
+    }
+
+    public GitHubResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    private GitHubApiException toGitHubApiException(Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
+            logger.error("GitHub API request failed with status: {} and body: {}", 
+                        responseException.getStatusCode(), responseException.getResponseBodyAsString());
+            return new GitHubApiException("GitHub API request failed: " + e.getMessage(), e);
+        }
+        logger.error("Unexpected error while calling GitHub API", e);
+        return new GitHubApiException("Failed to search repositories: " + e.getMessage(), e);
+    }
+
+    private int resolveMaxResults(GitHubSearchRequest request) {
+        if (request.getMaxResults() == null) {
+            return DEFAULT_PER_PAGE;
+        }
+        return Math.max(1, Math.min(request.getMaxResults(), deepFetchMaxResults));
+    }
 
-            GitHubApiResponse response = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/search/repositories")
-                            .queryParam("q", queryString)
-                            .queryParam("sort", request.getSort())
-                            .queryParam("order", "desc")
-                            .queryParam("per_page", 30)
-                            .build())
-                    .retrieve()
-                    .onStatus(HttpStatus.FORBIDDEN::equals, clientResponse -> {
-                        logger.warn("GitHub API rate limit exceeded");
-                        return Mono.error(new GitHubApiException("GitHub API rate limit exceeded. Please try again later."));
-                    })
-                    .onStatus(HttpStatus.UNPROCESSABLE_ENTITY::equals, clientResponse -> {
-                        logger.warn("Invalid GitHub API request");
-                        return Mono.error(new GitHubApiException("Invalid search query. Please check your request parameters."));
-                    })
-                    .onStatus(status -> status.is5xxServerError(), clientResponse -> {
-                        logger.error("GitHub API server error");
-                        return Mono.error(new GitHubApiException("GitHub API is currently unavailable. Please try again later."));
-                    })
-                    .bodyToMono(GitHubApiResponse.class)
-                    .timeout(timeout)
-                    .block();
-
-            if (response == null) {
-                throw new GitHubApiException("No response received from GitHub API");
+    /**
+     * Fetches the first page to learn the total count, then the remaining pages
+     * concurrently. Pages are merged in order and de-duplicated by id, because
+     * results can shift between pages while they are being read.
+     */
+    private Mono<GitHubSearchResult> fetchAllPages(GitHubSearchRequest request, GitHubSearchRequest normalizedRequest,
+                                                   int maxResults) {
+        return fetchPage(request, normalizedRequest, 1, DEEP_FETCH_PER_PAGE).flatMap(firstPage -> {
+            int totalCount = firstPage.getTotalCount() != null ? firstPage.getTotalCount() : 0;
+            int pageCount = (Math.min(maxResults, totalCount) + DEEP_FETCH_PER_PAGE - 1) / DEEP_FETCH_PER_PAGE;
+            if (pageCount <= 1) {
+                return Mono.just(mergePages(List.of(firstPage), maxResults));
             }
 
-            logger.info("Successfully fetched {} repositories from GitHub API", 
-                       response.getItems() != null ? response.getItems().size() : 0);
-            return response;
+            logger.debug("Deep fetch of {} pages for {}", pageCount, request);
+            return Flux.range(2, pageCount - 1)
+                    .flatMapSequential(page -> fetchPage(request, normalizedRequest, page, DEEP_FETCH_PER_PAGE),
+                            deepFetchConcurrency)
+                    .startWith(firstPage)
+                    .collectList()
+                    .map(pages -> mergePages(pages, maxResults));
+        });
+    }
 
-        } catch (WebClientResponseException e) {
-            logger.error("GitHub API request failed with status: {} and body: {}", 
-                        e.getStatusCode(), e.getResponseBodyAsString());
-            throw new GitHubApiException("GitHub API request failed: " + e.getMessage());
-        } catch (Exception e) {
-            logger.error("Unexpected error while calling GitHub API", e);
-            throw new GitHubApiException("Failed to search repositories: " + e.getMessage());
+    private GitHubSearchResult mergePages(List<GitHubSearchResult> pages, int maxResults) {
+        Map<Long, Repository> uniqueRepositories = new LinkedHashMap<>();
+        boolean incomplete = false;
+        for (GitHubSearchResult page : pages) {
+            incomplete |= Boolean.TRUE.equals(page.getIncompleteResults());
+            for (Repository repository : page.getRepositories()) {
+                if (uniqueRepositories.size() >= maxResults) {
+                    break;
+                }
+                uniqueRepositories.putIfAbsent(repository.getRepositoryId(), repository);
+            }
         }
+
+        return new GitHubSearchResult(pages.get(0).getTotalCount(), incomplete,
+                new ArrayList<>(uniqueRepositories.values()));
     }
 
-    private String buildQueryString(GitHubSearchRequest request) {
-        StringBuilder queryBuilder = new StringBuilder(request.getQuery());
+    private Mono<GitHubSearchResult> fetchPage(GitHubSearchRequest request, GitHubSearchRequest normalizedRequest,
+                                               int page, int perPage) {
+        return Mono.defer(() -> {
+            GitHubResponseCache.Key cacheKey = GitHubResponseCache.Key.of(normalizedRequest, page, perPage);
+            GitHubResponseCache.CachedResponse cached = responseCache.get(cacheKey);
+            if (cached != null && cached.isFresh()) {
+                responseCache.recordHit();
+                logger.debug("Serving GitHub search page {} from cache for {}", page, request);
+                return Mono.just(cached.getResponse());
+            }
+            responseCache.recordMiss();
+
+            String queryString = buildQueryString(request);
+            String etag = cached != null ? cached.getEtag() : null;
+
+            // Hedged and retried attempts each wait for their own rate limit slot
+            return resilience.execute(rateLimiter.acquire(), () -> Mono.defer(() -> {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                // Stays 0 when no response arrived, e.g. on a timeout or connection failure
+                AtomicInteger status = new AtomicInteger();
+                return webClient.get()
+                        .uri(uriBuilder -> uriBuilder
+                                .path("/search/repositories")
+                                .queryParam("q", queryString)
+                                .queryParam("sort", normalizedRequest.getSort())
+                                .queryParam("order", "desc")
+                                .queryParam("per_page", perPage)
+                                .queryParam("page", page)
+                                .build())
+                        .headers(headers -> {
+                            if (etag != null) {
+                                headers.setIfNoneMatch(etag);
+                            }
+                        })
+                        .exchangeToMono(clientResponse -> {
+                            status.set(clientResponse.statusCode().value());
+                            rateLimiter.update(clientResponse.headers().asHttpHeaders());
+                            if (clientResponse.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && cached != null) {
+                                // Conditional hit: no rate limit used and nothing to parse
+                                responseCache.recordRevalidation();
+                                logger.debug("GitHub search page {} not modified for {}", page, request);
+                                return clientResponse.releaseBody()
+                                        .then(Mono.fromSupplier(() -> responseCache.refresh(cacheKey, cached).getResponse()));
+                            }
+                            if (clientResponse.statusCode().is2xxSuccessful()) {
+                                String responseEtag = clientResponse.headers().asHttpHeaders().getETag();
+                                return readSearchResult(clientResponse)
+                                        .doOnNext(body -> responseCache.put(cacheKey, body, responseEtag));
+                            }
+                            return handleErrorStatus(clientResponse);
+                        })
+                        .doFinally(signal -> sample.stop(upstreamTimer(status.get(), signal)));
+            })).timeout(timeout);
+        });
+    }
+
+    /**
+     * Upstream call latency tagged with the HTTP status and an outcome; both have only
+     * a handful of values.
+     */
+    private Timer upstreamTimer(int status, SignalType signal) {
+        String outcome;
+        if (status == 0) {
+            outcome = signal == SignalType.CANCEL ? "CANCELLED" : "IO_ERROR";
+        } else if (status == HttpStatus.NOT_MODIFIED.value()) {
+            outcome = "NOT_MODIFIED";
+        } else if (status < 300) {
+            outcome = "SUCCESS";
+        } else if (status < 500) {
+            outcome = "CLIENT_ERROR";
+        } else {
+            outcome = "SERVER_ERROR";
+        }
+        return upstreamTimers.computeIfAbsent(new UpstreamTags(status, outcome), tags ->
+                Timer.builder("github.api.requests")
+                        .description("Calls to the GitHub search API, excluding rate-limit waits")
+                        .tag("status", tags.status() == 0 ? "NONE" : String.valueOf(tags.status()))
+                        .tag("outcome", tags.outcome())
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+    }
+
+    /**
+     * Collects the raw body and walks it with a streaming parser instead of binding
+     * the full GitHub object tree and copying it into entities afterwards.
+     */
+    private Mono<GitHubSearchResult> readSearchResult(ClientResponse clientResponse) {
+        return DataBufferUtils.join(clientResponse.body(BodyExtractors.toDataBuffers()), MAX_RESPONSE_BYTES)
+                .map(this::parseSearchResult);
+    }
+
+    private GitHubSearchResult parseSearchResult(DataBuffer body) {
+        responseBytes.record(body.readableByteCount());
+        long start = System.nanoTime();
+        try (InputStream in = body.asInputStream(true)) {
+            return responseParser.parse(in);
+        } catch (IOException e) {
+            throw new GitHubApiException("Could not read GitHub search response: " + e.getMessage(), e);
+        } finally {
+            decodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private <T> Mono<T> handleErrorStatus(ClientResponse clientResponse) {
+        if (isRateLimited(clientResponse)) {
+            Duration retryAfter = retryAfter(clientResponse);
+            logger.warn("GitHub API rate limit exceeded, resets in {}s", retryAfter.toSeconds());
+            return clientResponse.releaseBody().then(Mono.error(new RateLimitExceededException(
+                    "GitHub API rate limit exceeded. Please try again later.", retryAfter)));
+        }
+        if (clientResponse.statusCode().isSameCodeAs(HttpStatus.FORBIDDEN)) {
+            logger.warn("GitHub API rate limit exceeded");
+            return clientResponse.releaseBody().then(Mono.error(
+                    new GitHubApiException("GitHub API rate limit exceeded. Please try again later.")));
+        }
+        if (clientResponse.statusCode().isSameCodeAs(HttpStatus.UNPROCESSABLE_ENTITY)) {
+            logger.warn("Invalid GitHub API request");
+            return clientResponse.releaseBody().then(Mono.error(
+                    new GitHubApiException("Invalid search query. Please check your request parameters.")));
+        }
+        if (clientResponse.statusCode().is5xxServerError()) {
+            logger.error("GitHub API server error");
+            return clientResponse.releaseBody().then(Mono.error(
+                    new GitHubUnavailableException("GitHub API is currently unavailable. Please try again later.")));
+        }
+        return clientResponse.createException().flatMap(Mono::error);
+    }
+
+    private boolean isRateLimited(ClientResponse clientResponse) {
+        if (clientResponse.statusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)) {
+            return true;
+        }
+        HttpHeaders headers = clientResponse.headers().asHttpHeaders();
+        return clientResponse.statusCode().isSameCodeAs(HttpStatus.FORBIDDEN) &&
+                ("0".equals(headers.getFirst("X-RateLimit-Remaining")) || headers.containsKey(HttpHeaders.RETRY_AFTER));
+    }
+
+    private Duration retryAfter(ClientResponse clientResponse) {
+        String retryAfter = clientResponse.headers().asHttpHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter != null) {
+            try {
+                return Duration.ofSeconds(Long.parseLong(retryAfter.trim()));
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring non-numeric Retry-After header: {}", retryAfter);
+            }
+        }
+        return rateLimiter.getTimeUntilReset();
+    }
+
+    /**
+     * The {@code q} parameter sent to GitHub: the query plus a language qualifier.
+     */
+    public static String buildQueryString(GitHubSearchRequest request) {
+        // Only trimmed: GitHub's AND, OR and NOT operators are case-sensitive
+        StringBuilder queryBuilder = new StringBuilder(request.getQuery().trim());
         
         if (request.getLanguage() != null && !request.getLanguage().trim().isEmpty()) {
             queryBuilder.append(" language:").append(request.getLanguage().trim());
@@ -97,7 +341,10 @@ public class GitHubApiService {
         Map<String, Object> params = new HashMap<>();
         params.put("sort", request.getSort());
         params.put("order", "desc");
-        params.put("per_page", 30);
+        params.put("per_page", DEFAULT_PER_PAGE);
         return params;
     }
-} 
\ No newline at end of file
+
+    private record UpstreamTags(int status, String outcome) {
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.repositorysearcher.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * Count-based circuit breaker for upstream calls. While closed it tracks the
+ * outcome of the last {@code windowSize} calls and opens once at least
+ * {@code minimumCalls} were seen and the failure rate reaches the threshold.
+ * While open every call is rejected; after {@code openDuration} one probe call
+ * is let through, which closes the breaker on success and reopens it on failure.
+ */
+public class GitHubCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(GitHubCircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+
+    // Ring buffer of recent outcomes while closed; true marks a failure
+    private final boolean[] outcomes;
+    private int next;
+    private int calls;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openUntilNanos;
+    private boolean probeInFlight;
+    private long rejected;
+    private long opened;
+
+    public GitHubCircuitBreaker(double failureRateThreshold, int windowSize, int minimumCalls, Duration openDuration) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.outcomes = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, outcomes.length));
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Whether a call may be sent now. Every permitted call must be followed by
+     * exactly one of {@link #onSuccess()}, {@link #onFailure()} or {@link #onIgnored()}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.nanoTime() - openUntilNanos >= 0) {
+            state = State.HALF_OPEN;
+            logger.info("GitHub circuit breaker half-open, sending a probe call");
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return true;
+        }
+        rejected++;
+        return false;
+    }
+
+    /**
+     * Upstream answered; error responses that do not point at an outage count as success too.
+     */
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            logger.info("GitHub circuit breaker closed after a successful probe");
+            reset();
+            state = State.CLOSED;
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open("probe call failed");
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (calls >= minimumCalls && (double) failures / calls >= failureRateThreshold) {
+                open(failures + " of the last " + calls + " calls failed");
+            }
+        }
+    }
+
+    /**
+     * The call ended without an outcome, e.g. it was cancelled.
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Time until a probe call will be let through; zero unless open.
+     */
+    public synchronized Duration getRemainingOpenTime() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(Math.max(0, openUntilNanos - System.nanoTime()));
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejected;
+    }
+
+    public synchronized long getOpenedCount() {
+        return opened;
+    }
+
+    private void record(boolean failure) {
+        if (calls == outcomes.length) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % outcomes.length;
+    }
+
+    private void open(String reason) {
+        logger.warn("GitHub circuit breaker opened for {} ms: {}", openDurationNanos / 1_000_000, reason);
+        reset();
+        state = State.OPEN;
+        openUntilNanos = System.nanoTime() + openDurationNanos;
+        opened++;
+    }
+
+    private void reset() {
+        next = 0;
+        calls = 0;
+        failures = 0;
+        probeInFlight = false;
+    }
+}
@@ -0,0 +1,157 @@
+package com.github.repositorysearcher.service;
+
+import com.github.repositorysearcher.exception.RateLimitExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedules upstream GitHub calls. A local token bucket paces calls, and the budget
+ * GitHub reports in {@code X-RateLimit-Remaining}/{@code X-RateLimit-Reset} holds
+ * calls back until the window resets. Callers wait for their reserved slot up to
+ * a deadline; when the wait or the queue would be too long they are rejected
+ * immediately with the time after which a retry can succeed. A caller that gives
+ * up while waiting hands its reserved slot back.
+ */
+@Component
+public class GitHubRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(GitHubRateLimiter.class);
+
+    private static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    private static final String RESET_HEADER = "X-RateLimit-Reset";
+
+    private final double permitsPerNano;
+    private final double burst;
+    private final long maxWaitNanos;
+    private final int maxQueued;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    // Local token bucket; may go negative, which is how later callers reserve later slots
+    private double tokens;
+    private long lastRefillNanos;
+
+    // Upstream budget as last reported by GitHub, minus calls reserved since; -1 when unknown
+    private int remaining = -1;
+    private long resetAtMillis;
+    // Counts budget updates from GitHub, so a refund never adds to a budget reported after its reservation
+    private long budgetUpdates;
+
+    public GitHubRateLimiter(@Value("${github.api.rate-limit.requests-per-second:10}") double requestsPerSecond,
+                             @Value("${github.api.rate-limit.burst:10}") int burst,
+                             @Value("${github.api.rate-limit.max-wait:10000}") long maxWaitMs,
+                             @Value("${github.api.rate-limit.max-queued:100}") int maxQueued) {
+        this.permitsPerNano = requestsPerSecond / 1_000_000_000d;
+        this.burst = Math.max(1, burst);
+        this.maxWaitNanos = Duration.ofMillis(maxWaitMs).toNanos();
+        this.maxQueued = maxQueued;
+        this.tokens = this.burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Completes when the caller may send one request upstream, or fails with
+     * {@link RateLimitExceededException} if that would take longer than allowed.
+     */
+    public Mono<Void> acquire() {
+        return Mono.defer(() -> {
+            Reservation reservation = reserve();
+            if (reservation.waitNanos() == 0) {
+                return Mono.empty();
+            }
+            logger.debug("Delaying GitHub request by {} ms for rate limit", reservation.waitNanos() / 1_000_000);
+            return Mono.delay(Duration.ofNanos(reservation.waitNanos()))
+                    // A hedge that lost or a client that went away never sends its request
+                    .doOnCancel(() -> refund(reservation))
+                    .doFinally(signal -> queued.decrementAndGet())
+                    .then();
+        });
+    }
+
+    /**
+     * Records the budget GitHub reported on a response.
+     */
+    public synchronized void update(HttpHeaders headers) {
+        String remainingHeader = headers.getFirst(REMAINING_HEADER);
+        String resetHeader = headers.getFirst(RESET_HEADER);
+        if (remainingHeader == null || resetHeader == null) {
+            return;
+        }
+        try {
+            remaining = Integer.parseInt(remainingHeader.trim());
+            resetAtMillis = Long.parseLong(resetHeader.trim()) * 1000;
+            budgetUpdates++;
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring malformed rate limit headers: remaining={}, reset={}", remainingHeader, resetHeader);
+        }
+    }
+
+    /**
+     * Time until GitHub's current rate limit window resets, or zero when unknown.
+     */
+    public synchronized Duration getTimeUntilReset() {
+        return Duration.ofMillis(Math.max(0, resetAtMillis - System.currentTimeMillis()));
+    }
+
+    public synchronized int getRemaining() {
+        return remaining;
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    private synchronized Reservation reserve() {
+        long nowNanos = System.nanoTime();
+        long nowMillis = System.currentTimeMillis();
+
+        tokens = Math.min(burst, tokens + (nowNanos - lastRefillNanos) * permitsPerNano);
+        lastRefillNanos = nowNanos;
+        if (remaining >= 0 && nowMillis >= resetAtMillis) {
+            // The window has reset; the next response will tell us the new budget
+            remaining = -1;
+        }
+
+        long bucketWaitNanos = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / permitsPerNano);
+        long budgetWaitNanos = remaining == 0 ? Duration.ofMillis(resetAtMillis - nowMillis).toNanos() : 0;
+        long waitNanos = Math.max(bucketWaitNanos, budgetWaitNanos);
+
+        if (waitNanos > maxWaitNanos) {
+            throw new RateLimitExceededException("GitHub API rate limit budget exhausted. Please try again later.",
+                    Duration.ofNanos(waitNanos));
+        }
+        if (waitNanos > 0 && queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            throw new RateLimitExceededException("Too many requests waiting for the GitHub API. Please try again later.",
+                    Duration.ofNanos(waitNanos));
+        }
+
+        tokens -= 1;
+        boolean budgetTaken = remaining > 0;
+        if (budgetTaken) {
+            remaining--;
+        }
+        return new Reservation(waitNanos, budgetTaken, budgetUpdates);
+    }
+
+    private synchronized void refund(Reservation reservation) {
+        tokens = Math.min(burst, tokens + 1);
+        if (reservation.budgetTaken() && reservation.budgetUpdates() == budgetUpdates && remaining >= 0) {
+            remaining++;
+        }
+    }
+
+    /**
+     * A reserved slot: how long its caller waits, and whether it took one call from
+     * the budget GitHub reported.
+     */
+    private record Reservation(long waitNanos, boolean budgetTaken, long budgetUpdates) {
+    }
+}
@@ -0,0 +1,331 @@
+package com.github.repositorysearcher.service;
+
+import com.github.repositorysearcher.exception.GitHubApiException;
+import com.github.repositorysearcher.exception.GitHubCircuitOpenException;
+import com.github.repositorysearcher.exception.GitHubUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs upstream GitHub calls with three safeguards against a slow or failing upstream:
+ * <ul>
+ *   <li>hedging (opt-in): when a call takes longer than a percentile of recent call
+ *   latencies, a second identical call is sent and the first answer wins;</li>
+ *   <li>retries of transient failures (5xx, timeouts, connection errors) with
+ *   exponential backoff and jitter;</li>
+ *   <li>a {@link GitHubCircuitBreaker} that fails calls fast while upstream is down.</li>
+ * </ul>
+ * Only idempotent calls may be run this way; GitHub searches are plain GETs.
+ */
+@Component
+public class GitHubResilience {
+
+    private static final Logger logger = LoggerFactory.getLogger(GitHubResilience.class);
+
+    private static final int LATENCY_WINDOW_SIZE = 256;
+
+    private final Duration attemptTimeout;
+    private final int maxRetries;
+    private final Duration minBackoff;
+    private final Duration maxBackoff;
+    private final double jitter;
+    private final boolean hedgingEnabled;
+    private final double hedgePercentile;
+    private final Duration hedgeMinDelay;
+    private final int hedgeMinSamples;
+    private final GitHubCircuitBreaker circuitBreaker;
+
+    private final LatencyWindow latencies = new LatencyWindow(LATENCY_WINDOW_SIZE);
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    public GitHubResilience(@Value("${github.api.attempt-timeout:10000}") long attemptTimeoutMs,
+                            @Value("${github.api.retry.max-retries:2}") int maxRetries,
+                            @Value("${github.api.retry.min-backoff:200}") long minBackoffMs,
+                            @Value("${github.api.retry.max-backoff:2000}") long maxBackoffMs,
+                            @Value("${github.api.retry.jitter:0.5}") double jitter,
+                            @Value("${github.api.hedge.enabled:false}") boolean hedgingEnabled,
+                            @Value("${github.api.hedge.percentile:0.95}") double hedgePercentile,
+                            @Value("${github.api.hedge.min-delay:100}") long hedgeMinDelayMs,
+                            @Value("${github.api.hedge.min-samples:20}") int hedgeMinSamples,
+                            @Value("${github.api.circuit-breaker.enabled:false}") boolean circuitBreakerEnabled,
+                            @Value("${github.api.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+                            @Value("${github.api.circuit-breaker.window-size:20}") int windowSize,
+                            @Value("${github.api.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                            @Value("${github.api.circuit-breaker.open-duration:30000}") long openDurationMs) {
+        this.attemptTimeout = Duration.ofMillis(attemptTimeoutMs);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.minBackoff = Duration.ofMillis(minBackoffMs);
+        this.maxBackoff = Duration.ofMillis(Math.max(minBackoffMs, maxBackoffMs));
+        this.jitter = jitter;
+        this.hedgingEnabled = hedgingEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinDelay = Duration.ofMillis(hedgeMinDelayMs);
+        this.hedgeMinSamples = Math.max(1, hedgeMinSamples);
+        this.circuitBreaker = circuitBreakerEnabled ?
+                new GitHubCircuitBreaker(failureRateThreshold, windowSize, minimumCalls, Duration.ofMillis(openDurationMs)) :
+                null;
+    }
+
+    /**
+     * Runs {@code call} with hedging, retries and the circuit breaker. Every attempt,
+     * hedged or retried, first subscribes to {@code permit}, so each one is paced by
+     * the rate limiter; {@code call} is subscribed once per attempt. An attempt the
+     * circuit breaker rejects fails at once, without taking a permit.
+     */
+    public <T> Mono<T> execute(Mono<Void> permit, Supplier<Mono<T>> call) {
+        Supplier<Mono<T>> attempt = () -> guarded(permit, call);
+        Mono<T> hedged = Mono.defer(() -> hedged(attempt));
+        if (maxRetries == 0) {
+            return hedged;
+        }
+        return hedged.retryWhen(Retry.backoff(maxRetries, minBackoff)
+                .maxBackoff(maxBackoff)
+                .jitter(jitter)
+                .filter(GitHubResilience::isTransient)
+                .doBeforeRetry(signal -> {
+                    retries.incrementAndGet();
+                    logger.warn("Retrying GitHub call after attempt {} failed: {}",
+                            signal.totalRetries() + 1, signal.failure().getMessage());
+                })
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    /**
+     * Failures that may not recur on a second attempt and point at an upstream problem.
+     */
+    public static boolean isTransient(Throwable e) {
+        return e instanceof GitHubUnavailableException || e instanceof TimeoutException ||
+                e instanceof WebClientRequestException || e instanceof IOException;
+    }
+
+    public GitHubCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public long getHedgeCount() {
+        return hedges.get();
+    }
+
+    public long getHedgeWinCount() {
+        return hedgeWins.get();
+    }
+
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    /**
+     * How long a call may run before it is hedged; {@code null} while hedging is off
+     * or too few latencies were seen to know what slow means.
+     */
+    public Duration getHedgeDelay() {
+        if (!hedgingEnabled) {
+            return null;
+        }
+        long percentileNanos = latencies.percentile(hedgePercentile, hedgeMinSamples);
+        if (percentileNanos < 0) {
+            return null;
+        }
+        Duration percentile = Duration.ofNanos(percentileNanos);
+        return percentile.compareTo(hedgeMinDelay) > 0 ? percentile : hedgeMinDelay;
+    }
+
+    private <T> Mono<T> guarded(Mono<Void> permit, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            if (circuitBreaker != null && !circuitBreaker.tryAcquire()) {
+                return Mono.error(new GitHubCircuitOpenException(
+                        "GitHub API is failing, calls are suspended. Please try again later.",
+                        circuitBreaker.getRemainingOpenTime()));
+            }
+            // A permit that is refused or abandoned ends the attempt without an upstream outcome
+            Mono<Void> acquired = circuitBreaker == null ? permit : permit
+                    .doOnError(e -> circuitBreaker.onIgnored())
+                    .doOnCancel(circuitBreaker::onIgnored);
+            return acquired.then(Mono.defer(() -> timed(call)));
+        });
+    }
+
+    private <T> Mono<T> timed(Supplier<Mono<T>> call) {
+        long start = System.nanoTime();
+        return call.get()
+                .timeout(attemptTimeout)
+                .doOnSuccess(value -> {
+                    latencies.record(System.nanoTime() - start);
+                    if (circuitBreaker != null) {
+                        circuitBreaker.onSuccess();
+                    }
+                })
+                .doOnError(e -> {
+                    // A timed-out attempt took at least the timeout; leaving it out would hide slowness
+                    if (e instanceof TimeoutException) {
+                        latencies.record(attemptTimeout.toNanos());
+                    }
+                    if (circuitBreaker != null) {
+                        if (isTransient(e)) {
+                            circuitBreaker.onFailure();
+                        } else {
+                            circuitBreaker.onSuccess();
+                        }
+                    }
+                })
+                .doOnCancel(() -> {
+                    // Lost a hedge race or the whole call timed out: it ran at least this long
+                    latencies.record(System.nanoTime() - start);
+                    if (circuitBreaker != null) {
+                        circuitBreaker.onIgnored();
+                    }
+                });
+    }
+
+    private <T> Mono<T> hedged(Supplier<Mono<T>> attempt) {
+        Duration delay = getHedgeDelay();
+        if (delay == null) {
+            return attempt.get();
+        }
+        return Mono.create(sink -> {
+            HedgeRace<T> race = new HedgeRace<>(sink);
+            sink.onDispose(race);
+            race.start(attempt.get(), false);
+            race.add(Mono.delay(delay).subscribe(tick -> {
+                if (race.tryHedge()) {
+                    hedges.incrementAndGet();
+                    logger.debug("GitHub call slower than {} ms, sending a hedged call", delay.toMillis());
+                    race.start(attempt.get(), true);
+                }
+            }));
+        });
+    }
+
+    /**
+     * First value from the original or the hedged call wins and cancels the other. An
+     * error is only passed on once no call is left that could still answer, and a
+     * failure before the hedge was sent is passed on at once so it can be retried.
+     */
+    private final class HedgeRace<T> implements Disposable {
+
+        private final MonoSink<T> sink;
+        private final Disposable.Composite running = Disposables.composite();
+        private int active;
+        private boolean done;
+        private Throwable firstError;
+
+        HedgeRace(MonoSink<T> sink) {
+            this.sink = sink;
+        }
+
+        void start(Mono<T> call, boolean hedge) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                active++;
+            }
+            running.add(call.subscribe(value -> win(value, hedge), this::fail,
+                    () -> fail(new GitHubApiException("No response received from GitHub API"))));
+        }
+
+        synchronized boolean tryHedge() {
+            return !done;
+        }
+
+        void add(Disposable disposable) {
+            running.add(disposable);
+        }
+
+        private void win(T value, boolean hedge) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+            }
+            if (hedge) {
+                hedgeWins.incrementAndGet();
+            }
+            // Cancel the slower call before answering, so its connection is released first
+            running.dispose();
+            sink.success(value);
+        }
+
+        private void fail(Throwable e) {
+            Throwable error;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                active--;
+                if (firstError == null) {
+                    firstError = e;
+                }
+                if (active > 0) {
+                    return;
+                }
+                done = true;
+                error = firstError;
+            }
+            running.dispose();
+            sink.error(error);
+        }
+
+        @Override
+        public void dispose() {
+            running.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return running.isDisposed();
+        }
+    }
+
+    /**
+     * The most recent attempt latencies: successful attempts, and timed-out or
+     * cancelled ones with the time they ran.
+     */
+    static final class LatencyWindow {
+
+        private final long[] samples;
+        private int next;
+        private int count;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        /**
+         * The {@code percentile} (0 to 1) of the window, or -1 with fewer than {@code minSamples}.
+         */
+        synchronized long percentile(double percentile, int minSamples) {
+            if (count < minSamples) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * count) - 1;
+            return sorted[Math.max(0, Math.min(index, count - 1))];
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.repositorysearcher.service;
+
+import com.github.repositorysearcher.dto.GitHubSearchRequest;
+import com.github.repositorysearcher.dto.GitHubSearchResult;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of GitHub search result pages keyed by the normalized request
+ * and page. Entries stay usable after their TTL expires so they can be revalidated
+ * with their ETag instead of being downloaded again.
+ */
+public class GitHubResponseCache {
+
+    private final long ttlNanos;
+    private final Map<Key, CachedResponse> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+
+    public GitHubResponseCache(Duration ttl, int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized CachedResponse get(Key key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(Key key, GitHubSearchResult response, String etag) {
+        entries.put(key, new CachedResponse(response, etag, System.nanoTime() + ttlNanos));
+    }
+
+    /**
+     * Extends the lifetime of an entry after GitHub answered 304 Not Modified.
+     */
+    public synchronized CachedResponse refresh(Key key, CachedResponse entry) {
+        CachedResponse refreshed = new CachedResponse(entry.getResponse(), entry.getEtag(), System.nanoTime() + ttlNanos);
+        entries.put(key, refreshed);
+        return refreshed;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    public void recordMiss() {
+        misses.incrementAndGet();
+    }
+
+    public void recordRevalidation() {
+        revalidations.incrementAndGet();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getRevalidationCount() {
+        return revalidations.get();
+    }
+
+    /**
+     * One page of one normalized search; {@code maxResults} does not change a page's content.
+     */
+    public record Key(String query, String language, String sort, int page, int perPage) {
+
+        public static Key of(GitHubSearchRequest normalizedRequest, int page, int perPage) {
+            return new Key(normalizedRequest.getQuery(), normalizedRequest.getLanguage(),
+                    normalizedRequest.getSort(), page, perPage);
+        }
+    }
+
+    public static class CachedResponse {
+
+        private final GitHubSearchResult response;
+        private final String etag;
+        private final long expiresAtNanos;
+
+        CachedResponse(GitHubSearchResult response, String etag, long expiresAtNanos) {
+            this.response = response;
+            this.etag = etag;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        public GitHubSearchResult getResponse() {
+            return response;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public boolean isFresh() {
+            return System.nanoTime() - expiresAtNanos < 0;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.repositorysearcher.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.repositorysearcher.dto.GitHubSearchResult;
+import com.github.repositorysearcher.entity.Repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes a GitHub search response token by token into {@link Repository}
+ * entities. Only the handful of fields we store are read; every other field of
+ * the (large) repository objects is skipped without being bound.
+ */
+public class GitHubSearchResponseParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    public GitHubSearchResult parse(InputStream body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return parse(parser);
+        }
+    }
+
+    public GitHubSearchResult parse(byte[] body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return parse(parser);
+        }
+    }
+
+    private GitHubSearchResult parse(JsonParser parser) throws IOException {
+        GitHubSearchResult result = new GitHubSearchResult(null, null, new ArrayList<>());
+        expect(parser.nextToken(), JsonToken.START_OBJECT, parser);
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "total_count" -> result.setTotalCount(value == JsonToken.VALUE_NULL ? null : parser.getIntValue());
+                case "incomplete_results" -> result.setIncompleteResults(
+                        value == JsonToken.VALUE_NULL ? null : parser.getBooleanValue());
+                case "items" -> readItems(parser, value, result.getRepositories());
+                default -> parser.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    private void readItems(JsonParser parser, JsonToken value, List<Repository> repositories) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return;
+        }
+        expect(value, JsonToken.START_ARRAY, parser);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            repositories.add(readRepository(parser));
+        }
+    }
+
+    private Repository readRepository(JsonParser parser) throws IOException {
+        Long id = null;
+        String name = null;
+        String description = null;
+        String language = null;
+        String owner = null;
+        Integer stars = null;
+        Integer forks = null;
+        LocalDateTime updatedAt = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "id" -> id = parser.getLongValue();
+                case "name" -> name = parser.getText();
+                case "description" -> description = parser.getText();
+                case "language" -> language = parser.getText();
+                case "stargazers_count" -> stars = parser.getIntValue();
+                case "forks_count" -> forks = parser.getIntValue();
+                case "updated_at" -> updatedAt = parseTimestamp(parser.getText());
+                case "owner" -> owner = readOwnerLogin(parser);
+                default -> parser.skipChildren();
+            }
+        }
+
+        Repository repository = new Repository(id, name, description, owner != null ? owner : "Unknown", language,
+                stars != null ? stars : 0, forks != null ? forks : 0, updatedAt);
+        repository.setContentHash(repository.computeContentHash());
+        return repository;
+    }
+
+    private String readOwnerLogin(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String login = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("login".equals(field) && value != JsonToken.VALUE_NULL) {
+                login = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return login;
+    }
+
+    // GitHub sends UTC timestamps with a "Z" suffix; they are stored as UTC local times
+    private LocalDateTime parseTimestamp(String text) {
+        try {
+            return OffsetDateTime.parse(text).withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+        } catch (DateTimeParseException e) {
+            return LocalDateTime.parse(text);
+        }
+    }
+
+    private void expect(JsonToken actual, JsonToken expected, JsonParser parser) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Unexpected token " + actual + " in GitHub search response at "
+                    + parser.currentLocation() + ", expected " + expected);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.repositorysearcher.service;
+
+import com.github.repositorysearcher.entity.Repository;
+
+import java.util.List;
+
+/**
+ * Notified by {@link RepositoryService} after upserted repositories have been
+ * committed, so in-memory read structures can follow the table.
+ */
+public interface RepositoryChangeListener {
+
+    /**
+     * Called with the repositories as they were written; the same id may occur
+     * more than once, in which case the last occurrence is the stored one.
+     */
+    void onRepositoriesUpserted(List<Repository> repositories);
+}
@@ -1,18 +1,63 @@
 package com.github.repositorysearcher.service;
 
-import com.github.repositorysearcher.dto.GitHubApiResponse;
+import com.github.repositorysearcher.config.ReadWriteRoutingDataSource;
+import com.github.repositorysearcher.dto.BatchSearchResult;
+import com.github.repositorysearcher.dto.DeltaSyncResult;
 import com.github.repositorysearcher.dto.GitHubSearchRequest;
+import com.github.repositorysearcher.dto.GitHubSearchResult;
+import com.github.repositorysearcher.dto.RepositoryCursor;
 import com.github.repositorysearcher.dto.RepositoryDto;
+import com.github.repositorysearcher.dto.RepositoryPage;
+import com.github.repositorysearcher.dto.RepositoryStats;
+import com.github.repositorysearcher.dto.SearchResults;
 import com.github.repositorysearcher.entity.Repository;
+import com.github.repositorysearcher.entity.SearchQuery;
+import com.github.repositorysearcher.exception.GitHubApiException;
+import com.github.repositorysearcher.exception.SearchIndexUnavailableException;
+import com.github.repositorysearcher.exception.WriteQueueFullException;
+import com.github.repositorysearcher.index.InvertedIndex;
+import com.github.repositorysearcher.index.RepositoryReadIndex;
+import com.github.repositorysearcher.index.RepositoryStatsIndex;
+import com.github.repositorysearcher.index.RepositoryTextIndex;
 import com.github.repositorysearcher.repository.RepositoryRepository;
+import com.github.repositorysearcher.repository.SearchQueryRepository;
+import com.github.repositorysearcher.repository.UpsertResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,102 +68,607 @@ public class RepositoryService {
 
     private final GitHubApiService gitHubApiService;
     private final RepositoryRepository repositoryRepository;
+    private final SearchQueryRepository searchQueryRepository;
+    private final RepositoryReadIndex readIndex;
+    private final RepositoryTextIndex textIndex;
+    private final RepositoryStatsIndex statsIndex;
+    private final List<RepositoryChangeListener> changeListeners;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Scheduler persistenceScheduler;
+    private final SearchCoalescer searchCoalescer = new SearchCoalescer();
+    // Seeded from the clock so versions handed out before a restart are not reused after it
+    private final AtomicLong dataVersion = new AtomicLong(System.currentTimeMillis());
+    // System.nanoTime() until which replicas may not have applied the last write yet
+    private volatile long replicasLagUntilNanos = System.nanoTime();
+    private final MeterRegistry meterRegistry;
+    private final Timer upsertTimer;
+    private final DistributionSummary upsertBatchRows;
+    private final DistributionSummary insertedRows;
+    private final DistributionSummary updatedRows;
+    private final DistributionSummary unchangedRows;
+    private final Timer textSearchTimer;
+    private final Counter freshSnapshots;
+    private final Counter staleSnapshots;
+    // Page read meters per tag set, built once instead of on every read
+    private final Map<QueryTags, QueryMeters> queryMeters = new ConcurrentHashMap<>();
+
+    @Value("${repositories.read-routing.replica-lag:5000}")
+    private long replicaLagMs = 5000;
+
+    @Value("${repositories.pagination.default-limit:30}")
+    private int defaultPageSize = 30;
+
+    @Value("${repositories.pagination.max-limit:100}")
+    private int maxPageSize = 100;
+
+    @Value("${repositories.batch-search.max-searches:100}")
+    private int maxBatchSearches = 100;
+
+    @Value("${repositories.batch-search.concurrency:4}")
+    private int batchSearchConcurrency = 4;
+
+    @Value("${repositories.stats.default-top:5}")
+    private int defaultStatsTop = 5;
+
+    @Value("${repositories.snapshots.enabled:false}")
+    private boolean snapshotsEnabled;
+
+    @Value("${repositories.snapshots.fresh-for:0}")
+    private long snapshotFreshForMs;
+
+    @Value("${repositories.snapshots.max-age:86400000}")
+    private long snapshotMaxAgeMs = 86400000;
+
+    @Value("${repositories.write-behind.enabled:false}")
+    private boolean writeBehindEnabled;
+
+    @Value("${repositories.write-behind.capacity:10000}")
+    private int writeBehindCapacity = 10000;
+
+    @Value("${repositories.write-behind.workers:2}")
+    private int writeBehindWorkers = 2;
+
+    @Value("${repositories.write-behind.batch-size:1000}")
+    private int writeBehindBatchSize = 1000;
+
+    @Value("${repositories.write-behind.max-wait:2000}")
+    private long writeBehindMaxWaitMs = 2000;
+
+    @Value("${repositories.write-behind.max-retries:3}")
+    private int writeBehindMaxRetries = 3;
+
+    @Value("${repositories.write-behind.retry-backoff:500}")
+    private long writeBehindRetryBackoffMs = 500;
+
+    @Value("${repositories.write-behind.shutdown-timeout:30000}")
+    private long writeBehindShutdownTimeoutMs = 30000;
+
+    private WriteBehindQueue writeBehindQueue;
 
     @Autowired
-    public RepositoryService(GitHubApiService gitHubApiService, RepositoryRepository repositoryRepository) {
+    public RepositoryService(GitHubApiService gitHubApiService, RepositoryRepository repositoryRepository,
+                             SearchQueryRepository searchQueryRepository, RepositoryReadIndex readIndex, RepositoryTextIndex textIndex,
+                             RepositoryStatsIndex statsIndex,
+                             List<RepositoryChangeListener> changeListeners,
+                             PlatformTransactionManager transactionManager,
+                             @Qualifier("persistenceScheduler") Scheduler persistenceScheduler,
+                             MeterRegistry meterRegistry) {
         this.gitHubApiService = gitHubApiService;
         this.repositoryRepository = repositoryRepository;
+        this.searchQueryRepository = searchQueryRepository;
+        this.readIndex = readIndex;
+        this.textIndex = textIndex;
+        this.statsIndex = statsIndex;
+        this.changeListeners = changeListeners;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.persistenceScheduler = persistenceScheduler;
+        this.meterRegistry = meterRegistry;
+        this.upsertTimer = Timer.builder("repositories.upsert")
+                .description("Time to upsert one batch of repositories, excluding the commit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.upsertBatchRows = DistributionSummary.builder("repositories.upsert.batch.rows")
+                .description("Rows per upserted batch")
+                .baseUnit("rows")
+                .register(meterRegistry);
+        this.freshSnapshots = snapshotsServed("fresh");
+        this.staleSnapshots = snapshotsServed("stale");
+        this.insertedRows = upsertedRows("inserted");
+        this.updatedRows = upsertedRows("updated");
+        this.unchangedRows = upsertedRows("unchanged");
+        this.textSearchTimer = Timer.builder("repositories.text-search")
+                .description("Keyword searches over stored repositories, including loading the rows")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
-    public List<RepositoryDto> searchAndSaveRepositories(GitHubSearchRequest request) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<SearchResults> searchAndSaveRepositories(GitHubSearchRequest request) {
         logger.info("Starting repository search and save operation for request: {}", request);
 
-        // Fetch from GitHub API
-        GitHubApiResponse apiResponse = gitHubApiService.searchRepositories(request);
-        
-        if (apiResponse.getItems() == null || apiResponse.getItems().isEmpty()) {
-            logger.info("No repositories found for search query");
+        // Identical concurrent searches share one GitHub call and one upsert
+        return searchCoalescer.join(request.normalized(), () -> searchWithSnapshots(request));
+    }
+
+    /**
+     * Runs several searches against GitHub with bounded parallelism and saves the union of
+     * their repositories in one write. Searches with the same normalized form run
+     * once; a failed search, or a failed save of its repositories, is reported in its
+     * result and does not fail the batch.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<BatchSearchResult> searchAndSaveBatch(List<GitHubSearchRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("At least one search is required");
+        }
+        if (requests.size() > maxBatchSearches) {
+            throw new IllegalArgumentException("A batch may contain at most " + maxBatchSearches + " searches");
+        }
+        return Mono.defer(() -> {
+            LocalDateTime startedAt = LocalDateTime.now(ZoneOffset.UTC);
+            List<GitHubSearchRequest> normalizedRequests = requests.stream()
+                    .map(GitHubSearchRequest::normalized)
+                    .collect(Collectors.toList());
+            // The first spelling of each distinct search is the one sent to GitHub
+            Map<GitHubSearchRequest, GitHubSearchRequest> distinctRequests = new LinkedHashMap<>();
+            for (int i = 0; i < requests.size(); i++) {
+                distinctRequests.putIfAbsent(normalizedRequests.get(i), requests.get(i));
+            }
+            logger.info("Starting batch search of {} searches", normalizedRequests.size());
+            return Flux.fromIterable(distinctRequests.entrySet())
+                    .flatMap(entry -> gitHubApiService.searchRepositories(entry.getValue())
+                            .map(searchResult -> new BatchOutcome(entry.getKey(), entry.getValue(), searchResult, null))
+                            .onErrorResume(e -> {
+                                logger.warn("Batch search {} failed: {}", entry.getValue(), e.getMessage());
+                                return Mono.just(new BatchOutcome(entry.getKey(), entry.getValue(), null,
+                                        e.getMessage()));
+                            }), Math.max(1, batchSearchConcurrency))
+                    .collectMap(BatchOutcome::normalizedRequest)
+                    .publishOn(persistenceScheduler)
+                    .map(outcomes -> saveBatch(normalizedRequests, outcomes, startedAt));
+        });
+    }
+
+    public SearchCoalescer getSearchCoalescer() {
+        return searchCoalescer;
+    }
+
+    /**
+     * Changes after every committed write of repository rows, once listeners have seen it.
+     */
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    /**
+     * Whether the last write is recent enough that a replica may not have applied it yet.
+     */
+    public boolean mayReplicasLag() {
+        return System.nanoTime() - replicasLagUntilNanos < 0;
+    }
+
+    @PostConstruct
+    void startWriteBehind() {
+        if (writeBehindEnabled) {
+            writeBehindQueue = new WriteBehindQueue(writeBehindCapacity, writeBehindWorkers,
+                    writeBehindBatchSize, writeBehindMaxRetries, Duration.ofMillis(writeBehindRetryBackoffMs),
+                    this::writeQueuedRepositories);
+            logger.info("Write-behind persistence enabled - capacity: {}, workers: {}, batch size: {}",
+                    writeBehindCapacity, writeBehindWorkers, writeBehindBatchSize);
+        }
+    }
+
+    @PreDestroy
+    void stopWriteBehind() {
+        if (writeBehindQueue != null) {
+            logger.info("Flushing {} queued repository writes", writeBehindQueue.getQueueDepth());
+            writeBehindQueue.close(Duration.ofMillis(writeBehindShutdownTimeoutMs));
+        }
+    }
+
+    /**
+     * The write-behind queue, or {@code null} when searches are saved before they respond.
+     */
+    public WriteBehindQueue getWriteBehindQueue() {
+        return writeBehindQueue;
+    }
+
+    /**
+     * Fetches a re-sync delta from GitHub and upserts it, without recording it as a
+     * client search. Emits how many rows were written and whether the delta was complete.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Mono<DeltaSyncResult> resyncRepositories(GitHubSearchRequest deltaRequest) {
+        return fetchAndSave(deltaRequest)
+                .map(saved -> DeltaSyncResult.of(saved.searchResult(), saved.upsertResult()));
+    }
+
+    /**
+     * Answers from the stored snapshot while it is younger than {@code fresh-for}, otherwise
+     * searches GitHub; when GitHub fails, falls back to a snapshot younger than {@code max-age}.
+     */
+    private Mono<SearchResults> searchWithSnapshots(GitHubSearchRequest request) {
+        if (!snapshotsEnabled) {
+            return searchAndSave(request);
+        }
+        GitHubSearchRequest normalizedRequest = request.normalized();
+        Mono<SearchResults> searched = searchAndSave(request)
+                .onErrorResume(GitHubApiException.class, e ->
+                        readSnapshot(normalizedRequest, Duration.ofMillis(snapshotMaxAgeMs), true)
+                                .doOnNext(snapshot -> logger.warn("GitHub search failed, answering {} from the " +
+                                        "snapshot fetched at {}: {}", normalizedRequest, snapshot.getFetchedAt(),
+                                        e.getMessage()))
+                                .switchIfEmpty(Mono.error(e)));
+        if (snapshotFreshForMs <= 0) {
+            return searched;
+        }
+        return readSnapshot(normalizedRequest, Duration.ofMillis(snapshotFreshForMs), false)
+                .switchIfEmpty(searched);
+    }
+
+    private Mono<SearchResults> searchAndSave(GitHubSearchRequest request) {
+        return Mono.defer(() -> {
+            // Taken before the fetch, so the next re-sync also covers changes made while it ran
+            LocalDateTime startedAt = LocalDateTime.now(ZoneOffset.UTC);
+            Mono<GitHubSearchResult> searched = writeBehindQueue != null ?
+                    fetchAndEnqueue(request) :
+                    fetchAndSave(request).map(SavedSearch::searchResult);
+            return searched
+                    .doOnNext(searchResult -> recordSearch(request, searchResult, startedAt))
+                    .map(searchResult -> SearchResults.fetched(searchResult.getRepositories().stream()
+                            .map(RepositoryDto::new)
+                            .collect(Collectors.toList()), startedAt));
+        });
+    }
+
+    /**
+     * The stored answer to {@code normalizedRequest} joined to the current rows, if it was
+     * fetched within {@code maxAge}; empty otherwise or when it cannot be read.
+     */
+    private Mono<SearchResults> readSnapshot(GitHubSearchRequest normalizedRequest, Duration maxAge, boolean stale) {
+        return Mono.fromCallable(() -> {
+                    try {
+                        return readOnlyTransactionTemplate.execute(status ->
+                                loadSnapshot(normalizedRequest, maxAge, stale));
+                    } catch (DataAccessException e) {
+                        logger.warn("Could not read the snapshot of {}: {}", normalizedRequest, e.getMessage());
+                        return null;
+                    }
+                })
+                .subscribeOn(persistenceScheduler);
+    }
+
+    private SearchResults loadSnapshot(GitHubSearchRequest normalizedRequest, Duration maxAge, boolean stale) {
+        SearchQuery searchQuery = searchQueryRepository.findByQueryKey(SearchQuery.keyOf(normalizedRequest))
+                .orElse(null);
+        if (searchQuery == null || searchQuery.getSnapshotFetchedAt() == null ||
+                searchQuery.getSnapshotFetchedAt().isBefore(LocalDateTime.now(ZoneOffset.UTC).minus(maxAge))) {
+            return null;
+        }
+        List<RepositoryDto> repositories = findInOrder(searchQuery.snapshotRepositoryIds());
+        (stale ? staleSnapshots : freshSnapshots).increment();
+        return new SearchResults(repositories, stale, searchQuery.getSnapshotFetchedAt());
+    }
+
+    private Mono<GitHubSearchResult> fetchAndEnqueue(GitHubSearchRequest request) {
+        // Responds once the rows are queued; the queue workers upsert them and notify listeners
+        return gitHubApiService.searchRepositories(request)
+                .publishOn(persistenceScheduler)
+                .doOnNext(searchResult -> {
+                    List<Repository> repositories = searchResult.getRepositories();
+                    if (repositories != null && !repositories.isEmpty()) {
+                        writeBehindQueue.enqueue(repositories, Duration.ofMillis(writeBehindMaxWaitMs));
+                    }
+                });
+    }
+
+    private Mono<SavedSearch> fetchAndSave(GitHubSearchRequest request) {
+        // Fetch from GitHub API without holding a thread, then persist on the bounded scheduler
+        return gitHubApiService.searchRepositories(request)
+                .publishOn(persistenceScheduler)
+                .map(searchResult -> {
+                    UpsertResult result = transactionTemplate.execute(status -> saveSearchResults(searchResult));
+                    // Listeners only ever see committed rows
+                    notifyChangeListeners(searchResult.getRepositories());
+                    return new SavedSearch(searchResult, result);
+                });
+    }
+
+    // No transaction up front: reads served by the in-memory index must not take a connection
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public RepositoryPage getRepositories(String language, Integer minStars, String sort,
+                                          Integer limit, String cursor) {
+        logger.info("Retrieving repositories with filters - language: {}, minStars: {}, sort: {}, limit: {}", 
+                   language, minStars, sort, limit);
+
+        // Validate sort and paging parameters
+        String validSort = validateSortParameter(sort);
+        int pageSize = validateLimitParameter(limit);
+        RepositoryCursor after = cursor != null && !cursor.isBlank() ?
+                RepositoryCursor.decode(cursor, validSort) : null;
+
+        long start = System.nanoTime();
+        boolean fromIndex = readIndex.isReady();
+        List<RepositoryDto> dtos;
+        boolean fromReplica = false;
+        if (fromIndex) {
+            dtos = readIndex.findPage(language, minStars, validSort, after, pageSize);
+        } else {
+            ReadWriteRoutingDataSource.pollReplicaRead();
+            dtos = readOnlyTransactionTemplate.execute(status ->
+                    repositoryRepository.findPage(language, minStars, validSort, after, pageSize));
+            fromReplica = ReadWriteRoutingDataSource.pollReplicaRead();
+        }
+        recordQuery(validSort, fromIndex ? "index" : "database", language != null,
+                System.nanoTime() - start, dtos.size());
+
+        logger.info("Found {} repositories matching the criteria", dtos.size());
+
+        // A full page means there may be more rows after the last one
+        String next = dtos.size() == pageSize ?
+                RepositoryCursor.after(validSort, dtos.get(dtos.size() - 1)).encode() : null;
+
+        return new RepositoryPage(dtos, next, fromReplica);
+    }
+
+    /**
+     * Keyword search over stored names, owners and descriptions, ranked by relevance.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<RepositoryDto> searchStoredRepositories(String query, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("q must not be blank");
+        }
+        if (!textIndex.isReady()) {
+            throw new SearchIndexUnavailableException("Text search is not available yet. Please try again later.");
+        }
+        int pageSize = validateLimitParameter(limit);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return searchTextIndex(query, pageSize);
+        } finally {
+            sample.stop(textSearchTimer);
+        }
+    }
+
+    /**
+     * Per-language star stats with the {@code top} most starred repositories of each,
+     * answered from incrementally maintained aggregates.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public RepositoryStats getRepositoryStats(Integer top) {
+        if (!statsIndex.isReady()) {
+            throw new SearchIndexUnavailableException("Repository stats are not available yet. Please try again later.");
+        }
+        int topN = top != null ? validateLimitParameter(top) : defaultStatsTop;
+        return statsIndex.snapshot(topN);
+    }
+
+    /**
+     * Recomputes the stats aggregates from the table, for recovery after drift or a failed update.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public RepositoryStats rebuildRepositoryStats() {
+        logger.info("Rebuilding repository stats from the table");
+        statsIndex.rebuild();
+        return getRepositoryStats(null);
+    }
+
+    private List<RepositoryDto> searchTextIndex(String query, int pageSize) {
+        List<InvertedIndex.Hit> hits = textIndex.search(query, pageSize);
+        logger.info("Text search for '{}' matched {} repositories", query, hits.size());
+        if (hits.isEmpty()) {
             return List.of();
         }
 
-        // Convert and save repositories
-        List<Repository> repositories = apiResponse.getItems().stream()
-                .map(this::convertToEntity)
+        // Load the ranked rows by primary key and keep the ranking order
+        return findInOrder(hits.stream().map(InvertedIndex.Hit::repositoryId).collect(Collectors.toList()));
+    }
+
+    private List<RepositoryDto> findInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Repository> rows = readOnlyTransactionTemplate.execute(status ->
+                repositoryRepository.findAllById(ids).stream()
+                        .collect(Collectors.toMap(Repository::getRepositoryId, Function.identity())));
+        return ids.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .map(RepositoryDto::new)
                 .collect(Collectors.toList());
+    }
+
+    private UpsertResult saveSearchResults(GitHubSearchResult searchResult) {
+        List<Repository> repositories = searchResult.getRepositories();
+        if (repositories == null || repositories.isEmpty()) {
+            logger.info("No repositories found for search query");
+            return UpsertResult.empty();
+        }
 
-        List<Repository> savedRepositories = saveOrUpdateRepositories(repositories);
+        // Repositories arrive already decoded into entities by the GitHub response parser
+        UpsertResult result = saveOrUpdateRepositories(repositories);
         
-        logger.info("Successfully processed {} repositories", savedRepositories.size());
+        logger.info("Successfully processed {} repositories - inserted: {}, updated: {}, unchanged: {}",
+                result.getTotal(), result.getInserted(), result.getUpdated(), result.getUnchanged());
         
-        return savedRepositories.stream()
-                .map(RepositoryDto::new)
+        return result;
+    }
+
+    private BatchSearchResult saveBatch(List<GitHubSearchRequest> normalizedRequests,
+                                        Map<GitHubSearchRequest, BatchOutcome> outcomes, LocalDateTime startedAt) {
+        // Repositories found by several searches are written once
+        Map<Long, Repository> union = new LinkedHashMap<>();
+        Map<GitHubSearchRequest, GitHubSearchResult> succeededResults = new LinkedHashMap<>();
+        for (BatchOutcome outcome : outcomes.values()) {
+            if (outcome.searchResult() != null) {
+                succeededResults.put(outcome.request(), outcome.searchResult());
+                List<Repository> found = outcome.searchResult().getRepositories();
+                if (found != null) {
+                    found.forEach(repository -> union.put(repository.getRepositoryId(), repository));
+                }
+            }
+        }
+
+        List<Repository> repositories = new ArrayList<>(union.values());
+        UpsertResult upsertResult = UpsertResult.empty();
+        String saveError = null;
+        try {
+            if (!repositories.isEmpty() && writeBehindQueue != null) {
+                writeBehindQueue.enqueue(repositories, Duration.ofMillis(writeBehindMaxWaitMs));
+            } else if (!repositories.isEmpty()) {
+                upsertResult = transactionTemplate.execute(status -> saveOrUpdateRepositories(repositories));
+                notifyChangeListeners(repositories);
+            }
+        } catch (WriteQueueFullException | DataAccessException | TransactionException e) {
+            // The write is shared, so every search that found repositories failed with it
+            logger.warn("Could not save the {} repositories of a batch search: {}", repositories.size(),
+                    e.getMessage());
+            saveError = "Saving repositories failed: " + e.getMessage();
+        }
+        if (saveError == null) {
+            recordSearches(succeededResults, startedAt);
+        }
+
+        String failedSave = saveError;
+        List<BatchSearchResult.SearchResult> results = normalizedRequests.stream()
+                .map(request -> outcomes.get(request).toSearchResult(failedSave))
                 .collect(Collectors.toList());
+        int failed = (int) outcomes.values().stream()
+                .filter(outcome -> !outcome.toSearchResult(failedSave).isSuccess())
+                .count();
+        logger.info("Batch search finished - searches: {}, distinct: {}, failed: {}, repositories: {}, " +
+                        "inserted: {}, updated: {}, unchanged: {}", normalizedRequests.size(), outcomes.size(), failed,
+                repositories.size(), upsertResult.getInserted(), upsertResult.getUpdated(), upsertResult.getUnchanged());
+        return new BatchSearchResult(outcomes.size(), failed, repositories.size(), upsertResult.getInserted(),
+                upsertResult.getUpdated(), upsertResult.getUnchanged(), results);
     }
 
-    @Transactional(readOnly = true)
-    public List<RepositoryDto> getRepositories(String language, Integer minStars, String sort) {
-        logger.info("Retrieving repositories with filters - language: {}, minStars: {}, sort: {}", 
-                   language, minStars, sort);
+    private void writeQueuedRepositories(List<Repository> repositories) {
+        transactionTemplate.executeWithoutResult(status -> saveOrUpdateRepositories(repositories));
+        notifyChangeListeners(repositories);
+    }
 
-        // Validate sort parameter
-        String validSort = validateSortParameter(sort);
+    private void recordSearch(GitHubSearchRequest request, GitHubSearchResult searchResult,
+                              LocalDateTime startedAt) {
+        recordSearches(Map.of(request, searchResult), startedAt);
+    }
 
-        List<Repository> repositories = repositoryRepository.findRepositoriesWithFilters(
-                language, minStars, validSort);
+    private void recordSearches(Map<GitHubSearchRequest, GitHubSearchResult> searchResults, LocalDateTime startedAt) {
+        if (searchResults.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> searchResults.forEach((request, searchResult) -> {
+                SearchQuery searchQuery = searchQueryRepository.findByQueryKey(SearchQuery.keyOf(request.normalized()))
+                        .orElseGet(() -> SearchQuery.of(request, startedAt));
+                searchQuery.setLastRequestedAt(startedAt);
+                if (startedAt.isAfter(searchQuery.getLastSyncedAt())) {
+                    searchQuery.setLastSyncedAt(startedAt);
+                }
+                if (snapshotsEnabled) {
+                    searchQuery.setSnapshot(repositoryIds(searchResult), startedAt);
+                }
+                searchQueryRepository.save(searchQuery);
+            }));
+        } catch (DataAccessException e) {
+            // Losing a re-sync registration or snapshot must not fail the search itself
+            logger.warn("Could not record {} search queries: {}", searchResults.size(), e.getMessage());
+        }
+    }
 
-        logger.info("Found {} repositories matching the criteria", repositories.size());
-        
-        return repositories.stream()
-                .map(RepositoryDto::new)
-                .collect(Collectors.toList());
+    private static List<Long> repositoryIds(GitHubSearchResult searchResult) {
+        List<Repository> repositories = searchResult.getRepositories();
+        if (repositories == null) {
+            return List.of();
+        }
+        return repositories.stream().map(Repository::getRepositoryId).collect(Collectors.toList());
     }
 
-    private List<Repository> saveOrUpdateRepositories(List<Repository> repositories) {
-        return repositories.stream()
-                .map(this::saveOrUpdateRepository)
-                .collect(Collectors.toList());
+    private void notifyChangeListeners(List<Repository> repositories) {
+        if (repositories == null || repositories.isEmpty()) {
+            return;
+        }
+        for (RepositoryChangeListener listener : changeListeners) {
+            try {
+                listener.onRepositoriesUpserted(repositories);
+            } catch (RuntimeException e) {
+                logger.error("Repository change listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        }
+        // Bumped last, so a reader seeing the new version also sees the updated read index
+        // and knows replicas may still lag behind it
+        replicasLagUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(replicaLagMs);
+        dataVersion.incrementAndGet();
     }
 
-    private Repository saveOrUpdateRepository(Repository repository) {
-        Optional<Repository> existingRepo = repositoryRepository.findByRepositoryId(repository.getRepositoryId());
-        
-        if (existingRepo.isPresent()) {
-            // Update existing repository
-            Repository existing = existingRepo.get();
-            updateRepositoryFields(existing, repository);
-            Repository saved = repositoryRepository.save(existing);
-            logger.debug("Updated existing repository: {}", saved.getName());
-            return saved;
-        } else {
-            // Save new repository
-            Repository saved = repositoryRepository.save(repository);
-            logger.debug("Saved new repository: {}", saved.getName());
-            return saved;
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillLanguageKeys() {
+        int updated = repositoryRepository.backfillLanguageKeys();
+        if (updated > 0) {
+            logger.info("Backfilled language keys for {} repositories", updated);
         }
     }
 
-    private void updateRepositoryFields(Repository existing, Repository newData) {
-        existing.setName(newData.getName());
-        existing.setDescription(newData.getDescription());
-        existing.setOwnerName(newData.getOwnerName());
-        existing.setProgrammingLanguage(newData.getProgrammingLanguage());
-        existing.setStarsCount(newData.getStarsCount());
-        existing.setForksCount(newData.getForksCount());
-        existing.setLastUpdatedDate(newData.getLastUpdatedDate());
-        // Note: createdAt and updatedAt are handled by JPA annotations
+    private UpsertResult saveOrUpdateRepositories(List<Repository> repositories) {
+        long start = System.nanoTime();
+        UpsertResult result = repositoryRepository.upsertAll(repositories);
+        long elapsed = System.nanoTime() - start;
+        upsertTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        upsertBatchRows.record(repositories.size());
+        insertedRows.record(result.getInserted());
+        updatedRows.record(result.getUpdated());
+        unchangedRows.record(result.getUnchanged());
+        return result;
+    }
+
+    private Counter snapshotsServed(String result) {
+        return Counter.builder("repositories.search.snapshots")
+                .description("Searches answered from a stored snapshot instead of GitHub")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private DistributionSummary upsertedRows(String result) {
+        return DistributionSummary.builder("repositories.upsert.rows")
+                .description("Rows per upserted batch, by what happened to them")
+                .tag("result", result)
+                .register(meterRegistry);
     }
 
-    private Repository convertToEntity(GitHubApiResponse.GitHubRepository githubRepo) {
-        Repository repository = new Repository();
-        repository.setRepositoryId(githubRepo.getId());
-        repository.setName(githubRepo.getName());
-        repository.setDescription(githubRepo.getDescription());
-        repository.setOwnerName(githubRepo.getOwner() != null ? githubRepo.getOwner().getLogin() : "Unknown");
-        repository.setProgrammingLanguage(githubRepo.getLanguage());
-        repository.setStarsCount(githubRepo.getStargazersCount() != null ? githubRepo.getStargazersCount() : 0);
-        repository.setForksCount(githubRepo.getForksCount() != null ? githubRepo.getForksCount() : 0);
-        repository.setLastUpdatedDate(githubRepo.getUpdatedAt());
-        return repository;
+    private void recordQuery(String sort, String source, boolean languageFilter, long elapsedNanos, int rows) {
+        QueryMeters meters = queryMeters.computeIfAbsent(new QueryTags(sort, source, languageFilter),
+                this::registerQueryMeters);
+        meters.timer().record(elapsedNanos, TimeUnit.NANOSECONDS);
+        meters.results().record(rows);
+    }
+
+    private QueryMeters registerQueryMeters(QueryTags tags) {
+        Timer timer = Timer.builder("repositories.query")
+                .description("Page reads of stored repositories")
+                .tag("sort", tags.sort())
+                .tag("source", tags.source())
+                .tag("language_filter", String.valueOf(tags.languageFilter()))
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        DistributionSummary results = DistributionSummary.builder("repositories.query.results")
+                .description("Rows returned per page read")
+                .tag("sort", tags.sort())
+                .register(meterRegistry);
+        return new QueryMeters(timer, results);
+    }
+
+    private int validateLimitParameter(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        return Math.min(limit, maxPageSize);
     }
 
     private String validateSortParameter(String sort) {
@@ -132,4 +682,28 @@ public class RepositoryService {
             default -> "stars";
         };
     }
-} 
\ No newline at end of file
+
+    private record QueryTags(String sort, String source, boolean languageFilter) {
+    }
+
+    private record QueryMeters(Timer timer, DistributionSummary results) {
+    }
+
+    private record SavedSearch(GitHubSearchResult searchResult, UpsertResult upsertResult) {
+    }
+
+    private record BatchOutcome(GitHubSearchRequest normalizedRequest, GitHubSearchRequest request,
+                                GitHubSearchResult searchResult, String error) {
+
+        BatchSearchResult.SearchResult toSearchResult(String saveError) {
+            int found = searchResult != null && searchResult.getRepositories() != null ?
+                    searchResult.getRepositories().size() : 0;
+            if (found > 0 && saveError != null) {
+                return new BatchSearchResult.SearchResult(request.getQuery(), request.getLanguage(),
+                        request.getSort(), false, found, saveError);
+            }
+            return new BatchSearchResult.SearchResult(request.getQuery(), request.getLanguage(), request.getSort(),
+                    searchResult != null, found, error);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.repositorysearcher.service;
+
+import com.github.repositorysearcher.dto.GitHubSearchRequest;
+import com.github.repositorysearcher.dto.SearchResults;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Shares one search-and-save pass between concurrent requests for the same
+ * normalized search. The shared result is only kept while the search is in
+ * flight; a request arriving after it completed starts a new one.
+ */
+public class SearchCoalescer {
+
+    private final Map<GitHubSearchRequest, Mono<SearchResults>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Joins the in-flight search for {@code normalizedRequest}, or starts one with {@code search}.
+     * The shared search is not cancelled when one of its callers goes away.
+     */
+    public Mono<SearchResults> join(GitHubSearchRequest normalizedRequest,
+                                    Supplier<Mono<SearchResults>> search) {
+        return Mono.defer(() -> {
+            requests.incrementAndGet();
+            AtomicBoolean started = new AtomicBoolean();
+            Mono<SearchResults> shared = inFlight.computeIfAbsent(normalizedRequest, key -> {
+                started.set(true);
+                return search.get()
+                        .doFinally(signal -> inFlight.remove(key))
+                        .cache();
+            });
+            if (!started.get()) {
+                coalesced.incrementAndGet();
+            }
+            return shared;
+        });
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * Share of requests that were answered by another request's search.
+     */
+    public double getCoalescingRatio() {
+        long total = requests.get();
+        return total == 0 ? 0.0 : (double) coalesced.get() / total;
+    }
+}
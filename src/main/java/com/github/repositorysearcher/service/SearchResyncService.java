@@ -0,0 +1,249 @@
+package com.github.repositorysearcher.service;
+
+import com.github.repositorysearcher.dto.DeltaSyncResult;
+import com.github.repositorysearcher.dto.GitHubSearchRequest;
+import com.github.repositorysearcher.dto.SearchQueryStatus;
+import com.github.repositorysearcher.entity.SearchQuery;
+import com.github.repositorysearcher.repository.SearchQueryRepository;
+import com.github.repositorysearcher.repository.UpsertResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Periodically refreshes the results of searches clients have run. Each re-sync
+ * only asks GitHub for repositories pushed since the search was last synced and
+ * upserts that delta instead of downloading the full result again. When the delta
+ * is larger than one fetch, the pushed-date range is narrowed until it fits and the
+ * last sync moves to the end of the range that was fetched completely.
+ */
+@Service
+public class SearchResyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchResyncService.class);
+
+    private static final int MAX_ERROR_LENGTH = 1024;
+
+    private final RepositoryService repositoryService;
+    private final SearchQueryRepository searchQueryRepository;
+    private final Duration interval;
+    private final Duration retention;
+    private final int batchSize;
+    private final int concurrency;
+    private final long maxJitterMs;
+    private final int maxResults;
+    private final boolean enabled;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> resyncTimers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SearchResyncService(RepositoryService repositoryService, SearchQueryRepository searchQueryRepository,
+                               @Value("${repositories.resync.interval:3600000}") long intervalMs,
+                               @Value("${repositories.resync.retention:604800000}") long retentionMs,
+                               @Value("${repositories.resync.batch-size:50}") int batchSize,
+                               @Value("${repositories.resync.concurrency:2}") int concurrency,
+                               @Value("${repositories.resync.max-jitter:5000}") long maxJitterMs,
+                               @Value("${repositories.resync.max-results:1000}") int maxResults,
+                               @Value("${repositories.resync.enabled:false}") boolean enabled,
+                               MeterRegistry meterRegistry) {
+        this.repositoryService = repositoryService;
+        this.searchQueryRepository = searchQueryRepository;
+        this.interval = Duration.ofMillis(intervalMs);
+        this.retention = Duration.ofMillis(retentionMs);
+        this.batchSize = Math.max(1, batchSize);
+        this.concurrency = Math.max(1, concurrency);
+        this.maxJitterMs = Math.max(0, maxJitterMs);
+        this.maxResults = maxResults;
+        this.enabled = enabled;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Re-syncs the searches that are due. Runs on the scheduling thread and waits for
+     * the batch, so two batches never overlap.
+     */
+    @Scheduled(initialDelayString = "${repositories.resync.poll-interval:60000}",
+               fixedDelayString = "${repositories.resync.poll-interval:60000}")
+    public void resyncDueQueries() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        List<SearchQuery> due = searchQueryRepository.findByLastSyncedAtBeforeAndLastRequestedAtAfterOrderByLastSyncedAtAsc(
+                now.minus(interval), now.minus(retention), PageRequest.of(0, batchSize));
+        if (due.isEmpty()) {
+            return;
+        }
+
+        logger.info("Re-syncing {} searches", due.size());
+        Flux.fromIterable(due)
+                // Jitter spreads the upstream calls instead of sending the whole batch at once
+                .flatMap(searchQuery -> Mono.delay(jitter()).then(resync(searchQuery)), concurrency)
+                .blockLast();
+    }
+
+    public List<SearchQueryStatus> getQueryStatuses() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        return searchQueryRepository.findAllByOrderByLastSyncedAtAsc().stream()
+                .map(searchQuery -> new SearchQueryStatus(searchQuery, now))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The recorded search restricted to repositories pushed since the last sync, fetched
+     * page by page up to {@code max-results}. GitHub compares dates per day, so the delta
+     * starts at the beginning of that day (UTC).
+     */
+    GitHubSearchRequest deltaRequest(SearchQuery searchQuery) {
+        return deltaRequest(searchQuery, searchQuery.getLastSyncedAt().toLocalDate(), null);
+    }
+
+    /**
+     * The recorded search restricted to repositories pushed from {@code since} through
+     * {@code until} (both inclusive), or since {@code since} when {@code until} is null.
+     */
+    GitHubSearchRequest deltaRequest(SearchQuery searchQuery, LocalDate since, LocalDate until) {
+        String pushed = until == null ? ">=" + since : since + ".." + until;
+        return new GitHubSearchRequest(searchQuery.getQuery() + " pushed:" + pushed,
+                searchQuery.getLanguage(), searchQuery.getSort(), maxResults);
+    }
+
+    private Mono<Void> resync(SearchQuery searchQuery) {
+        return Mono.defer(() -> {
+            LocalDateTime startedAt = LocalDateTime.now(ZoneOffset.UTC);
+            long start = System.nanoTime();
+            LocalDate since = searchQuery.getLastSyncedAt().toLocalDate();
+            return cover(searchQuery, since, null, startedAt.toLocalDate(), UpsertResult.empty())
+                    .doOnNext(covered -> recordSuccess(searchQuery, startedAt, covered, elapsedMs(start)))
+                    .onErrorResume(e -> {
+                        recordFailure(searchQuery, e, elapsedMs(start));
+                        return Mono.empty();
+                    })
+                    .then();
+        });
+    }
+
+    /**
+     * Fetches the delta pushed from {@code since} through {@code until} (open-ended when
+     * null). While GitHub matches more than one fetch returns, retries with the first half
+     * of the range, so the range that is finally covered always ends at a day boundary.
+     * What was fetched along the way is saved and counted as well.
+     */
+    private Mono<CoveredRange> cover(SearchQuery searchQuery, LocalDate since, LocalDate until, LocalDate today,
+                                     UpsertResult writtenBefore) {
+        return repositoryService.resyncRepositories(deltaRequest(searchQuery, since, until))
+                .flatMap(result -> {
+                    UpsertResult written = plus(writtenBefore, result.getUpsertResult());
+                    LocalDate end = until == null ? today : until;
+                    if (result.isComplete() || !end.isAfter(since)) {
+                        return Mono.just(new CoveredRange(since, until, result, written));
+                    }
+                    LocalDate middle = since.plusDays(ChronoUnit.DAYS.between(since, end) / 2);
+                    return cover(searchQuery, since, middle, today, written);
+                });
+    }
+
+    private void recordSuccess(SearchQuery searchQuery, LocalDateTime startedAt, CoveredRange covered,
+                               long durationMs) {
+        UpsertResult upsertResult = covered.written();
+        DeltaSyncResult result = covered.last();
+        String outcome = !result.isComplete() ? "INCOMPLETE" : covered.until() == null ? "SUCCESS" : "PARTIAL";
+        resyncTimer(outcome).record(durationMs, TimeUnit.MILLISECONDS);
+
+        // A narrowed range ends before today, so the next re-sync starts the day after it. A single
+        // day GitHub cannot return in full is skipped as well, otherwise the search never advances.
+        LocalDateTime syncedAt = covered.until() == null ? startedAt :
+                covered.until().plusDays(1).atStartOfDay();
+        if (syncedAt.isAfter(startedAt)) {
+            syncedAt = startedAt;
+        }
+        String error = null;
+        if (result.isComplete()) {
+            Duration lag = Duration.between(searchQuery.getLastSyncedAt(), startedAt);
+            logger.info("Re-synced '{}' (language: {}) through {} - lag: {}s, inserted: {}, updated: {}, "
+                            + "unchanged: {}, took {} ms",
+                    searchQuery.getQuery(), searchQuery.getLanguage(), syncedAt, lag.toSeconds(),
+                    upsertResult.getInserted(), upsertResult.getUpdated(), upsertResult.getUnchanged(), durationMs);
+        } else {
+            error = "Delta incomplete: fetched " + result.getFetched() + " of " + result.getTotalCount()
+                    + " repositories pushed on " + covered.since();
+            logger.warn("Re-sync of '{}' (language: {}) fetched {} of {} repositories pushed on {} in {} ms, "
+                            + "moving past that day",
+                    searchQuery.getQuery(), searchQuery.getLanguage(), result.getFetched(), result.getTotalCount(),
+                    covered.since(), durationMs);
+        }
+
+        LocalDateTime lastSyncedAt = syncedAt;
+        String message = error;
+        update(searchQuery, () -> searchQueryRepository.recordSync(searchQuery.getId(), lastSyncedAt,
+                upsertResult.getInserted(), upsertResult.getUpdated(), upsertResult.getUnchanged(),
+                upsertResult.getWritten(), durationMs, message));
+    }
+
+    private void recordFailure(SearchQuery searchQuery, Throwable error, long durationMs) {
+        resyncTimer("FAILURE").record(durationMs, TimeUnit.MILLISECONDS);
+        logger.warn("Re-sync of '{}' (language: {}) failed after {} ms: {}",
+                searchQuery.getQuery(), searchQuery.getLanguage(), durationMs, error.getMessage());
+
+        // lastSyncedAt stays put, so the next attempt asks for the same delta
+        String message = String.valueOf(error.getMessage());
+        String truncated = message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+        update(searchQuery, () -> searchQueryRepository.recordSyncFailure(searchQuery.getId(), durationMs, truncated));
+    }
+
+    // Targeted updates, so a client search recorded during the re-sync is not overwritten
+    private void update(SearchQuery searchQuery, Runnable update) {
+        try {
+            update.run();
+        } catch (RuntimeException e) {
+            logger.warn("Could not store re-sync state of '{}': {}", searchQuery.getQuery(), e.getMessage());
+        }
+    }
+
+    private Timer resyncTimer(String outcome) {
+        return resyncTimers.computeIfAbsent(outcome, key -> Timer.builder("repositories.resync")
+                .description("Background re-syncs of one recorded search")
+                .tag("outcome", key)
+                .register(meterRegistry));
+    }
+
+    private Duration jitter() {
+        return maxJitterMs == 0 ? Duration.ZERO : Duration.ofMillis(ThreadLocalRandom.current().nextLong(maxJitterMs));
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private static UpsertResult plus(UpsertResult a, UpsertResult b) {
+        return new UpsertResult(a.getInserted() + b.getInserted(), a.getUpdated() + b.getUpdated(),
+                a.getUnchanged() + b.getUnchanged());
+    }
+
+    /**
+     * The pushed-date range a re-sync fetched in full ({@code until} null: through now),
+     * the fetch of that range, and what all fetches of the re-sync wrote.
+     */
+    private record CoveredRange(LocalDate since, LocalDate until, DeltaSyncResult last, UpsertResult written) {
+    }
+}
@@ -0,0 +1,238 @@
+package com.github.repositorysearcher.service;
+
+import com.github.repositorysearcher.entity.Repository;
+import com.github.repositorysearcher.exception.WriteQueueFullException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded in-process queue of repositories waiting to be upserted. Worker threads
+ * drain it into batches and hand each batch to the flusher. A batch that fails is
+ * retried in place with exponential backoff, up to {@code maxRetries} times.
+ * <p>
+ * Repositories are partitioned by id, one partition per worker, so two versions of
+ * the same repository are always written in the order they were enqueued.
+ */
+public class WriteBehindQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    private static final long POLL_MILLIS = 100;
+
+    private final List<BlockingQueue<Repository>> partitions;
+    private final List<Thread> workers;
+    private final int batchSize;
+    private final Consumer<List<Repository>> flusher;
+    private final int maxRetries;
+    private final Duration retryBackoff;
+
+    private volatile boolean closed;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong failedRows = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong flushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    public WriteBehindQueue(int capacity, int workerCount, int batchSize, int maxRetries, Duration retryBackoff,
+                            Consumer<List<Repository>> flusher) {
+        int workersToStart = Math.max(1, workerCount);
+        int partitionCapacity = Math.max(1, capacity / workersToStart);
+        this.batchSize = Math.max(1, batchSize);
+        this.flusher = flusher;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBackoff = retryBackoff;
+        this.partitions = new ArrayList<>(workersToStart);
+        this.workers = new ArrayList<>(workersToStart);
+        for (int i = 0; i < workersToStart; i++) {
+            BlockingQueue<Repository> partition = new ArrayBlockingQueue<>(partitionCapacity);
+            partitions.add(partition);
+            Thread worker = new Thread(() -> drain(partition), "repository-write-behind-" + i);
+            workers.add(worker);
+        }
+        workers.forEach(Thread::start);
+    }
+
+    /**
+     * Queues repositories for writing. Waits up to {@code maxWait} for room and throws
+     * {@link WriteQueueFullException} if there is none; repositories queued before that
+     * are still written.
+     */
+    public void enqueue(List<Repository> repositories, Duration maxWait) {
+        if (closed) {
+            rejected.addAndGet(repositories.size());
+            throw new WriteQueueFullException("Repository writes are shutting down. Please try again later.");
+        }
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        for (int i = 0; i < repositories.size(); i++) {
+            Repository repository = repositories.get(i);
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                if (!partitionOf(repository).offer(repository, remaining, TimeUnit.NANOSECONDS)) {
+                    rejected.addAndGet(repositories.size() - i);
+                    throw new WriteQueueFullException("Too many pending repository writes. Please try again later.");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejected.addAndGet(repositories.size() - i);
+                throw new WriteQueueFullException("Interrupted while waiting to queue repository writes");
+            }
+            enqueued.incrementAndGet();
+        }
+    }
+
+    /**
+     * Stops accepting writes and waits up to {@code timeout} for everything queued to be
+     * written, in queue order.
+     */
+    public void close(Duration timeout) {
+        closed = true;
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        // Writes that raced with close() may have landed after their worker exited
+        for (int i = 0; i < partitions.size(); i++) {
+            if (!workers.get(i).isAlive()) {
+                flushRemaining(partitions.get(i));
+            }
+        }
+        int lost = getQueueDepth();
+        if (lost > 0) {
+            logger.error("{} queued repository writes were not flushed before shutdown", lost);
+        }
+    }
+
+    public int getQueueDepth() {
+        int depth = 0;
+        for (BlockingQueue<Repository> partition : partitions) {
+            depth += partition.size();
+        }
+        return depth;
+    }
+
+    public long getEnqueuedCount() {
+        return enqueued.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
+    public long getFlushedRowCount() {
+        return flushedRows.get();
+    }
+
+    public long getFailedRowCount() {
+        return failedRows.get();
+    }
+
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    public Duration getTotalFlushTime() {
+        return Duration.ofNanos(flushNanos.get());
+    }
+
+    public Duration getMaxFlushTime() {
+        return Duration.ofNanos(maxFlushNanos.get());
+    }
+
+    private BlockingQueue<Repository> partitionOf(Repository repository) {
+        return partitions.get(Math.floorMod(Long.hashCode(repository.getRepositoryId()), partitions.size()));
+    }
+
+    private void drain(BlockingQueue<Repository> partition) {
+        List<Repository> batch = new ArrayList<>(batchSize);
+        while (!closed || !partition.isEmpty()) {
+            try {
+                Repository first = partition.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                partition.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flushRemaining(BlockingQueue<Repository> partition) {
+        List<Repository> batch = new ArrayList<>(batchSize);
+        while (partition.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes one batch, retrying on the worker thread so that later writes of the same
+     * repositories cannot overtake it. Rows still failing after the last retry are dropped.
+     */
+    private void flush(List<Repository> batch) {
+        List<Repository> rows = List.copyOf(batch);
+        for (int attempt = 0; ; attempt++) {
+            RuntimeException failure = null;
+            long start = System.nanoTime();
+            try {
+                flusher.accept(rows);
+                flushedRows.addAndGet(rows.size());
+            } catch (RuntimeException e) {
+                failure = e;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                flushes.incrementAndGet();
+                flushNanos.addAndGet(elapsed);
+                maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+            }
+            if (failure == null) {
+                return;
+            }
+            if (attempt >= maxRetries || !backOff(attempt)) {
+                failedRows.addAndGet(rows.size());
+                logger.error("Failed to write {} queued repositories after {} attempts", rows.size(), attempt + 1, failure);
+                return;
+            }
+            retries.incrementAndGet();
+            logger.warn("Failed to write {} queued repositories, retrying: {}", rows.size(), failure.getMessage());
+        }
+    }
+
+    // Waits retryBackoff, doubled per attempt; false when interrupted
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(retryBackoff.toMillis() << Math.min(attempt, 10));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
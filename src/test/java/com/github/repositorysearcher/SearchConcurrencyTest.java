@@ -0,0 +1,132 @@
+package com.github.repositorysearcher;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load test for the non-blocking search pipeline: with only a handful of servlet
+ * threads, many slow upstream searches must still be in flight at the same time.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.tomcat.threads.max=4",
+        "server.tomcat.threads.min-spare=1",
+        "github.api.rate-limit.requests-per-second=10000",
+        "github.api.rate-limit.burst=10000"
+})
+@ActiveProfiles("test")
+class SearchConcurrencyTest {
+
+    private static final int SERVLET_THREADS = 4;
+    private static final int CONCURRENT_SEARCHES = 64;
+    private static final long UPSTREAM_LATENCY_MS = 500;
+
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger maxInFlight = new AtomicInteger();
+    private static final AtomicLong nextId = new AtomicLong();
+    private static final ExecutorService stubExecutor = Executors.newCachedThreadPool();
+    private static final HttpServer githubStub = startGitHubStub();
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void githubProperties(DynamicPropertyRegistry registry) {
+        registry.add("github.api.base-url", () -> "http://localhost:" + githubStub.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopGitHubStub() {
+        githubStub.stop(0);
+        stubExecutor.shutdownNow();
+    }
+
+    @Test
+    void searches_ShouldStayInFlightFarBeyondServletThreadCount() {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("search-load-test")
+                .maxConnections(CONCURRENT_SEARCHES)
+                .build();
+        WebClient client = WebClient.builder()
+                .baseUrl("http://localhost:" + port)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+                .build();
+
+        long start = System.nanoTime();
+        List<Integer> statuses = Flux.range(0, CONCURRENT_SEARCHES)
+                .flatMap(i -> client.post()
+                        .uri("/api/github/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue("{\"query\":\"load-" + i + "\",\"sort\":\"stars\"}")
+                        .retrieve()
+                        .toBodilessEntity()
+                        .map(response -> response.getStatusCode().value()), CONCURRENT_SEARCHES)
+                .collectList()
+                .block(Duration.ofSeconds(60));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        connectionProvider.dispose();
+
+        assertThat(statuses).hasSize(CONCURRENT_SEARCHES).containsOnly(200);
+        assertThat(maxInFlight.get()).isGreaterThan(SERVLET_THREADS * 4);
+        // Blocking handlers would need CONCURRENT_SEARCHES / SERVLET_THREADS sequential upstream round trips
+        assertThat(elapsedMs).isLessThan(CONCURRENT_SEARCHES / SERVLET_THREADS * UPSTREAM_LATENCY_MS / 2);
+    }
+
+    private static HttpServer startGitHubStub() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), CONCURRENT_SEARCHES);
+            server.createContext("/search/repositories", SearchConcurrencyTest::handleSearch);
+            server.setExecutor(stubExecutor);
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start GitHub stub", e);
+        }
+    }
+
+    private static void handleSearch(HttpExchange exchange) throws IOException {
+        int current = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(current, Math::max);
+        try {
+            Thread.sleep(UPSTREAM_LATENCY_MS);
+            long id = nextId.incrementAndGet();
+            byte[] body = ("{\"total_count\":1,\"incomplete_results\":false,\"items\":[{\"id\":" + id +
+                    ",\"name\":\"repo-" + id + "\",\"language\":\"Java\",\"stargazers_count\":1," +
+                    "\"forks_count\":1,\"updated_at\":\"2024-01-01T10:00:00Z\",\"owner\":{\"login\":\"o\"}}]}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.repositorysearcher.benchmark;
+
+/**
+ * Builds GitHub search responses shaped like the real API: full repository
+ * objects with their owner, license and URL fields, of which we keep only a few.
+ */
+public final class GitHubPayloads {
+
+    private static final String[] LANGUAGES = {"Java", "Kotlin", "Go", "Rust", "TypeScript", "Python"};
+
+    private GitHubPayloads() {
+    }
+
+    public static String searchPage(int items) {
+        return searchPage(items, 1_000_000L);
+    }
+
+    /**
+     * A page whose repositories have consecutive ids starting at {@code firstId}.
+     */
+    public static String searchPage(int items, long firstId) {
+        StringBuilder json = new StringBuilder(items * 6_000);
+        json.append("{\"total_count\":").append(items * 10)
+                .append(",\"incomplete_results\":false,\"items\":[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendRepository(json, firstId + i);
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void appendRepository(StringBuilder json, long id) {
+        String owner = "owner-" + (id % 97);
+        String name = "repo-" + id;
+        String fullName = owner + "/" + name;
+        String api = "https://api.github.com/repos/" + fullName;
+
+        json.append('{')
+                .append("\"id\":").append(id).append(',')
+                .append("\"node_id\":\"MDEwOlJlcG9zaXRvcnk").append(id).append("\",")
+                .append("\"name\":\"").append(name).append("\",")
+                .append("\"full_name\":\"").append(fullName).append("\",")
+                .append("\"private\":false,")
+                .append("\"owner\":");
+        appendOwner(json, owner, id % 97);
+        json.append(",\"html_url\":\"https://github.com/").append(fullName).append("\",")
+                .append("\"description\":\"Sample repository ").append(id)
+                .append(" used to measure how search responses are decoded\",")
+                .append("\"fork\":false,")
+                .append("\"url\":\"").append(api).append("\",");
+        for (String link : new String[]{"forks", "keys", "collaborators", "teams", "hooks", "issue_events",
+                "events", "assignees", "branches", "tags", "blobs", "git_tags", "git_refs", "trees", "statuses",
+                "languages", "stargazers", "contributors", "subscribers", "subscription", "commits", "git_commits",
+                "comments", "issue_comment", "contents", "compare", "merges", "archive", "downloads", "issues",
+                "pulls", "milestones", "notifications", "labels", "releases", "deployments"}) {
+            json.append("\"").append(link).append("_url\":\"").append(api).append('/').append(link).append("\",");
+        }
+        json.append("\"created_at\":\"2015-03-01T08:00:00Z\",")
+                .append("\"updated_at\":\"2024-01-").append(String.format("%02d", id % 28 + 1)).append("T10:00:00Z\",")
+                .append("\"pushed_at\":\"2024-01-02T10:00:00Z\",")
+                .append("\"git_url\":\"git://github.com/").append(fullName).append(".git\",")
+                .append("\"ssh_url\":\"git@github.com:").append(fullName).append(".git\",")
+                .append("\"clone_url\":\"https://github.com/").append(fullName).append(".git\",")
+                .append("\"svn_url\":\"https://github.com/").append(fullName).append("\",")
+                .append("\"homepage\":null,")
+                .append("\"size\":").append(id % 50_000).append(',')
+                .append("\"stargazers_count\":").append(id % 100_000).append(',')
+                .append("\"watchers_count\":").append(id % 100_000).append(',')
+                .append("\"language\":\"").append(LANGUAGES[(int) (id % LANGUAGES.length)]).append("\",")
+                .append("\"has_issues\":true,\"has_projects\":true,\"has_downloads\":true,")
+                .append("\"has_wiki\":true,\"has_pages\":false,\"has_discussions\":false,")
+                .append("\"forks_count\":").append(id % 10_000).append(',')
+                .append("\"mirror_url\":null,\"archived\":false,\"disabled\":false,")
+                .append("\"open_issues_count\":").append(id % 300).append(',')
+                .append("\"license\":{\"key\":\"apache-2.0\",\"name\":\"Apache License 2.0\",")
+                .append("\"spdx_id\":\"Apache-2.0\",\"url\":\"https://api.github.com/licenses/apache-2.0\",")
+                .append("\"node_id\":\"MDc6TGljZW5zZTI=\"},")
+                .append("\"allow_forking\":true,\"is_template\":false,\"web_commit_signoff_required\":false,")
+                .append("\"topics\":[\"search\",\"github\",\"sample\"],")
+                .append("\"visibility\":\"public\",\"forks\":").append(id % 10_000).append(',')
+                .append("\"open_issues\":").append(id % 300).append(',')
+                .append("\"watchers\":").append(id % 100_000).append(',')
+                .append("\"default_branch\":\"main\",\"score\":1.0")
+                .append('}');
+    }
+
+    private static void appendOwner(StringBuilder json, String login, long id) {
+        String api = "https://api.github.com/users/" + login;
+        json.append('{')
+                .append("\"login\":\"").append(login).append("\",")
+                .append("\"id\":").append(id).append(',')
+                .append("\"node_id\":\"MDQ6VXNlcj").append(id).append("\",")
+                .append("\"avatar_url\":\"https://avatars.githubusercontent.com/u/").append(id).append("?v=4\",")
+                .append("\"gravatar_id\":\"\",")
+                .append("\"url\":\"").append(api).append("\",")
+                .append("\"html_url\":\"https://github.com/").append(login).append("\",");
+        for (String link : new String[]{"followers", "following", "gists", "starred", "subscriptions",
+                "organizations", "repos", "events", "received_events"}) {
+            json.append("\"").append(link).append("_url\":\"").append(api).append('/').append(link).append("\",");
+        }
+        json.append("\"type\":\"User\",\"site_admin\":false}");
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.repositorysearcher.benchmark;
+
+import com.github.repositorysearcher.dto.GitHubSearchResult;
+import com.github.repositorysearcher.service.GitHubSearchResponseParser;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the meters on the hot paths, measured against the work they wrap: decoding
+ * a 30-item search page, bare and with the decode timer and result-size summary,
+ * plus a tagged timer built on every call against one looked up from a cache, as
+ * page reads do now. Runs on four threads so the meters are contended.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="MetricsOverhead"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    private static final String[] SORTS = {"stars", "forks", "updated"};
+
+    private byte[] payload;
+    private GitHubSearchResponseParser parser;
+    private PrometheusMeterRegistry registry;
+    private Timer decodeTimer;
+    private DistributionSummary searchResults;
+    private Map<String, Timer> queryTimers;
+
+    @Setup
+    public void setUp() {
+        payload = GitHubPayloads.searchPage(30).getBytes(StandardCharsets.UTF_8);
+        parser = new GitHubSearchResponseParser();
+        registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        decodeTimer = Timer.builder("github.api.decode").publishPercentileHistogram().register(registry);
+        searchResults = DistributionSummary.builder("github.search.results").publishPercentileHistogram()
+                .register(registry);
+        queryTimers = new ConcurrentHashMap<>();
+    }
+
+    @Benchmark
+    public GitHubSearchResult decode() throws IOException {
+        return parser.parse(payload);
+    }
+
+    @Benchmark
+    public GitHubSearchResult decodeTimed() throws IOException {
+        long start = System.nanoTime();
+        GitHubSearchResult result = parser.parse(payload);
+        decodeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        searchResults.record(result.getRepositories().size());
+        return result;
+    }
+
+    @Benchmark
+    public void taggedTimerLookup() {
+        String sort = SORTS[ThreadLocalRandom.current().nextInt(SORTS.length)];
+        Timer.builder("repositories.query")
+                .tag("sort", sort)
+                .tag("source", "index")
+                .tag("language_filter", "false")
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(1_000, TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    public void cachedTaggedTimer() {
+        String sort = SORTS[ThreadLocalRandom.current().nextInt(SORTS.length)];
+        queryTimers.computeIfAbsent(sort, tag -> Timer.builder("repositories.query")
+                        .tag("sort", tag)
+                        .tag("source", "index")
+                        .tag("language_filter", "false")
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(1_000, TimeUnit.NANOSECONDS);
+    }
+}
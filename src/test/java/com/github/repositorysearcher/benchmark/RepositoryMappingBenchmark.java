@@ -0,0 +1,100 @@
+package com.github.repositorysearcher.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.repositorysearcher.dto.ApiResponse;
+import com.github.repositorysearcher.dto.GitHubSearchRequest;
+import com.github.repositorysearcher.dto.RepositoryDto;
+import com.github.repositorysearcher.entity.Repository;
+import com.github.repositorysearcher.service.GitHubApiService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-batch cost of the mapping steps around a search: hashing decoded entities,
+ * mapping them to DTOs, serializing a page response and building GitHub query
+ * strings. Decoding itself is covered by {@link SearchResponseDecodingBenchmark}.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="RepositoryMapping"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class RepositoryMappingBenchmark {
+
+    private static final String[] LANGUAGES = {"Java", "Kotlin", "Go", "Rust", "TypeScript", "Python", null};
+
+    @Param({"30", "100", "1000", "100000"})
+    private int batch;
+
+    private List<Repository> repositories;
+    private List<RepositoryDto> dtos;
+    private List<GitHubSearchRequest> requests;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        repositories = new ArrayList<>(batch);
+        requests = new ArrayList<>(batch);
+        LocalDateTime updated = LocalDateTime.of(2024, 1, 1, 10, 0);
+        for (int i = 0; i < batch; i++) {
+            String language = LANGUAGES[i % LANGUAGES.length];
+            repositories.add(new Repository(1_000_000L + i, "repo-" + i,
+                    "Sample repository " + i + " used to measure mapping", "owner-" + (i % 97), language,
+                    i % 100_000, i % 10_000, updated.plusMinutes(i)));
+            requests.add(new GitHubSearchRequest("spring boot " + (i % 50), language, "stars"));
+        }
+        dtos = repositories.stream().map(RepositoryDto::new).toList();
+        // Configured like the Spring Boot ObjectMapper used by the controllers
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    @Benchmark
+    public void contentHashes(Blackhole blackhole) {
+        for (Repository repository : repositories) {
+            blackhole.consume(repository.computeContentHash());
+        }
+    }
+
+    @Benchmark
+    public List<RepositoryDto> toDtos() {
+        List<RepositoryDto> result = new ArrayList<>(repositories.size());
+        for (Repository repository : repositories) {
+            result.add(new RepositoryDto(repository));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public byte[] serializeRepositoriesResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(new ApiResponse.RepositoriesResponse(dtos, "next-cursor"));
+    }
+
+    @Benchmark
+    public void buildQueryStrings(Blackhole blackhole) {
+        for (GitHubSearchRequest request : requests) {
+            blackhole.consume(GitHubApiService.buildQueryString(request));
+        }
+    }
+}
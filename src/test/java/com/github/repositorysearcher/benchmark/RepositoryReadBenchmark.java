@@ -0,0 +1,122 @@
+package com.github.repositorysearcher.benchmark;
+
+import com.github.repositorysearcher.dto.RepositoryDto;
+import com.github.repositorysearcher.entity.Repository;
+import com.github.repositorysearcher.repository.RepositoryRepositoryImpl;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of reading a page of stored repositories into DTOs: the former path, which
+ * hydrated managed entities from {@code SELECT *} in a read-only persistence context
+ * and copied them, against the JDBC projection that {@code findPage} uses now.
+ * Compare {@code gc.alloc.rate.norm} for the allocation per read.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="RepositoryRead"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class RepositoryReadBenchmark {
+
+    private static final String[] LANGUAGES = {"Java", "Kotlin", "Go", "Rust", "TypeScript", "Python", null};
+
+    private static final String ENTITY_PAGE_SQL =
+            "SELECT * FROM repositories r ORDER BY r.stars_count DESC, r.repository_id DESC LIMIT :limit";
+
+    @Param({"100", "10000"})
+    private int rows;
+
+    private SingleConnectionDataSource dataSource;
+    private LocalContainerEntityManagerFactoryBean entityManagerFactoryBean;
+    private EntityManagerFactory entityManagerFactory;
+    private RepositoryRepositoryImpl repositoryRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:read-benchmark;DB_CLOSE_DELAY=-1",
+                "sa", "", true);
+
+        // Creates the schema from the entity, as ddl-auto does for the application
+        entityManagerFactoryBean = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactoryBean.setDataSource(dataSource);
+        entityManagerFactoryBean.setPackagesToScan("com.github.repositorysearcher.entity");
+        entityManagerFactoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactoryBean.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create-drop"));
+        entityManagerFactoryBean.afterPropertiesSet();
+        entityManagerFactory = entityManagerFactoryBean.getObject();
+
+        repositoryRepository = new RepositoryRepositoryImpl(new JdbcTemplate(dataSource), 500, 1000);
+        List<Repository> repositories = new ArrayList<>(rows);
+        LocalDateTime updated = LocalDateTime.of(2024, 1, 1, 10, 0);
+        for (int i = 0; i < rows; i++) {
+            repositories.add(new Repository(1_000_000L + i, "repo-" + i,
+                    "Sample repository " + i + " with a description of typical length, used to measure reads",
+                    "owner-" + (i % 97), LANGUAGES[i % LANGUAGES.length], i % 100_000, i % 10_000,
+                    updated.plusMinutes(i)));
+        }
+        repositoryRepository.upsertAll(repositories);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManagerFactoryBean.destroy();
+        dataSource.destroy();
+    }
+
+    /**
+     * What {@code getRepositories} did before: managed entities, then a copy per row.
+     */
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public List<RepositoryDto> entitiesThenDtos() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            // As @Transactional(readOnly = true) sets up the session
+            entityManager.unwrap(Session.class).setDefaultReadOnly(true);
+            List<Repository> entities = entityManager.createNativeQuery(ENTITY_PAGE_SQL, Repository.class)
+                    .setParameter("limit", rows)
+                    .getResultList();
+            List<RepositoryDto> dtos = new ArrayList<>(entities.size());
+            for (Repository repository : entities) {
+                dtos.add(new RepositoryDto(repository));
+            }
+            entityManager.getTransaction().commit();
+            return dtos;
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Benchmark
+    public List<RepositoryDto> jdbcProjection() {
+        return repositoryRepository.findPage(null, null, "stars", null, rows);
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.repositorysearcher.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.repositorysearcher.dto.GitHubApiResponse;
+import com.github.repositorysearcher.dto.GitHubSearchResult;
+import com.github.repositorysearcher.entity.Repository;
+import com.github.repositorysearcher.service.GitHubSearchResponseParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares decoding a GitHub search page by binding {@link GitHubApiResponse} and
+ * copying it into entities (the previous path) with the streaming parser.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="SearchResponseDecoding"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchResponseDecodingBenchmark {
+
+    @Param({"30", "100"})
+    private int items;
+
+    private byte[] payload;
+    private ObjectMapper objectMapper;
+    private GitHubSearchResponseParser parser;
+
+    @Setup
+    public void setUp() {
+        payload = GitHubPayloads.searchPage(items).getBytes(StandardCharsets.UTF_8);
+        // Configured like the Spring Boot ObjectMapper used by WebClient
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        parser = new GitHubSearchResponseParser();
+    }
+
+    @Benchmark
+    public List<Repository> bindThenConvert() throws IOException {
+        GitHubApiResponse response = objectMapper.readValue(payload, GitHubApiResponse.class);
+        return response.getItems().stream()
+                .map(SearchResponseDecodingBenchmark::toEntity)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Repository> streamingParse() throws IOException {
+        GitHubSearchResult result = parser.parse(payload);
+        return result.getRepositories();
+    }
+
+    private static Repository toEntity(GitHubApiResponse.GitHubRepository githubRepo) {
+        Repository repository = new Repository();
+        repository.setRepositoryId(githubRepo.getId());
+        repository.setName(githubRepo.getName());
+        repository.setDescription(githubRepo.getDescription());
+        repository.setOwnerName(githubRepo.getOwner() != null ? githubRepo.getOwner().getLogin() : "Unknown");
+        repository.setProgrammingLanguage(githubRepo.getLanguage());
+        repository.setStarsCount(githubRepo.getStargazersCount() != null ? githubRepo.getStargazersCount() : 0);
+        repository.setForksCount(githubRepo.getForksCount() != null ? githubRepo.getForksCount() : 0);
+        repository.setLastUpdatedDate(githubRepo.getUpdatedAt());
+        return repository;
+    }
+}
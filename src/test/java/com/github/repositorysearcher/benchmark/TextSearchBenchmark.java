@@ -0,0 +1,70 @@
+package com.github.repositorysearcher.benchmark;
+
+import com.github.repositorysearcher.index.InvertedIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of the full-text index over synthetic repositories whose words
+ * follow a skewed (Zipf-like) distribution, so common terms have long postings.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Djmh.args="TextSearch"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class TextSearchBenchmark {
+
+    private static final int VOCABULARY = 5_000;
+
+    @Param({"100000", "1000000"})
+    private int documents;
+
+    private InvertedIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        index = new InvertedIndex();
+        for (long id = 1; id <= documents; id++) {
+            index.put(id, word(random) + "-" + word(random), "owner" + random.nextInt(50_000),
+                    word(random) + " " + word(random) + " " + word(random) + " " + word(random) + " " + word(random));
+        }
+    }
+
+    @Benchmark
+    public List<InvertedIndex.Hit> commonTerm() {
+        return index.search("w0", 30);
+    }
+
+    @Benchmark
+    public List<InvertedIndex.Hit> twoTerms() {
+        return index.search("w3 w40", 30);
+    }
+
+    @Benchmark
+    public List<InvertedIndex.Hit> rareTerm() {
+        return index.search("w4321", 30);
+    }
+
+    // Rank r is drawn with probability roughly proportional to 1 / (r + 1)
+    private static String word(Random random) {
+        int rank = (int) Math.floor(Math.exp(random.nextDouble() * Math.log(VOCABULARY + 1))) - 1;
+        return "w" + rank;
+    }
+}
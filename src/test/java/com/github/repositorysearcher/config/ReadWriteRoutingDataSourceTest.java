@@ -0,0 +1,204 @@
+package com.github.repositorysearcher.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes between embedded H2 databases that each know their own name.
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private ReadWriteRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransactionTemplate;
+    private TransactionTemplate transactionTemplate;
+    private SwitchableDataSource secondReplica;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("primary");
+        secondReplica = new SwitchableDataSource(database("replica-b"));
+        routingDataSource = new ReadWriteRoutingDataSource(primary, List.of(database("replica-a"), secondReplica), 1);
+        DataSource dataSource = new ReadRoutingDataSourceConfig().dataSource(routingDataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadWriteRoutingDataSource.setPrimaryRequired(false);
+    }
+
+    @Test
+    void getConnection_ShouldUsePrimary_ForWritesAndReadsOutsideReadOnlyTransactions() {
+        // Act
+        String inTransaction = transactionTemplate.execute(status -> database());
+        String withoutTransaction = database();
+
+        // Assert
+        assertThat(inTransaction).isEqualTo("primary");
+        assertThat(withoutTransaction).isEqualTo("primary");
+        assertThat(routingDataSource.getReplicaConnectionCount()).isZero();
+    }
+
+    @Test
+    void getConnection_ShouldSpreadReadOnlyTransactionsOverReplicas() {
+        // Act
+        List<String> reads = List.of(readOnly(), readOnly(), readOnly(), readOnly());
+
+        // Assert
+        assertThat(reads).containsExactly("replica-a", "replica-b", "replica-a", "replica-b");
+        assertThat(routingDataSource.getPrimaryConnectionCount()).isZero();
+    }
+
+    @Test
+    void getConnection_ShouldEjectReplica_WhenItFailsAndReadmitItAfterHealthCheck() {
+        // Arrange
+        secondReplica.down = true;
+
+        // Act
+        List<String> whileDown = List.of(readOnly(), readOnly(), readOnly());
+        secondReplica.down = false;
+        routingDataSource.checkReplicas();
+        List<String> afterRecovery = List.of(readOnly(), readOnly());
+
+        // Assert
+        assertThat(whileDown).containsExactly("replica-a", "primary", "replica-a");
+        assertThat(routingDataSource.getEjectionCount()).isEqualTo(1);
+        assertThat(afterRecovery).containsExactlyInAnyOrder("replica-a", "replica-b");
+        assertThat(routingDataSource.getHealthyReplicaCount()).isEqualTo(2);
+    }
+
+    @Test
+    void checkReplicas_ShouldEjectReplica_WhenHealthCheckFails() {
+        // Arrange
+        secondReplica.down = true;
+
+        // Act
+        routingDataSource.checkReplicas();
+        List<String> reads = List.of(readOnly(), readOnly());
+
+        // Assert
+        assertThat(routingDataSource.getHealthyReplicaCount()).isEqualTo(1);
+        assertThat(reads).containsOnly("replica-a");
+    }
+
+    @Test
+    void getConnection_ShouldUsePrimaryForReads_WithinClientsReadYourWritesWindow() throws Exception {
+        // Arrange
+        ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor("X-Client-Id", Duration.ofMinutes(1), 100);
+        MockHttpServletRequest search = request("POST", "client-1");
+        interceptor.preHandle(search, new MockHttpServletResponse(), null);
+        interceptor.afterCompletion(search, new MockHttpServletResponse(), null, null);
+
+        // Act
+        MockHttpServletRequest ownRead = request("GET", "client-1");
+        interceptor.preHandle(ownRead, new MockHttpServletResponse(), null);
+        String ownReadDatabase = readOnly();
+        interceptor.afterCompletion(ownRead, new MockHttpServletResponse(), null, null);
+
+        MockHttpServletRequest otherRead = request("GET", "client-2");
+        interceptor.preHandle(otherRead, new MockHttpServletResponse(), null);
+        String otherReadDatabase = readOnly();
+        interceptor.afterCompletion(otherRead, new MockHttpServletResponse(), null, null);
+
+        // Assert
+        assertThat(ownReadDatabase).isEqualTo("primary");
+        assertThat(otherReadDatabase).startsWith("replica");
+    }
+
+    @Test
+    void pollReplicaRead_ShouldTellWhetherTheLastReadsUsedAReplica() {
+        // Act
+        readOnly();
+        boolean afterReplicaRead = ReadWriteRoutingDataSource.pollReplicaRead();
+        boolean polledAgain = ReadWriteRoutingDataSource.pollReplicaRead();
+        database();
+        boolean afterPrimaryRead = ReadWriteRoutingDataSource.pollReplicaRead();
+
+        // Assert
+        assertThat(afterReplicaRead).isTrue();
+        assertThat(polledAgain).isFalse();
+        assertThat(afterPrimaryRead).isFalse();
+    }
+
+    @Test
+    void wroteRecently_ShouldExpire_AfterWindow() throws Exception {
+        // Arrange
+        ReadYourWritesInterceptor interceptor = new ReadYourWritesInterceptor("X-Client-Id", Duration.ofMillis(20), 100);
+        interceptor.recordWrite("client-1");
+
+        // Act
+        boolean during = interceptor.wroteRecently("client-1");
+        Thread.sleep(50);
+        boolean after = interceptor.wroteRecently("client-1");
+
+        // Assert
+        assertThat(during).isTrue();
+        assertThat(after).isFalse();
+    }
+
+    private String readOnly() {
+        return readOnlyTransactionTemplate.execute(status -> database());
+    }
+
+    private String database() {
+        return jdbcTemplate.queryForObject("SELECT name FROM origin", String.class);
+    }
+
+    private static MockHttpServletRequest request(String method, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/api/github/search");
+        request.addHeader("X-Client-Id", client);
+        return request;
+    }
+
+    private static DataSource database(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("DROP TABLE IF EXISTS origin");
+        setup.execute("CREATE TABLE origin (name VARCHAR(32))");
+        setup.update("INSERT INTO origin (name) VALUES (?)", name);
+        return dataSource;
+    }
+
+    /**
+     * A replica that can be taken down and brought back.
+     */
+    private static final class SwitchableDataSource extends DelegatingDataSource {
+
+        private volatile boolean down;
+
+        SwitchableDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("Connection refused");
+            }
+            return super.getConnection();
+        }
+    }
+}
@@ -1,21 +1,41 @@
 package com.github.repositorysearcher.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.repositorysearcher.dto.BatchSearchRequest;
+import com.github.repositorysearcher.dto.BatchSearchResult;
 import com.github.repositorysearcher.dto.GitHubSearchRequest;
+import com.github.repositorysearcher.dto.LanguageStats;
 import com.github.repositorysearcher.dto.RepositoryDto;
+import com.github.repositorysearcher.dto.RepositoryPage;
+import com.github.repositorysearcher.dto.RepositoryStats;
+import com.github.repositorysearcher.dto.SearchQueryStatus;
+import com.github.repositorysearcher.dto.SearchResults;
+import com.github.repositorysearcher.entity.SearchQuery;
+import com.github.repositorysearcher.exception.RateLimitExceededException;
+import com.github.repositorysearcher.exception.SearchIndexUnavailableException;
 import com.github.repositorysearcher.service.RepositoryService;
+import com.github.repositorysearcher.service.SearchResyncService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -32,6 +52,9 @@ class GitHubControllerTest {
     @MockBean
     private RepositoryService repositoryService;
 
+    @MockBean
+    private SearchResyncService searchResyncService;
+
     @Test
     void searchRepositories_ShouldReturnRepositories_WhenValidRequest() throws Exception {
         // Arrange
@@ -40,12 +63,16 @@ class GitHubControllerTest {
                 "spring-projects", "Java", 1000, 500, LocalDateTime.now());
         
         when(repositoryService.searchAndSaveRepositories(any(GitHubSearchRequest.class)))
-                .thenReturn(List.of(repositoryDto));
+                .thenReturn(Mono.just(SearchResults.fetched(List.of(repositoryDto), LocalDateTime.now())));
 
         // Act & Assert
-        mockMvc.perform(post("/api/github/search")
+        MvcResult mvcResult = mockMvc.perform(post("/api/github/search")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.message").value("Repositories fetched and saved successfully"))
                 .andExpect(jsonPath("$.repositories").isArray())
@@ -61,18 +88,49 @@ class GitHubControllerTest {
         GitHubSearchRequest request = new GitHubSearchRequest("nonexistent", "Java", "stars");
         
         when(repositoryService.searchAndSaveRepositories(any(GitHubSearchRequest.class)))
-                .thenReturn(List.of());
+                .thenReturn(Mono.just(SearchResults.fetched(List.of(), LocalDateTime.now())));
 
         // Act & Assert
-        mockMvc.perform(post("/api/github/search")
+        MvcResult mvcResult = mockMvc.perform(post("/api/github/search")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.message").value("No repositories found for the given criteria"))
                 .andExpect(jsonPath("$.repositories").isArray())
                 .andExpect(jsonPath("$.repositories").isEmpty());
     }
 
+    @Test
+    void searchRepositories_ShouldFlagStaleResults_WhenAnsweredFromSnapshot() throws Exception {
+        // Arrange
+        GitHubSearchRequest request = new GitHubSearchRequest("spring", "Java", "stars");
+        RepositoryDto repositoryDto = new RepositoryDto(123456L, "spring-boot", "Spring Boot framework",
+                "spring-projects", "Java", 1000, 500, LocalDateTime.now());
+
+        when(repositoryService.searchAndSaveRepositories(any(GitHubSearchRequest.class)))
+                .thenReturn(Mono.just(new SearchResults(List.of(repositoryDto), true,
+                        LocalDateTime.of(2024, 3, 5, 12, 30))));
+
+        // Act & Assert
+        MvcResult mvcResult = mockMvc.perform(post("/api/github/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stale").value(true))
+                .andExpect(jsonPath("$.fetchedAt").value("2024-03-05T12:30:00Z"))
+                .andExpect(jsonPath("$.message").value(
+                        "GitHub API is unavailable, returning repositories from an earlier search"))
+                .andExpect(jsonPath("$.repositories[0].name").value("spring-boot"));
+    }
+
     @Test
     void searchRepositories_ShouldReturnBadRequest_WhenInvalidRequest() throws Exception {
         // Arrange
@@ -85,14 +143,76 @@ class GitHubControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    void searchRepositories_ShouldReturnTooManyRequests_WhenRateLimitBudgetIsExhausted() throws Exception {
+        // Arrange
+        GitHubSearchRequest request = new GitHubSearchRequest("spring", "Java", "stars");
+
+        when(repositoryService.searchAndSaveRepositories(any(GitHubSearchRequest.class)))
+                .thenReturn(Mono.error(new RateLimitExceededException("GitHub API rate limit exceeded",
+                        Duration.ofMillis(2500))));
+
+        // Act & Assert
+        MvcResult mvcResult = mockMvc.perform(post("/api/github/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "3"))
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    void searchRepositoriesBatch_ShouldReturnPerSearchResults() throws Exception {
+        // Arrange
+        BatchSearchRequest request = new BatchSearchRequest(List.of(
+                new GitHubSearchRequest("spring", "Java", "stars"),
+                new GitHubSearchRequest("broken", null, "stars")));
+        BatchSearchResult result = new BatchSearchResult(2, 1, 1, 1, 0, 0, List.of(
+                new BatchSearchResult.SearchResult("spring", "java", "stars", true, 1, null),
+                new BatchSearchResult.SearchResult("broken", null, "stars", false, 0, "GitHub API error")));
+        when(repositoryService.searchAndSaveBatch(request.getSearches())).thenReturn(Mono.just(result));
+
+        // Act & Assert
+        MvcResult mvcResult = mockMvc.perform(post("/api/github/search/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.failedSearches").value(1))
+                .andExpect(jsonPath("$.results[0].success").value(true))
+                .andExpect(jsonPath("$.results[1].success").value(false))
+                .andExpect(jsonPath("$.results[1].error").value("GitHub API error"));
+    }
+
+    @Test
+    void searchRepositoriesBatch_ShouldReturnBadRequest_WhenASearchIsInvalid() throws Exception {
+        // Arrange
+        BatchSearchRequest request = new BatchSearchRequest(List.of(
+                new GitHubSearchRequest("spring", "Java", "stars"),
+                new GitHubSearchRequest("", "Java", "invalid")));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/github/search/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void getRepositories_ShouldReturnRepositories_WhenNoFilters() throws Exception {
         // Arrange
         RepositoryDto repositoryDto = new RepositoryDto(123456L, "spring-boot", "Spring Boot framework",
                 "spring-projects", "Java", 1000, 500, LocalDateTime.now());
         
-        when(repositoryService.getRepositories(null, null, "stars"))
-                .thenReturn(List.of(repositoryDto));
+        when(repositoryService.getRepositories(null, null, "stars", null, null))
+                .thenReturn(new RepositoryPage(List.of(repositoryDto), null));
 
         // Act & Assert
         mockMvc.perform(get("/api/github/repositories"))
@@ -107,8 +227,8 @@ class GitHubControllerTest {
         RepositoryDto repositoryDto = new RepositoryDto(123456L, "spring-boot", "Spring Boot framework",
                 "spring-projects", "Java", 1000, 500, LocalDateTime.now());
         
-        when(repositoryService.getRepositories("Java", 100, "stars"))
-                .thenReturn(List.of(repositoryDto));
+        when(repositoryService.getRepositories("Java", 100, "stars", null, null))
+                .thenReturn(new RepositoryPage(List.of(repositoryDto), null));
 
         // Act & Assert
         mockMvc.perform(get("/api/github/repositories")
@@ -124,8 +244,8 @@ class GitHubControllerTest {
     @Test
     void getRepositories_ShouldReturnEmptyArray_WhenNoRepositoriesFound() throws Exception {
         // Arrange
-        when(repositoryService.getRepositories("NonExistentLanguage", 10000, "stars"))
-                .thenReturn(List.of());
+        when(repositoryService.getRepositories("NonExistentLanguage", 10000, "stars", null, null))
+                .thenReturn(new RepositoryPage(List.of(), null));
 
         // Act & Assert
         mockMvc.perform(get("/api/github/repositories")
@@ -135,4 +255,212 @@ class GitHubControllerTest {
                 .andExpect(jsonPath("$.repositories").isArray())
                 .andExpect(jsonPath("$.repositories").isEmpty());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void getRepositories_ShouldReturnNextCursor_WhenMorePagesAvailable() throws Exception {
+        // Arrange
+        RepositoryDto repositoryDto = new RepositoryDto(123456L, "spring-boot", "Spring Boot framework",
+                "spring-projects", "Java", 1000, 500, LocalDateTime.now());
+
+        when(repositoryService.getRepositories(null, null, "forks", 1, "abc"))
+                .thenReturn(new RepositoryPage(List.of(repositoryDto), "def"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/github/repositories")
+                        .param("sort", "forks")
+                        .param("limit", "1")
+                        .param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.repositories[0].name").value("spring-boot"))
+                .andExpect(jsonPath("$.next").value("def"));
+    }
+
+    @Test
+    void getRepositories_ShouldReturnBadRequest_WhenCursorIsInvalid() throws Exception {
+        // Arrange
+        when(repositoryService.getRepositories(null, null, "stars", null, "garbage"))
+                .thenThrow(new IllegalArgumentException("Malformed cursor"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/github/repositories")
+                        .param("cursor", "garbage"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getRepositories_ShouldReturnETagForDataVersionAndFilters() throws Exception {
+        // Arrange
+        when(repositoryService.getDataVersion()).thenReturn(42L);
+        when(repositoryService.getRepositories(any(), any(), any(), any(), any()))
+                .thenReturn(new RepositoryPage(List.of(), null));
+
+        // Act
+        String javaTag = mockMvc.perform(get("/api/github/repositories").param("language", "Java"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+        String goTag = mockMvc.perform(get("/api/github/repositories").param("language", "Go"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Assert
+        assertThat(javaTag).startsWith("W/\"2a-");
+        assertThat(goTag).startsWith("W/\"2a-").isNotEqualTo(javaTag);
+    }
+
+    @Test
+    void getRepositories_ShouldReturnNotModifiedWithoutQuerying_WhenETagMatches() throws Exception {
+        // Arrange
+        when(repositoryService.getDataVersion()).thenReturn(42L);
+        when(repositoryService.getRepositories("Java", null, "stars", null, null))
+                .thenReturn(new RepositoryPage(List.of(), null));
+        String etag = mockMvc.perform(get("/api/github/repositories").param("language", "Java"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert
+        mockMvc.perform(get("/api/github/repositories")
+                        .param("language", "Java")
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+        verify(repositoryService, times(1)).getRepositories("Java", null, "stars", null, null);
+    }
+
+    @Test
+    void getRepositories_ShouldReturnFreshPage_WhenDataVersionChanged() throws Exception {
+        // Arrange
+        RepositoryDto repositoryDto = new RepositoryDto(123456L, "spring-boot", "Spring Boot framework",
+                "spring-projects", "Java", 1000, 500, LocalDateTime.now());
+        when(repositoryService.getDataVersion()).thenReturn(42L, 43L);
+        when(repositoryService.getRepositories(null, null, "stars", null, null))
+                .thenReturn(new RepositoryPage(List.of(repositoryDto), null));
+        String etag = mockMvc.perform(get("/api/github/repositories"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // Act & Assert
+        mockMvc.perform(get("/api/github/repositories")
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$.repositories[0].name").value("spring-boot"));
+    }
+
+    @Test
+    void getRepositories_ShouldOmitETag_WhenPageWasReadFromALaggingReplica() throws Exception {
+        // Arrange
+        when(repositoryService.getDataVersion()).thenReturn(42L);
+        when(repositoryService.mayReplicasLag()).thenReturn(true);
+        when(repositoryService.getRepositories(null, null, "stars", null, null))
+                .thenReturn(new RepositoryPage(List.of(), null, true));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/github/repositories"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    @Test
+    void getRepositories_ShouldTagPrimaryPage_WhileReplicasMayLag() throws Exception {
+        // Arrange
+        when(repositoryService.getDataVersion()).thenReturn(42L);
+        when(repositoryService.mayReplicasLag()).thenReturn(true);
+        when(repositoryService.getRepositories(null, null, "stars", null, null))
+                .thenReturn(new RepositoryPage(List.of(), null, false));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/github/repositories"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("W/\"2a-")));
+        verify(repositoryService, times(1)).getRepositories(null, null, "stars", null, null);
+    }
+
+    @Test
+    void searchStoredRepositories_ShouldReturnRankedRepositories() throws Exception {
+        // Arrange
+        RepositoryDto repositoryDto = new RepositoryDto(123456L, "spring-boot", "Spring Boot framework",
+                "spring-projects", "Java", 1000, 500, LocalDateTime.now());
+        when(repositoryService.searchStoredRepositories("spring boot", 5)).thenReturn(List.of(repositoryDto));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/github/repositories/search")
+                        .param("q", "spring boot")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.query").value("spring boot"))
+                .andExpect(jsonPath("$.repositories[0].name").value("spring-boot"));
+    }
+
+    @Test
+    void searchStoredRepositories_ShouldReturnBadRequest_WhenQueryIsMissing() throws Exception {
+        // Arrange
+        when(repositoryService.searchStoredRepositories(null, null))
+                .thenThrow(new IllegalArgumentException("q must not be blank"));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/github/repositories/search"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchStoredRepositories_ShouldReturnServiceUnavailable_WhenIndexIsNotReady() throws Exception {
+        // Arrange
+        when(repositoryService.searchStoredRepositories("spring", null))
+                .thenThrow(new SearchIndexUnavailableException("Text search is not available yet. Please try again later."));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/github/repositories/search")
+                        .param("q", "spring"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    void getStats_ShouldReturnTotalsAndLanguages() throws Exception {
+        // Arrange
+        LanguageStats java = new LanguageStats("Java", 2, 1500, 750.0, 500, 1000, 1000,
+                List.of(new LanguageStats.TopRepository(123456L, "spring-boot", "spring-projects", 1000)));
+        when(repositoryService.getRepositoryStats(3)).thenReturn(new RepositoryStats(java, List.of(java)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/github/stats").param("top", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total.repositories").value(2))
+                .andExpect(jsonPath("$.languages[0].language").value("Java"))
+                .andExpect(jsonPath("$.languages[0].averageStars").value(750.0))
+                .andExpect(jsonPath("$.languages[0].starsP90").value(1000))
+                .andExpect(jsonPath("$.languages[0].top[0].name").value("spring-boot"));
+    }
+
+    @Test
+    void getStats_ShouldReturnServiceUnavailable_WhenStatsAreNotReady() throws Exception {
+        // Arrange
+        when(repositoryService.getRepositoryStats(null))
+                .thenThrow(new SearchIndexUnavailableException("Repository stats are not available yet. Please try again later."));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/github/stats"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    void getRecordedQueries_ShouldReturnLagAndChurn() throws Exception {
+        // Arrange
+        LocalDateTime now = LocalDateTime.of(2024, 1, 2, 12, 0);
+        SearchQuery searchQuery = SearchQuery.of(new GitHubSearchRequest("spring", "java", "stars", 30), now.minusHours(2));
+        searchQuery.setSyncCount(3);
+        searchQuery.setLastSyncInserted(4);
+        searchQuery.setLastSyncUpdated(6);
+        when(searchResyncService.getQueryStatuses()).thenReturn(List.of(new SearchQueryStatus(searchQuery, now)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/github/queries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.queries[0].query").value("spring"))
+                .andExpect(jsonPath("$.queries[0].lagSeconds").value(7200))
+                .andExpect(jsonPath("$.queries[0].syncCount").value(3))
+                .andExpect(jsonPath("$.queries[0].lastSyncInserted").value(4))
+                .andExpect(jsonPath("$.queries[0].lastSyncUpdated").value(6));
+    }
+}
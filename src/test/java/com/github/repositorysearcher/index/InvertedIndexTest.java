@@ -0,0 +1,127 @@
+package com.github.repositorysearcher.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvertedIndexTest {
+
+    private final InvertedIndex index = new InvertedIndex();
+
+    @Test
+    void search_ShouldRankNameMatchesAboveDescriptionMatches() {
+        // Arrange
+        index.put(1L, "awesome-lists", "someone", "A curated list that mentions kafka once");
+        index.put(2L, "kafka", "apache", "Distributed event streaming platform");
+        index.put(3L, "spring-boot", "spring-projects", "Spring Boot framework");
+
+        // Act
+        List<InvertedIndex.Hit> hits = index.search("Kafka", 10);
+
+        // Assert
+        assertThat(hits).extracting(InvertedIndex.Hit::repositoryId).containsExactly(2L, 1L);
+        assertThat(hits.get(0).score()).isGreaterThan(hits.get(1).score());
+    }
+
+    @Test
+    void search_ShouldPreferDocumentsMatchingMoreTerms() {
+        // Arrange
+        index.put(1L, "spring-cloud", "spring-projects", "Cloud tooling");
+        index.put(2L, "SpringBoot", "someone", "Boot your app");
+        index.put(3L, "boot", "someone", "Bootloader");
+
+        // Act
+        List<InvertedIndex.Hit> hits = index.search("spring boot", 10);
+
+        // Assert
+        assertThat(hits).extracting(InvertedIndex.Hit::repositoryId).startsWith(2L).contains(1L, 3L);
+    }
+
+    @Test
+    void search_ShouldReturnTopK_WhenMoreDocumentsMatch() {
+        // Arrange
+        for (long id = 1; id <= 50; id++) {
+            index.put(id, "repo-" + id, "owner", id % 2 == 0 ? "graph database" : "graph");
+        }
+
+        // Act
+        List<InvertedIndex.Hit> hits = index.search("graph", 5);
+
+        // Assert: shorter descriptions score higher, ties go to the higher id
+        assertThat(hits).extracting(InvertedIndex.Hit::repositoryId).containsExactly(49L, 47L, 45L, 43L, 41L);
+    }
+
+    @Test
+    void put_ShouldReplaceOldText_WhenRepositoryChanges() {
+        // Arrange
+        index.put(1L, "old-name", "owner", "legacy");
+
+        // Act
+        boolean changed = index.put(1L, "new-name", "owner", "modern");
+        boolean unchanged = index.put(1L, "new-name", "owner", "modern");
+
+        // Assert
+        assertThat(changed).isTrue();
+        assertThat(unchanged).isFalse();
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("legacy", 10)).isEmpty();
+        assertThat(index.search("modern", 10)).extracting(InvertedIndex.Hit::repositoryId).containsExactly(1L);
+    }
+
+    @Test
+    void put_ShouldKeepResultsCorrect_AfterCompaction() {
+        // Arrange: enough rewrites to trigger compaction several times
+        for (int round = 0; round < 5; round++) {
+            for (long id = 1; id <= 1_000; id++) {
+                index.put(id, "repo-" + id, "owner", "round" + round);
+            }
+        }
+
+        // Act & Assert
+        assertThat(index.size()).isEqualTo(1_000);
+        assertThat(index.search("round3", 10)).isEmpty();
+        assertThat(index.search("round4", 2_000)).hasSize(1_000);
+        assertThat(index.search("repo 7", 1)).extracting(InvertedIndex.Hit::repositoryId).containsExactly(7L);
+    }
+
+    @Test
+    void search_ShouldReturnSameTopK_AsRankingEveryMatch() {
+        // Arrange: skewed words and rewrites, so terms differ widely in bounds and some documents are dead
+        Random random = new Random(42);
+        for (int round = 0; round < 3; round++) {
+            for (long id = 1; id <= 2_000; id++) {
+                index.put(id, "repo-" + word(random), "owner" + id % 17,
+                        word(random) + " " + word(random) + " " + word(random) + " " + word(random));
+            }
+        }
+
+        for (int query = 0; query < 50; query++) {
+            String text = word(random) + " " + word(random) + " " + word(random);
+
+            // Act: a limit above the number of matches never prunes
+            List<InvertedIndex.Hit> pruned = index.search(text, 10);
+            List<InvertedIndex.Hit> all = index.search(text, 10_000);
+
+            // Assert
+            assertThat(pruned).containsExactlyElementsOf(all.subList(0, Math.min(10, all.size())));
+        }
+    }
+
+    @Test
+    void search_ShouldIgnoreStopWordsAndUnknownTerms() {
+        // Arrange
+        index.put(1L, "the-repo", "owner", "The one and only");
+
+        // Act & Assert
+        assertThat(index.search("the and", 10)).isEmpty();
+        assertThat(index.search("unknown", 10)).isEmpty();
+    }
+
+    // Low word numbers are far more common, like real vocabulary
+    private static String word(Random random) {
+        return "word" + (int) Math.min(199, Math.abs(random.nextGaussian() * 30));
+    }
+}
@@ -0,0 +1,169 @@
+package com.github.repositorysearcher.index;
+
+import com.github.repositorysearcher.dto.RepositoryCursor;
+import com.github.repositorysearcher.dto.RepositoryDto;
+import com.github.repositorysearcher.entity.Repository;
+import com.github.repositorysearcher.repository.RepositoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class RepositoryReadIndexTest {
+
+    private static final String[] LANGUAGES = {"Java", "java ", "Go", "Rust", null};
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @Autowired
+    private RepositoryRepository repositoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Random random = new Random(42);
+
+    @BeforeEach
+    void setUp() {
+        repositoryRepository.deleteAll();
+        repositoryRepository.flush();
+    }
+
+    @Test
+    void findPage_ShouldMatchDatabase_AfterRebuildAndIncrementalUpserts() {
+        // Arrange
+        repositoryRepository.upsertAll(randomRepositories(1, 200));
+        RepositoryReadIndex index = new RepositoryReadIndex(jdbcTemplate, true, 1000, Runnable::run);
+        index.rebuild();
+
+        // New rows plus changed stars, forks, language and timestamps for existing ones
+        List<Repository> changes = randomRepositories(150, 260);
+        repositoryRepository.upsertAll(changes);
+        index.onRepositoriesUpserted(changes);
+
+        // Act & Assert
+        assertThat(index.size()).isEqualTo(260);
+        assertThat(index.deltaSize()).isEqualTo(111);
+        assertMatchesDatabase(index);
+    }
+
+    @Test
+    void findPage_ShouldMatchDatabase_WhileDeltaIsMergedInBackground() {
+        // Arrange
+        repositoryRepository.upsertAll(randomRepositories(1, 200));
+        List<Runnable> merges = new ArrayList<>();
+        RepositoryReadIndex index = new RepositoryReadIndex(jdbcTemplate, true, 100, merges::add);
+        index.rebuild();
+
+        List<Repository> changes = randomRepositories(150, 260);
+        repositoryRepository.upsertAll(changes);
+        index.onRepositoriesUpserted(changes);
+
+        // Act: more upserts arrive before the merge they triggered has run
+        List<Repository> duringMerge = randomRepositories(240, 300);
+        repositoryRepository.upsertAll(duringMerge);
+        index.onRepositoriesUpserted(duringMerge);
+        assertThat(merges).hasSize(1);
+        assertMatchesDatabase(index);
+        merges.remove(0).run();
+
+        // Assert
+        assertThat(merges).isEmpty();
+        assertThat(index.size()).isEqualTo(300);
+        assertThat(index.deltaSize()).isEqualTo(61);
+        assertMatchesDatabase(index);
+    }
+
+    @Test
+    void onRepositoriesUpserted_ShouldKeepLastVersion_WhenIdRepeats() {
+        // Arrange
+        RepositoryReadIndex index = new RepositoryReadIndex(jdbcTemplate, true, 1000, Runnable::run);
+        index.rebuild();
+
+        // Act
+        index.onRepositoriesUpserted(List.of(
+                new Repository(1L, "a", null, "o", "Java", 10, 1, BASE_TIME),
+                new Repository(1L, "a", null, "o", "Java", 20, 1, BASE_TIME)));
+
+        // Assert
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.findPage(null, null, "stars", null, 10))
+                .extracting(RepositoryDto::getStars).containsExactly(20);
+    }
+
+    @Test
+    void rebuild_ShouldLeaveIndexUnavailable_WhenDisabled() {
+        // Arrange
+        repositoryRepository.upsertAll(randomRepositories(1, 10));
+        RepositoryReadIndex index = new RepositoryReadIndex(jdbcTemplate, false, 1000, Runnable::run);
+
+        // Act
+        index.rebuild();
+        index.onRepositoriesUpserted(randomRepositories(11, 12));
+
+        // Assert
+        assertThat(index.isReady()).isFalse();
+        assertThatThrownBy(() -> index.findPage(null, null, "stars", null, 10))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private void assertMatchesDatabase(RepositoryReadIndex index) {
+        for (String language : Arrays.asList(null, "java", " GO", "rust", "kotlin")) {
+            for (Integer minStars : Arrays.asList(null, 0, 25)) {
+                for (String sort : List.of("stars", "forks", "updated")) {
+                    assertThat(allPages(index, language, minStars, sort))
+                            .as("language=%s minStars=%s sort=%s", language, minStars, sort)
+                            .isEqualTo(allDatabasePages(language, minStars, sort));
+                }
+            }
+        }
+    }
+
+    private List<RepositoryDto> allPages(RepositoryReadIndex index, String language, Integer minStars, String sort) {
+        List<RepositoryDto> rows = new ArrayList<>();
+        RepositoryCursor after = null;
+        List<RepositoryDto> page;
+        do {
+            page = index.findPage(language, minStars, sort, after, 7);
+            rows.addAll(page);
+            after = page.isEmpty() ? null : RepositoryCursor.after(sort, page.get(page.size() - 1));
+        } while (page.size() == 7);
+        return rows;
+    }
+
+    private List<RepositoryDto> allDatabasePages(String language, Integer minStars, String sort) {
+        List<RepositoryDto> rows = new ArrayList<>();
+        RepositoryCursor after = null;
+        List<RepositoryDto> page;
+        do {
+            page = repositoryRepository.findPage(language, minStars, sort, after, 7);
+            rows.addAll(page);
+            after = page.isEmpty() ? null : RepositoryCursor.after(sort, page.get(page.size() - 1));
+        } while (page.size() == 7);
+        return rows;
+    }
+
+    // Small value ranges so that sort values tie often and the id tie-breaker matters
+    private List<Repository> randomRepositories(long fromId, long toId) {
+        List<Repository> repositories = new ArrayList<>();
+        for (long id = fromId; id <= toId; id++) {
+            LocalDateTime updated = BASE_TIME.plusHours(random.nextInt(5)).plusNanos(random.nextInt(3) * 1_000L);
+            repositories.add(new Repository(id, "repo-" + id, random.nextBoolean() ? "Repository " + id : null,
+                    "owner-" + id % 7, LANGUAGES[random.nextInt(LANGUAGES.length)],
+                    random.nextInt(50), random.nextInt(5), updated));
+        }
+        return repositories;
+    }
+}
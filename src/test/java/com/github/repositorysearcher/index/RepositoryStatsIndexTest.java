@@ -0,0 +1,142 @@
+package com.github.repositorysearcher.index;
+
+import com.github.repositorysearcher.dto.LanguageStats;
+import com.github.repositorysearcher.dto.RepositoryStats;
+import com.github.repositorysearcher.entity.Repository;
+import com.github.repositorysearcher.repository.RepositoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class RepositoryStatsIndexTest {
+
+    private static final String[] LANGUAGES = {"Java", "Go", "Rust", null};
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    @Autowired
+    private RepositoryRepository repositoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Random random = new Random(42);
+
+    @BeforeEach
+    void setUp() {
+        repositoryRepository.deleteAll();
+        repositoryRepository.flush();
+    }
+
+    @Test
+    void snapshot_ShouldMatchRebuild_AfterIncrementalUpserts() {
+        // Arrange
+        repositoryRepository.upsertAll(randomRepositories(1, 300));
+        RepositoryStatsIndex index = new RepositoryStatsIndex(jdbcTemplate, true);
+        index.rebuild();
+
+        // New rows plus changed stars and languages for existing ones
+        List<Repository> changes = randomRepositories(200, 400);
+        repositoryRepository.upsertAll(changes);
+        index.onRepositoriesUpserted(changes);
+
+        RepositoryStatsIndex rebuilt = new RepositoryStatsIndex(jdbcTemplate, true);
+        rebuilt.rebuild();
+
+        // Act
+        RepositoryStats incremental = index.snapshot(5);
+
+        // Assert
+        assertThat(incremental).isEqualTo(rebuilt.snapshot(5));
+        assertThat(incremental.getTotal().getRepositories()).isEqualTo(400);
+    }
+
+    @Test
+    void snapshot_ShouldMatchTableAggregates() {
+        // Arrange
+        repositoryRepository.upsertAll(randomRepositories(1, 250));
+        RepositoryStatsIndex index = new RepositoryStatsIndex(jdbcTemplate, true);
+        index.rebuild();
+        Map<String, long[]> expected = new HashMap<>();
+        jdbcTemplate.query("SELECT programming_language, COUNT(*) AS n, SUM(stars_count) AS stars " +
+                        "FROM repositories GROUP BY programming_language",
+                resultSet -> {
+                    expected.put(resultSet.getString("programming_language"),
+                            new long[] {resultSet.getLong("n"), resultSet.getLong("stars")});
+                });
+        List<Long> topJava = jdbcTemplate.queryForList("SELECT repository_id FROM repositories " +
+                "WHERE programming_language = 'Java' ORDER BY stars_count DESC, repository_id LIMIT 3", Long.class);
+
+        // Act
+        RepositoryStats stats = index.snapshot(3);
+
+        // Assert
+        assertThat(stats.getLanguages()).hasSize(expected.size());
+        for (LanguageStats language : stats.getLanguages()) {
+            long[] counts = expected.get(language.getLanguage());
+            assertThat(language.getRepositories()).as(language.getLanguage()).isEqualTo(counts[0]);
+            assertThat(language.getTotalStars()).as(language.getLanguage()).isEqualTo(counts[1]);
+            assertThat(language.getStarsP50()).isLessThanOrEqualTo(language.getStarsP90());
+        }
+        LanguageStats java = stats.getLanguages().stream()
+                .filter(language -> "Java".equals(language.getLanguage())).findFirst().orElseThrow();
+        assertThat(java.getTop()).extracting(LanguageStats.TopRepository::getId).isEqualTo(topJava);
+    }
+
+    @Test
+    void onRepositoriesUpserted_ShouldMoveRepository_WhenLanguageChanges() {
+        // Arrange
+        RepositoryStatsIndex index = new RepositoryStatsIndex(jdbcTemplate, true);
+        index.rebuild();
+        index.onRepositoriesUpserted(List.of(new Repository(1L, "a", null, "o", "Java", 10, 1, BASE_TIME)));
+
+        // Act
+        index.onRepositoriesUpserted(List.of(new Repository(1L, "a", null, "o", "Kotlin", 30, 1, BASE_TIME)));
+
+        // Assert
+        RepositoryStats stats = index.snapshot(5);
+        assertThat(stats.getLanguages()).singleElement().satisfies(language -> {
+            assertThat(language.getLanguage()).isEqualTo("Kotlin");
+            assertThat(language.getTotalStars()).isEqualTo(30);
+            assertThat(language.getStarsP99()).isEqualTo(30);
+        });
+        assertThat(stats.getTotal().getTotalStars()).isEqualTo(30);
+    }
+
+    @Test
+    void snapshot_ShouldFail_WhenDisabled() {
+        // Arrange
+        repositoryRepository.upsertAll(randomRepositories(1, 10));
+        RepositoryStatsIndex index = new RepositoryStatsIndex(jdbcTemplate, false);
+
+        // Act
+        index.rebuild();
+
+        // Assert
+        assertThat(index.isReady()).isFalse();
+        assertThatThrownBy(() -> index.snapshot(5)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private List<Repository> randomRepositories(long fromId, long toId) {
+        List<Repository> repositories = new ArrayList<>();
+        for (long id = fromId; id <= toId; id++) {
+            repositories.add(new Repository(id, "repo-" + id, null, "owner-" + id % 7,
+                    LANGUAGES[random.nextInt(LANGUAGES.length)], random.nextInt(5000), random.nextInt(5), BASE_TIME));
+        }
+        return repositories;
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.repositorysearcher.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class StarsSketchTest {
+
+    private final Random random = new Random(7);
+
+    @Test
+    void quantile_ShouldStayWithinRelativeAccuracy_ForSkewedStarCounts() {
+        // Arrange: star counts are heavy-tailed, most repositories have few
+        StarsSketch sketch = new StarsSketch(0.01);
+        List<Long> values = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            long stars = (long) Math.floor(Math.exp(random.nextDouble() * 12));
+            values.add(stars);
+            sketch.add(stars);
+        }
+        Collections.sort(values);
+
+        // Act & Assert
+        for (double q : new double[] {0.1, 0.5, 0.9, 0.99, 1.0}) {
+            long exact = values.get((int) Math.ceil(q * values.size()) - 1);
+            assertThat((double) sketch.quantile(q)).as("q=%s", q).isCloseTo(exact, within(exact * 0.01 + 0.5));
+        }
+        assertThat(sketch.getCount()).isEqualTo(20_000);
+    }
+
+    @Test
+    void remove_ShouldUndoAdd() {
+        // Arrange
+        StarsSketch sketch = new StarsSketch(0.01);
+        sketch.add(0);
+        sketch.add(10);
+        sketch.add(1000);
+
+        // Act
+        sketch.remove(1000);
+        sketch.remove(0);
+
+        // Assert
+        assertThat(sketch.getCount()).isEqualTo(1);
+        assertThat(sketch.quantile(0.0)).isEqualTo(10);
+        assertThat(sketch.quantile(1.0)).isEqualTo(10);
+    }
+
+    @Test
+    void remove_ShouldFail_WhenValueWasNeverAdded() {
+        // Arrange
+        StarsSketch sketch = new StarsSketch(0.01);
+        sketch.add(10);
+
+        // Act & Assert
+        assertThatThrownBy(() -> sketch.remove(5000)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void merge_ShouldMatchSketchOfAllValues() {
+        // Arrange
+        StarsSketch left = new StarsSketch(0.01);
+        StarsSketch right = new StarsSketch(0.01);
+        StarsSketch all = new StarsSketch(0.01);
+        for (int i = 0; i < 5_000; i++) {
+            long stars = random.nextInt(100_000);
+            (i % 3 == 0 ? left : right).add(stars);
+            all.add(stars);
+        }
+
+        // Act
+        left.merge(right);
+
+        // Assert
+        assertThat(left.getCount()).isEqualTo(all.getCount());
+        for (double q : new double[] {0.0, 0.25, 0.5, 0.75, 0.99, 1.0}) {
+            assertThat(left.quantile(q)).isEqualTo(all.quantile(q));
+        }
+    }
+
+    @Test
+    void quantile_ShouldReturnZero_WhenEmpty() {
+        // Act & Assert
+        assertThat(new StarsSketch(0.01).quantile(0.5)).isZero();
+    }
+}
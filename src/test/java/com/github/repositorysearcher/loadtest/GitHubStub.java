@@ -0,0 +1,214 @@
+package com.github.repositorysearcher.loadtest;
+
+import com.github.repositorysearcher.benchmark.GitHubPayloads;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stand-in for the GitHub search API. Answers {@code /search/repositories} with full-size
+ * repository objects, after a log-normal delay, and injects 403 and 5xx responses at
+ * configured rates. Every response carries {@code X-RateLimit-*} headers for a budget
+ * that resets each window; once the budget is spent it answers 403 like GitHub does.
+ * Pages are gzip-encoded when the client accepts it, as GitHub's are.
+ */
+public class GitHubStub implements AutoCloseable {
+
+    private final Settings settings;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    // Each distinct query returns its own block of repository ids, stable across calls
+    private final Map<String, byte[]> pages = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> gzippedPages = new ConcurrentHashMap<>();
+    private final AtomicLong nextFirstId = new AtomicLong(1);
+
+    private final AtomicInteger windowRemaining;
+    private volatile long windowResetEpochSeconds;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedForbidden = new AtomicLong();
+    private final AtomicLong injectedServerErrors = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    public GitHubStub(Settings settings) throws IOException {
+        this.settings = settings;
+        this.windowRemaining = new AtomicInteger(settings.rateLimitBudget());
+        this.windowResetEpochSeconds = System.currentTimeMillis() / 1000 + settings.rateLimitWindowSeconds();
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        server.createContext("/search/repositories", this::handleSearch);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getInjectedForbiddenCount() {
+        return injectedForbidden.get();
+    }
+
+    public long getInjectedServerErrorCount() {
+        return injectedServerErrors.get();
+    }
+
+    public long getRateLimitedCount() {
+        return rateLimited.get();
+    }
+
+    /**
+     * Response body bytes written to the wire, after compression.
+     */
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            sleepMillis(settings.latency().sampleMillis());
+            int remaining = takeBudget();
+            exchange.getResponseHeaders().set("X-RateLimit-Limit", String.valueOf(settings.rateLimitBudget()));
+            exchange.getResponseHeaders().set("X-RateLimit-Remaining", String.valueOf(Math.max(0, remaining)));
+            exchange.getResponseHeaders().set("X-RateLimit-Reset", String.valueOf(windowResetEpochSeconds));
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (remaining < 0) {
+                rateLimited.incrementAndGet();
+                sendEmpty(exchange, 403);
+            } else if (random.nextDouble() < settings.forbiddenRate()) {
+                injectedForbidden.incrementAndGet();
+                sendEmpty(exchange, 403);
+            } else if (random.nextDouble() < settings.serverErrorRate()) {
+                injectedServerErrors.incrementAndGet();
+                sendEmpty(exchange, random.nextBoolean() ? 502 : 503);
+            } else {
+                String query = queryOf(exchange.getRequestURI());
+                String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                    sendPage(exchange, gzippedPages.computeIfAbsent(query, key -> gzip(pageFor(key))));
+                } else {
+                    sendPage(exchange, pageFor(query));
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private int takeBudget() {
+        long now = System.currentTimeMillis() / 1000;
+        if (now >= windowResetEpochSeconds) {
+            synchronized (this) {
+                if (now >= windowResetEpochSeconds) {
+                    windowRemaining.set(settings.rateLimitBudget());
+                    windowResetEpochSeconds = now + settings.rateLimitWindowSeconds();
+                }
+            }
+        }
+        return windowRemaining.decrementAndGet();
+    }
+
+    private byte[] pageFor(String query) {
+        return pages.computeIfAbsent(query, key -> GitHubPayloads
+                .searchPage(settings.itemsPerPage(), nextFirstId.getAndAdd(settings.itemsPerPage()))
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String queryOf(URI uri) {
+        String rawQuery = uri.getRawQuery();
+        if (rawQuery == null) {
+            return "";
+        }
+        for (String parameter : rawQuery.split("&")) {
+            if (parameter.startsWith("q=")) {
+                return URLDecoder.decode(parameter.substring(2), StandardCharsets.UTF_8);
+            }
+        }
+        return "";
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private void sendPage(HttpExchange exchange, byte[] body) throws IOException {
+        bytesSent.addAndGet(body.length);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sendEmpty(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private static void sleepMillis(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Log-normal response delay given by its median and 99th percentile, which is
+     * how upstream latency is usually described.
+     */
+    public record Latency(double medianMillis, double p99Millis) {
+
+        private static final double Z_99 = 2.326;
+
+        long sampleMillis() {
+            if (medianMillis <= 0) {
+                return 0;
+            }
+            double sigma = Math.log(Math.max(p99Millis, medianMillis) / medianMillis) / Z_99;
+            double gaussian = ThreadLocalRandom.current().nextGaussian();
+            return Math.round(medianMillis * Math.exp(sigma * gaussian));
+        }
+    }
+
+    public record Settings(int itemsPerPage, Latency latency, double forbiddenRate, double serverErrorRate,
+                           int rateLimitBudget, int rateLimitWindowSeconds) {
+    }
+}
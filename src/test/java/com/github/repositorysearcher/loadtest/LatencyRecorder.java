@@ -0,0 +1,56 @@
+package com.github.repositorysearcher.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps every latency sample of one endpoint, so percentiles are exact rather than
+ * bucketed. A few million samples fit easily in memory for a load-test run.
+ */
+public class LatencyRecorder {
+
+    private long[] samples = new long[1 << 16];
+    private int count;
+    private final Map<Integer, Long> statuses = new TreeMap<>();
+
+    public synchronized void record(long nanos, int status) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[count++] = nanos;
+        statuses.merge(status, 1L, Long::sum);
+    }
+
+    public synchronized Summary summarize(String endpoint, double elapsedSeconds) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        long errors = statuses.entrySet().stream()
+                .filter(entry -> entry.getKey() < 200 || entry.getKey() >= 300)
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        return new Summary(endpoint, count, errors, count / elapsedSeconds,
+                percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.99), percentileMillis(sorted, 0.999),
+                sorted.length > 0 ? sorted[sorted.length - 1] / 1e6 : 0, new TreeMap<>(statuses));
+    }
+
+    private static double percentileMillis(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    public record Summary(String endpoint, long requests, long errors, double throughput,
+                          double p50Millis, double p99Millis, double p999Millis, double maxMillis,
+                          Map<Integer, Long> statuses) {
+
+        @Override
+        public String toString() {
+            return String.format("%-22s %8d req %8.1f req/s  p50 %8.2f ms  p99 %8.2f ms  p999 %8.2f ms  " +
+                            "max %8.2f ms  errors %d %s",
+                    endpoint, requests, throughput, p50Millis, p99Millis, p999Millis, maxMillis, errors, statuses);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.repositorysearcher.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop driver: each worker sends one request, waits for the answer and sends
+ * the next, choosing between a search and a page read at the configured mix. Latency
+ * is measured from sending the request to having read the whole response.
+ */
+public class LoadTestDriver {
+
+    public static final String SEARCH = "POST /search";
+    public static final String REPOSITORIES = "GET /repositories";
+
+    private static final String[] LANGUAGES = {"Java", "Kotlin", "Go", "Rust", "TypeScript", "Python"};
+    private static final String[] SORTS = {"stars", "forks", "updated"};
+
+    private final String baseUrl;
+    private final Settings settings;
+    private final HttpClient client;
+    private final LatencyRecorder searches = new LatencyRecorder();
+    private final LatencyRecorder pages = new LatencyRecorder();
+
+    public LoadTestDriver(String baseUrl, Settings settings) {
+        this.baseUrl = baseUrl;
+        this.settings = settings;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * Runs the warm-up and then the measured phase, and returns one summary per endpoint.
+     */
+    public List<LatencyRecorder.Summary> run() throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(settings.concurrency());
+        try {
+            runPhase(workers, settings.warmup(), false);
+            long start = System.nanoTime();
+            runPhase(workers, settings.duration(), true);
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+            return List.of(searches.summarize(SEARCH, elapsedSeconds), pages.summarize(REPOSITORIES, elapsedSeconds));
+        } finally {
+            workers.shutdownNow();
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void runPhase(ExecutorService workers, Duration length, boolean measured) throws Exception {
+        long deadline = System.nanoTime() + length.toNanos();
+        List<Future<?>> running = new ArrayList<>();
+        for (int i = 0; i < settings.concurrency(); i++) {
+            running.add(workers.submit(() -> {
+                while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                    sendOne(measured);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : running) {
+            worker.get();
+        }
+    }
+
+    private void sendOne(boolean measured) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        boolean search = random.nextDouble() < settings.searchRatio();
+        HttpRequest request = search ? searchRequest(random) : pageRequest(random);
+        long start = System.nanoTime();
+        int status;
+        try {
+            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            // Connection-level failures are reported under status 0
+            status = 0;
+        }
+        if (measured) {
+            (search ? searches : pages).record(System.nanoTime() - start, status);
+        }
+    }
+
+    private HttpRequest searchRequest(ThreadLocalRandom random) {
+        String body = "{\"query\":\"load " + random.nextInt(settings.distinctQueries()) + "\"," +
+                "\"language\":\"" + LANGUAGES[random.nextInt(LANGUAGES.length)] + "\"," +
+                "\"sort\":\"" + SORTS[random.nextInt(SORTS.length)] + "\"}";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/github/search"))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest pageRequest(ThreadLocalRandom random) {
+        StringBuilder uri = new StringBuilder(baseUrl).append("/api/github/repositories?sort=")
+                .append(SORTS[random.nextInt(SORTS.length)]);
+        if (random.nextBoolean()) {
+            uri.append("&language=").append(LANGUAGES[random.nextInt(LANGUAGES.length)]);
+        }
+        if (random.nextInt(4) == 0) {
+            uri.append("&minStars=").append(random.nextInt(50_000));
+        }
+        return HttpRequest.newBuilder(URI.create(uri.toString()))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+    }
+
+    public record Settings(int concurrency, Duration warmup, Duration duration, double searchRatio,
+                           int distinctQueries) {
+    }
+}
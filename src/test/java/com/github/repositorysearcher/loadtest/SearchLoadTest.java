@@ -0,0 +1,123 @@
+package com.github.repositorysearcher.loadtest;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Mixed {@code /search} and {@code /repositories} load against the full application,
+ * with GitHub replaced by {@link GitHubStub}. Excluded from {@code mvn test}; run with
+ * {@code mvn -Pload-test test} and tune it with {@code -Dloadtest.*} properties (see the
+ * README). The database is the in-memory H2 of the test profile unless
+ * {@code -Dloadtest.database=postgres} points it at a local PostgreSQL.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "github.api.rate-limit.requests-per-second=100000",
+        "github.api.rate-limit.burst=100000",
+        "logging.level.com.github.repositorysearcher=WARN",
+        "logging.level.org.springframework.web=WARN",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+class SearchLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchLoadTest.class);
+
+    private static final GitHubStub githubStub = startGitHubStub();
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("github.api.base-url", githubStub::baseUrl);
+        if ("postgres".equals(property("loadtest.database", "h2"))) {
+            registry.add("spring.datasource.url", () ->
+                    property("loadtest.postgres.url", "jdbc:postgresql://localhost:5432/github_repos?reWriteBatchedInserts=true"));
+            registry.add("spring.datasource.username", () -> property("loadtest.postgres.username", "postgres"));
+            registry.add("spring.datasource.password", () -> property("loadtest.postgres.password", "postgres"));
+            registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+            registry.add("spring.jpa.properties.hibernate.dialect", () -> "org.hibernate.dialect.PostgreSQLDialect");
+            registry.add("spring.jpa.hibernate.ddl-auto", () -> "update");
+        }
+    }
+
+    @AfterAll
+    static void stopGitHubStub() {
+        githubStub.close();
+    }
+
+    @Test
+    void mixedWorkload_ShouldStayWithinLatencyBudget() throws Exception {
+        LoadTestDriver.Settings settings = new LoadTestDriver.Settings(
+                intProperty("loadtest.concurrency", 32),
+                Duration.ofSeconds(intProperty("loadtest.warmup-seconds", 10)),
+                Duration.ofSeconds(intProperty("loadtest.duration-seconds", 30)),
+                doubleProperty("loadtest.search-ratio", 0.2),
+                intProperty("loadtest.distinct-queries", 200));
+
+        List<LatencyRecorder.Summary> summaries = new LoadTestDriver("http://localhost:" + port, settings).run();
+
+        logger.warn("Load test: {} workers, {} s, {} % searches", settings.concurrency(),
+                settings.duration().toSeconds(), Math.round(settings.searchRatio() * 100));
+        summaries.forEach(summary -> logger.warn("{}", summary));
+        logger.warn("GitHub stub: {} requests, {} injected 403, {} injected 5xx, {} rate limited, {} KiB sent",
+                githubStub.getRequestCount(), githubStub.getInjectedForbiddenCount(),
+                githubStub.getInjectedServerErrorCount(), githubStub.getRateLimitedCount(),
+                githubStub.getBytesSent() / 1024);
+
+        // Optional gates, so a capacity regression fails the build
+        for (LatencyRecorder.Summary summary : summaries) {
+            String key = summary.endpoint().equals(LoadTestDriver.SEARCH) ? "search" : "repositories";
+            double maxP99 = doubleProperty("loadtest." + key + ".max-p99-ms", Double.MAX_VALUE);
+            double minThroughput = doubleProperty("loadtest." + key + ".min-throughput", 0);
+            assertThat(summary.p99Millis()).as("%s p99", summary.endpoint()).isLessThanOrEqualTo(maxP99);
+            assertThat(summary.throughput()).as("%s throughput", summary.endpoint())
+                    .isGreaterThanOrEqualTo(minThroughput);
+            assertThat(summary.statuses()).as("%s statuses", summary.endpoint())
+                    .doesNotContainKeys(0, 500);
+        }
+    }
+
+    private static GitHubStub startGitHubStub() {
+        try {
+            return new GitHubStub(new GitHubStub.Settings(
+                    intProperty("loadtest.stub.items-per-page", 30),
+                    new GitHubStub.Latency(doubleProperty("loadtest.stub.latency-median-ms", 80),
+                            doubleProperty("loadtest.stub.latency-p99-ms", 400)),
+                    doubleProperty("loadtest.stub.forbidden-rate", 0.0),
+                    doubleProperty("loadtest.stub.server-error-rate", 0.01),
+                    intProperty("loadtest.stub.rate-limit-budget", 1_000_000),
+                    intProperty("loadtest.stub.rate-limit-window-seconds", 60)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start GitHub stub", e);
+        }
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty(name, defaultValue);
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(property(name, String.valueOf(defaultValue)));
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        return Double.parseDouble(property(name, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.repositorysearcher.repository;
+
+import com.github.repositorysearcher.dto.RepositoryCursor;
+import com.github.repositorysearcher.entity.Repository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks on H2 that every filter/sort combination of the page query walks the
+ * index matching its sort, so rows come out in order without a separate sort.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class RepositoryPageQueryPlanTest {
+
+    @Autowired
+    private RepositoryRepository repositoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        repositoryRepository.upsertAll(LongStream.rangeClosed(1, 200)
+                .mapToObj(id -> new Repository(id, "repo-" + id, null, "owner", id % 2 == 0 ? "Java" : "Go",
+                        (int) id * 10, (int) id, LocalDateTime.now().minusHours(id)))
+                .toList());
+    }
+
+    static Stream<Arguments> combinations() {
+        List<Arguments> arguments = new ArrayList<>();
+        for (String sort : List.of("stars", "forks", "updated")) {
+            RepositoryCursor cursor = new RepositoryCursor(sort,
+                    "updated".equals(sort) ? LocalDateTime.now().minusHours(50).toString() : "50", 50L);
+            for (String language : new String[]{null, "JAVA"}) {
+                for (Integer minStars : new Integer[]{null, 100}) {
+                    arguments.add(Arguments.of(language, minStars, sort, null));
+                    arguments.add(Arguments.of(language, minStars, sort, cursor));
+                }
+            }
+        }
+        return arguments.stream();
+    }
+
+    @ParameterizedTest
+    @MethodSource("combinations")
+    void pageQuery_ShouldReadRowsInOrderFromTheSortIndex(String language, Integer minStars, String sort,
+                                                         RepositoryCursor cursor) {
+        RepositoryPageQuery query = RepositoryPageQuery.of(language, minStars, sort, cursor, 30);
+
+        String plan = explain(query);
+
+        String sortIndex = language != null ? "idx_repositories_language_" + sort : "idx_repositories_" + sort;
+        assertThat(plan).containsIgnoringCase(sortIndex)
+                .containsIgnoringCase("index sorted")
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"stars", "forks", "updated"})
+    void pageQuery_ShouldSortUsingIndex_WhenNoFiltersAreGiven(String sort) {
+        RepositoryPageQuery query = RepositoryPageQuery.of(null, null, sort, null, 30);
+
+        String plan = explain(query);
+
+        assertThat(plan).containsIgnoringCase("idx_repositories_" + sort)
+                .containsIgnoringCase("index sorted");
+    }
+
+    private String explain(RepositoryPageQuery query) {
+        return new NamedParameterJdbcTemplate(jdbcTemplate)
+                .queryForObject("EXPLAIN " + query.getSql(), query.getParameters(), String.class);
+    }
+}
@@ -0,0 +1,275 @@
+package com.github.repositorysearcher.repository;
+
+import com.github.repositorysearcher.dto.RepositoryCursor;
+import com.github.repositorysearcher.dto.RepositoryDto;
+import com.github.repositorysearcher.entity.Repository;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(RepositoryRepositoryImplTest.StatementCountingConfig.class)
+class RepositoryRepositoryImplTest {
+
+    @Autowired
+    private RepositoryRepository repositoryRepository;
+
+    @Autowired
+    private AtomicInteger preparedStatementCount;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        repositoryRepository.deleteAll();
+        repositoryRepository.flush();
+    }
+
+    @Test
+    void upsertAll_ShouldReportInsertedAndUpdatedCounts() {
+        // Arrange
+        repositoryRepository.upsertAll(repositories(1, 3, 100));
+
+        // Act
+        UpsertResult result = repositoryRepository.upsertAll(repositories(2, 5, 200));
+
+        // Assert
+        assertThat(result.getInserted()).isEqualTo(2);
+        assertThat(result.getUpdated()).isEqualTo(2);
+        assertThat(repositoryRepository.count()).isEqualTo(5);
+        assertThat(repositoryRepository.findByRepositoryId(1L)).get()
+                .extracting(Repository::getStarsCount).isEqualTo(100);
+        assertThat(repositoryRepository.findByRepositoryId(3L)).get()
+                .extracting(Repository::getStarsCount).isEqualTo(200);
+    }
+
+    @Test
+    void upsertAll_ShouldCollapseDuplicateIds() {
+        // Act
+        UpsertResult result = repositoryRepository.upsertAll(
+                List.of(repository(7L, 10), repository(7L, 20)));
+
+        // Assert
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getUpdated()).isZero();
+        assertThat(repositoryRepository.findByRepositoryId(7L)).get()
+                .extracting(Repository::getStarsCount).isEqualTo(20);
+    }
+
+    @Test
+    void upsertAll_ShouldSkipRowsWhoseContentIsUnchanged() {
+        // Arrange
+        LocalDateTime pushed = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+        repositoryRepository.upsertAll(List.of(repository(1L, 10, pushed), repository(2L, 20, pushed)));
+        LocalDateTime firstWrite = updatedAtOf(1L);
+
+        // Act
+        UpsertResult result = repositoryRepository.upsertAll(
+                List.of(repository(1L, 10, pushed), repository(2L, 21, pushed), repository(3L, 30, pushed)));
+
+        // Assert
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getUnchanged()).isEqualTo(1);
+        assertThat(updatedAtOf(1L)).isEqualTo(firstWrite);
+        assertThat(repositoryRepository.findByRepositoryId(2L)).get()
+                .extracting(Repository::getStarsCount).isEqualTo(21);
+    }
+
+    @Test
+    void upsertAll_ShouldOnlyLookUpHashes_WhenNothingChanged() {
+        // Arrange
+        LocalDateTime pushed = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+        repositoryRepository.upsertAll(repositories(1, 50, 10, pushed));
+        preparedStatementCount.set(0);
+
+        // Act
+        UpsertResult result = repositoryRepository.upsertAll(repositories(1, 50, 10, pushed));
+
+        // Assert
+        assertThat(result.getUnchanged()).isEqualTo(50);
+        assertThat(result.getWritten()).isZero();
+        assertThat(preparedStatementCount.get()).isEqualTo(1);
+    }
+
+    @Test
+    void upsertAll_ShouldRewriteRow_WhenStoredHashIsMissing() {
+        // Arrange
+        LocalDateTime pushed = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+        repositoryRepository.upsertAll(List.of(repository(1L, 10, pushed)));
+        jdbcTemplate.update("UPDATE repositories SET content_hash = NULL");
+
+        // Act
+        UpsertResult result = repositoryRepository.upsertAll(List.of(repository(1L, 10, pushed)));
+
+        // Assert
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT content_hash FROM repositories", Long.class))
+                .isEqualTo(repository(1L, 10, pushed).computeContentHash());
+    }
+
+    @Test
+    void computeContentHash_ShouldOnlyDependOnSyncedFields() {
+        // Arrange
+        LocalDateTime pushed = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+        Repository original = repository(1L, 10, pushed);
+        Repository copy = repository(1L, 10, pushed);
+        copy.setCreatedAt(LocalDateTime.now());
+        Repository starred = repository(1L, 11, pushed);
+        Repository describedDifferently = repository(1L, 10, pushed);
+        describedDifferently.setDescription(null);
+
+        // Act & Assert
+        assertThat(copy.computeContentHash()).isEqualTo(original.computeContentHash());
+        assertThat(starred.computeContentHash()).isNotEqualTo(original.computeContentHash());
+        assertThat(describedDifferently.computeContentHash()).isNotEqualTo(original.computeContentHash());
+    }
+
+    @Test
+    void upsertAll_ShouldUseSameStatementCount_WhenBatchGrows() {
+        // Warm up so that database detection is not part of the measurement
+        repositoryRepository.upsertAll(repositories(1_000_000, 1_000_000, 1));
+
+        int[] statementCounts = new int[3];
+        int[] batchSizes = {30, 100, 500};
+        for (int i = 0; i < batchSizes.length; i++) {
+            long firstId = (i + 1) * 10_000L;
+            preparedStatementCount.set(0);
+
+            repositoryRepository.upsertAll(repositories(firstId, firstId + batchSizes[i] - 1, 10));
+
+            statementCounts[i] = preparedStatementCount.get();
+        }
+
+        // One lookup of existing ids plus one batched upsert, regardless of size
+        assertThat(statementCounts).containsOnly(2);
+    }
+
+    @Test
+    void findPage_ShouldReadDtosInSortOrder_WithoutLoadingEntities() {
+        // Arrange
+        LocalDateTime pushed = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+        repositoryRepository.upsertAll(List.of(repository(1L, 10, pushed), repository(2L, 30, pushed),
+                repository(3L, 20, pushed), repository(4L, 20, pushed)));
+        entityManager.clear();
+        preparedStatementCount.set(0);
+
+        // Act
+        List<RepositoryDto> firstPage = repositoryRepository.findPage("java", null, "stars", null, 3);
+        RepositoryCursor cursor = RepositoryCursor.after("stars", firstPage.get(2));
+        List<RepositoryDto> secondPage = repositoryRepository.findPage("java", null, "stars", cursor, 3);
+
+        // Assert
+        assertThat(firstPage).extracting(RepositoryDto::getId).containsExactly(2L, 4L, 3L);
+        assertThat(secondPage).extracting(RepositoryDto::getId).containsExactly(1L);
+        RepositoryDto top = firstPage.get(0);
+        assertThat(top.getName()).isEqualTo("repo-2");
+        assertThat(top.getDescription()).isEqualTo("Repository 2");
+        assertThat(top.getOwner()).isEqualTo("owner");
+        assertThat(top.getLanguage()).isEqualTo("Java");
+        assertThat(top.getStars()).isEqualTo(30);
+        assertThat(top.getForks()).isEqualTo(1);
+        assertThat(top.getLastUpdated()).isEqualTo(pushed);
+        assertThat(preparedStatementCount.get()).isEqualTo(2);
+        assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    private LocalDateTime updatedAtOf(long id) {
+        return jdbcTemplate.queryForObject("SELECT updated_at FROM repositories WHERE repository_id = ?",
+                LocalDateTime.class, id);
+    }
+
+    private static List<Repository> repositories(long fromId, long toId, int stars) {
+        return repositories(fromId, toId, stars, LocalDateTime.now());
+    }
+
+    private static List<Repository> repositories(long fromId, long toId, int stars, LocalDateTime pushed) {
+        return LongStream.rangeClosed(fromId, toId)
+                .mapToObj(id -> repository(id, stars, pushed))
+                .toList();
+    }
+
+    private static Repository repository(long id, int stars) {
+        return repository(id, stars, LocalDateTime.now());
+    }
+
+    private static Repository repository(long id, int stars, LocalDateTime pushed) {
+        return new Repository(id, "repo-" + id, "Repository " + id, "owner", "Java", stars, 1, pushed);
+    }
+
+    @TestConfiguration
+    static class StatementCountingConfig {
+
+        @Bean
+        AtomicInteger preparedStatementCount() {
+            return new AtomicInteger();
+        }
+
+        @Bean
+        static BeanPostProcessor statementCountingDataSourcePostProcessor(AtomicInteger preparedStatementCount) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        return countingDataSource(dataSource, preparedStatementCount);
+                    }
+                    return bean;
+                }
+            };
+        }
+
+        private static DataSource countingDataSource(DataSource target, AtomicInteger counter) {
+            return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                    new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                        Object result = invoke(target, method, args);
+                        if (result instanceof Connection connection) {
+                            return countingConnection(connection, counter);
+                        }
+                        return result;
+                    });
+        }
+
+        private static Connection countingConnection(Connection target, AtomicInteger counter) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("prepareStatement")) {
+                            counter.incrementAndGet();
+                        }
+                        return invoke(target, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.repositorysearcher.repository;
+
+import com.github.repositorysearcher.dto.GitHubSearchRequest;
+import com.github.repositorysearcher.entity.SearchQuery;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class SearchQueryRepositoryTest {
+
+    private static final LocalDateTime RECORDED = LocalDateTime.of(2024, 3, 1, 10, 0);
+    private static final LocalDateTime SYNC_STARTED = LocalDateTime.of(2024, 3, 2, 10, 0);
+    private static final LocalDateTime REQUESTED_AGAIN = LocalDateTime.of(2024, 3, 2, 10, 5);
+
+    @Autowired
+    private SearchQueryRepository searchQueryRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void recordSync_ShouldKeepRequestTimeAndSnapshot_WrittenByASearchDuringTheResync() {
+        // Arrange
+        Long id = recorded();
+        SearchQuery searched = searchQueryRepository.findById(id).orElseThrow();
+        searched.setLastRequestedAt(REQUESTED_AGAIN);
+        searched.setSnapshot(List.of(3L, 1L, 2L), REQUESTED_AGAIN);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        searchQueryRepository.recordSync(id, SYNC_STARTED, 2, 5, 3, 7, 40, null);
+        entityManager.clear();
+
+        // Assert
+        SearchQuery stored = searchQueryRepository.findById(id).orElseThrow();
+        assertThat(stored.getLastRequestedAt()).isEqualTo(REQUESTED_AGAIN);
+        assertThat(stored.snapshotRepositoryIds()).containsExactly(3L, 1L, 2L);
+        assertThat(stored.getLastSyncedAt()).isEqualTo(SYNC_STARTED);
+        assertThat(stored.getSyncCount()).isEqualTo(1);
+        assertThat(stored.getTotalSyncedRows()).isEqualTo(7);
+        assertThat(stored.getLastSyncUnchanged()).isEqualTo(3);
+    }
+
+    @Test
+    void recordSync_ShouldNotMoveLastSyncBackwards() {
+        // Arrange
+        Long id = recorded();
+
+        // Act
+        searchQueryRepository.recordSync(id, RECORDED.minusDays(1), 0, 1, 0, 1, 40, "Delta incomplete");
+        entityManager.clear();
+
+        // Assert
+        SearchQuery stored = searchQueryRepository.findById(id).orElseThrow();
+        assertThat(stored.getLastSyncedAt()).isEqualTo(RECORDED);
+        assertThat(stored.getLastSyncError()).isEqualTo("Delta incomplete");
+        assertThat(stored.getSyncCount()).isEqualTo(1);
+    }
+
+    @Test
+    void save_ShouldKeepSyncColumns_WrittenByAResyncAfterTheEntityWasLoaded() {
+        // Arrange
+        Long id = recorded();
+        SearchQuery searched = searchQueryRepository.findById(id).orElseThrow();
+        searchQueryRepository.recordSync(id, SYNC_STARTED, 2, 5, 3, 7, 40, null);
+
+        // Act
+        searched.setLastRequestedAt(REQUESTED_AGAIN);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Assert
+        SearchQuery stored = searchQueryRepository.findById(id).orElseThrow();
+        assertThat(stored.getLastRequestedAt()).isEqualTo(REQUESTED_AGAIN);
+        assertThat(stored.getSyncCount()).isEqualTo(1);
+        assertThat(stored.getLastSyncedAt()).isEqualTo(SYNC_STARTED);
+    }
+
+    private Long recorded() {
+        SearchQuery searchQuery = searchQueryRepository.save(
+                SearchQuery.of(new GitHubSearchRequest("spring", "java", "stars"), RECORDED));
+        entityManager.flush();
+        entityManager.clear();
+        return searchQuery.getId();
+    }
+}
@@ -0,0 +1,677 @@
+package com.github.repositorysearcher.service;
+
+import com.github.repositorysearcher.config.GitHubClientConfig;
+import com.github.repositorysearcher.dto.GitHubSearchRequest;
+import com.github.repositorysearcher.dto.GitHubSearchResult;
+import com.github.repositorysearcher.entity.Repository;
+import com.github.repositorysearcher.exception.GitHubApiException;
+import com.github.repositorysearcher.exception.GitHubCircuitOpenException;
+import com.github.repositorysearcher.exception.GitHubUnavailableException;
+import com.github.repositorysearcher.exception.RateLimitExceededException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GitHubApiServiceTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    private static final String SEARCH_RESPONSE = """
+            {
+              "total_count": 1,
+              "incomplete_results": false,
+              "items": [
+                {
+                  "id": 123456,
+                  "name": "spring-boot",
+                  "description": "Spring Boot framework",
+                  "language": "Java",
+                  "stargazers_count": 1000,
+                  "forks_count": 500,
+                  "updated_at": "2024-01-01T10:00:00Z",
+                  "owner": {"login": "spring-projects"}
+                }
+              ]
+            }
+            """;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final List<String> ifNoneMatchHeaders = new CopyOnWriteArrayList<>();
+    private final List<String> requestedQueries = new CopyOnWriteArrayList<>();
+    private volatile int status = 200;
+    private volatile int rateLimitRemaining = -1;
+    private volatile long rateLimitResetEpochSeconds;
+    private volatile int deepTotalCount;
+    private volatile long pageDelayMs;
+    private final List<String> requestedPerPage = new CopyOnWriteArrayList<>();
+    private final AtomicInteger concurrentRequests = new AtomicInteger();
+    private final AtomicInteger maxConcurrentRequests = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> acceptEncodingHeaders = new CopyOnWriteArrayList<>();
+    private final AtomicInteger bytesOnWire = new AtomicInteger();
+    // The next n calls are delayed by slowCallDelayMs, or answered with 503
+    private final AtomicInteger slowCalls = new AtomicInteger();
+    private volatile long slowCallDelayMs;
+    private final AtomicInteger failingCalls = new AtomicInteger();
+    private final GitHubClientConfig clientConfig = new GitHubClientConfig();
+    private ConnectionProvider connectionProvider;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/search/repositories", this::handleSearch);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+        connectionProvider = clientConfig.gitHubConnectionProvider(10, 100, 5_000, 30_000, 300_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionProvider.dispose();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void searchRepositories_ShouldServeFromCache_WhenSameNormalizedRequestIsRepeated() {
+        // Arrange
+        GitHubApiService service = service(60_000, 100);
+
+        // Act
+        GitHubSearchResult first = service.searchRepositories(
+                new GitHubSearchRequest("spring", "Java", "stars")).block();
+        GitHubSearchResult second = service.searchRepositories(
+                new GitHubSearchRequest("  SPRING ", "java", "stars")).block();
+
+        // Assert
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        assertThat(second.getRepositories()).hasSize(1);
+        assertThat(second).isSameAs(first);
+        assertThat(service.getResponseCache().getHitCount()).isEqualTo(1);
+        assertThat(service.getResponseCache().getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void searchRepositories_ShouldSendQueryAsWritten_WithCaseSensitiveOperators() {
+        // Arrange
+        GitHubApiService service = service(60_000, 100);
+
+        // Act
+        service.searchRepositories(new GitHubSearchRequest("  Spring  NOT boot OR Micronaut ", "Java", "stars"))
+                .block();
+        service.searchRepositories(new GitHubSearchRequest("spring not boot or micronaut", "Java", "stars"))
+                .block();
+
+        // Assert
+        assertThat(requestedQueries).containsExactly(
+                "Spring  NOT boot OR Micronaut language:Java",
+                "spring not boot or micronaut language:Java");
+        assertThat(service.getResponseCache().getHitCount()).isZero();
+    }
+
+    @Test
+    void searchRepositories_ShouldRevalidateWithETag_WhenEntryExpired() {
+        // Arrange
+        GitHubApiService service = service(0, 100);
+        GitHubSearchRequest request = new GitHubSearchRequest("spring", "Java", "stars");
+
+        // Act
+        service.searchRepositories(request).block();
+        GitHubSearchResult revalidated = service.searchRepositories(request).block();
+
+        // Assert
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(ifNoneMatchHeaders).containsExactly("", ETAG);
+        assertThat(revalidated.getRepositories()).hasSize(1);
+        assertThat(revalidated.getRepositories().get(0).getName()).isEqualTo("spring-boot");
+        assertThat(service.getResponseCache().getRevalidationCount()).isEqualTo(1);
+    }
+
+    @Test
+    void searchRepositories_ShouldTimeUpstreamCallsByStatus() {
+        // Arrange
+        GitHubApiService service = service(0, 100);
+        GitHubSearchRequest request = new GitHubSearchRequest("spring", "Java", "stars");
+
+        // Act
+        service.searchRepositories(request).block();
+        service.searchRepositories(request).block();
+
+        // Assert
+        assertThat(meterRegistry.get("github.api.requests").tags("status", "200", "outcome", "SUCCESS")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("github.api.requests").tags("status", "304", "outcome", "NOT_MODIFIED")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("github.api.decode").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("github.search.results").summary().totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void searchRepositories_ShouldTimeFailedUpstreamCalls() {
+        // Arrange
+        status = 503;
+        GitHubApiService service = service(60_000, 100);
+
+        // Act
+        assertThatThrownBy(() -> service.searchRepositories(new GitHubSearchRequest("spring", null, "stars")).block())
+                .isInstanceOf(GitHubApiException.class);
+
+        // Assert
+        assertThat(meterRegistry.get("github.api.requests").tags("status", "503", "outcome", "SERVER_ERROR")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void searchRepositories_ShouldEvictLeastRecentlyUsed_WhenCacheIsFull() {
+        // Arrange
+        GitHubApiService service = service(60_000, 1);
+
+        // Act
+        service.searchRepositories(new GitHubSearchRequest("spring", null, "stars")).block();
+        service.searchRepositories(new GitHubSearchRequest("react", null, "stars")).block();
+        service.searchRepositories(new GitHubSearchRequest("spring", null, "stars")).block();
+
+        // Assert
+        assertThat(upstreamCalls.get()).isEqualTo(3);
+        assertThat(service.getResponseCache().size()).isEqualTo(1);
+    }
+
+    @Test
+    void searchRepositories_ShouldThrowGitHubApiException_WhenRateLimited() {
+        // Arrange
+        status = 403;
+        GitHubApiService service = service(60_000, 100);
+
+        // Act & Assert
+        assertThatThrownBy(() -> service.searchRepositories(new GitHubSearchRequest("spring", null, "stars")).block())
+                .isInstanceOf(GitHubApiException.class)
+                .hasMessageContaining("rate limit");
+        assertThat(service.getResponseCache().size()).isZero();
+    }
+
+    @Test
+    void searchRepositories_ShouldFetchPagesConcurrentlyAndDeduplicate_WhenMaxResultsExceedsOnePage()
+            throws Exception {
+        // Arrange
+        deepTotalCount = 450;
+        pageDelayMs = 200;
+        GitHubApiService service = service(60_000, 100);
+
+        // Act
+        long start = System.nanoTime();
+        GitHubSearchResult response = service.searchRepositories(
+                new GitHubSearchRequest("spring", null, "stars", 1000)).block();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // Assert
+        assertThat(upstreamCalls.get()).isEqualTo(5);
+        assertThat(requestedPerPage).containsOnly("100");
+        // Every page repeats the last item of the previous one
+        assertThat(response.getRepositories()).hasSize(446);
+        assertThat(response.getRepositories()).extracting(Repository::getRepositoryId).doesNotHaveDuplicates();
+        assertThat(response.getRepositories().get(0).getRepositoryId()).isEqualTo(1L);
+        assertThat(maxConcurrentRequests.get()).isGreaterThan(1);
+        // First page, then the remaining four pages side by side
+        assertThat(elapsedMs).isLessThan(4 * pageDelayMs);
+    }
+
+    @Test
+    void searchRepositories_ShouldStopAtMaxResults_WhenMoreResultsAreAvailable() {
+        // Arrange
+        deepTotalCount = 5000;
+        GitHubApiService service = service(60_000, 100);
+
+        // Act
+        GitHubSearchResult response = service.searchRepositories(
+                new GitHubSearchRequest("spring", null, "stars", 150)).block();
+
+        // Assert
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(response.getRepositories()).hasSize(150);
+    }
+
+    @Test
+    void searchRepositories_ShouldWaitForReset_WhenBudgetIsExhausted() {
+        // Arrange
+        rateLimitRemaining = 0;
+        rateLimitResetEpochSeconds = System.currentTimeMillis() / 1000 + 2;
+        GitHubApiService service = service(0, 100, new GitHubRateLimiter(100, 10, 5_000, 10));
+
+        // Act
+        service.searchRepositories(new GitHubSearchRequest("spring", null, "stars")).block();
+        rateLimitRemaining = 10;
+        long start = System.currentTimeMillis();
+        service.searchRepositories(new GitHubSearchRequest("react", null, "stars")).block();
+        long waitedMs = System.currentTimeMillis() - start;
+
+        // Assert
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(waitedMs).isGreaterThanOrEqualTo(rateLimitResetEpochSeconds * 1000 - start - 100);
+    }
+
+    @Test
+    void searchRepositories_ShouldRejectWithRetryAfter_WhenWaitExceedsDeadline() {
+        // Arrange
+        rateLimitRemaining = 0;
+        rateLimitResetEpochSeconds = System.currentTimeMillis() / 1000 + 60;
+        GitHubApiService service = service(0, 100, new GitHubRateLimiter(100, 10, 1_000, 10));
+        service.searchRepositories(new GitHubSearchRequest("spring", null, "stars")).block();
+
+        // Act & Assert
+        assertThatThrownBy(() -> service.searchRepositories(new GitHubSearchRequest("react", null, "stars")).block())
+                .isInstanceOfSatisfying(RateLimitExceededException.class, e ->
+                        assertThat(e.getRetryAfter()).isGreaterThan(Duration.ofSeconds(50)));
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void searchRepositories_ShouldRejectImmediately_WhenQueueIsFull() {
+        // Arrange: one token per 10 seconds, so every caller after the first has to queue
+        GitHubRateLimiter rateLimiter = new GitHubRateLimiter(0.1, 1, 60_000, 0);
+        GitHubApiService service = service(0, 100, rateLimiter);
+        service.searchRepositories(new GitHubSearchRequest("spring", null, "stars")).block();
+
+        // Act & Assert
+        assertThatThrownBy(() -> service.searchRepositories(new GitHubSearchRequest("react", null, "stars")).block())
+                .isInstanceOf(RateLimitExceededException.class)
+                .hasMessageContaining("Too many requests");
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void acquire_ShouldHandBackReservedSlot_WhenWaitingCallerCancels() {
+        // Arrange: one token per 10 seconds and at most 15 seconds of waiting, so a third
+        // caller only fits if the second one's slot was returned
+        GitHubRateLimiter rateLimiter = new GitHubRateLimiter(0.1, 1, 15_000, 10);
+        rateLimiter.acquire().block();
+        Disposable waiting = rateLimiter.acquire().subscribe();
+        assertThat(rateLimiter.getQueued()).isEqualTo(1);
+
+        // Act
+        waiting.dispose();
+        AtomicReference<Throwable> rejected = new AtomicReference<>();
+        Disposable next = rateLimiter.acquire().subscribe(null, rejected::set);
+
+        // Assert
+        assertThat(rejected.get()).isNull();
+        assertThat(rateLimiter.getQueued()).isEqualTo(1);
+        next.dispose();
+        assertThat(rateLimiter.getQueued()).isZero();
+    }
+
+    @Test
+    void searchRepositories_ShouldThrowRateLimitExceeded_WhenGitHubReportsExhaustedBudget() {
+        // Arrange
+        status = 403;
+        rateLimitRemaining = 0;
+        rateLimitResetEpochSeconds = System.currentTimeMillis() / 1000 + 30;
+        GitHubApiService service = service(60_000, 100);
+
+        // Act & Assert
+        assertThatThrownBy(() -> service.searchRepositories(new GitHubSearchRequest("spring", null, "stars")).block())
+                .isInstanceOfSatisfying(RateLimitExceededException.class, e ->
+                        assertThat(e.getRetryAfter()).isBetween(Duration.ofSeconds(25), Duration.ofSeconds(30)));
+    }
+
+    @Test
+    void searchRepositories_ShouldRequestGzipAndDecodeCompressedBody_WhenCompressionIsEnabled() {
+        // Arrange
+        GitHubApiService service = service(0, 100, true);
+
+        // Act
+        GitHubSearchResult result = service.searchRepositories(new GitHubSearchRequest("spring", "Java", "stars")).block();
+
+        // Assert
+        assertThat(acceptEncodingHeaders).singleElement().asString().contains("gzip");
+        assertThat(result.getRepositories()).singleElement()
+                .satisfies(repository -> assertThat(repository.getName()).isEqualTo("spring-boot"));
+        assertThat(bytesOnWire.get()).isLessThan(SEARCH_RESPONSE.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    void searchRepositories_ShouldReceiveIdentityBody_WhenCompressionIsDisabled() {
+        // Arrange
+        GitHubApiService service = service(0, 100, false);
+
+        // Act
+        service.searchRepositories(new GitHubSearchRequest("spring", "Java", "stars")).block();
+
+        // Assert
+        assertThat(acceptEncodingHeaders).containsExactly("");
+        assertThat(bytesOnWire.get()).isEqualTo(SEARCH_RESPONSE.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    void searchRepositories_ShouldRetryServerErrors_WithBackoff() {
+        // Arrange
+        failingCalls.set(2);
+        GitHubResilience resilience = new GitHubResilience(5000, 2, 10, 50, 0.5, false, 0.95, 10, 20,
+                false, 0.5, 20, 10, 30_000);
+        GitHubApiService service = service(resilience);
+
+        // Act
+        GitHubSearchResult result = service.searchRepositories(new GitHubSearchRequest("spring", null, "stars")).block();
+
+        // Assert
+        assertThat(result.getRepositories()).hasSize(1);
+        assertThat(upstreamCalls.get()).isEqualTo(3);
+        assertThat(resilience.getRetryCount()).isEqualTo(2);
+    }
+
+    @Test
+    void searchRepositories_ShouldNotRetry_WhenFailureIsNotTransient() {
+        // Arrange
+        status = 422;
+        GitHubResilience resilience = new GitHubResilience(5000, 2, 10, 50, 0.5, false, 0.95, 10, 20,
+                false, 0.5, 20, 10, 30_000);
+        GitHubApiService service = service(resilience);
+
+        // Act & Assert
+        assertThatThrownBy(() -> service.searchRepositories(new GitHubSearchRequest("spring", null, "stars")).block())
+                .isInstanceOf(GitHubApiException.class)
+                .hasMessageContaining("Invalid search query");
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        assertThat(resilience.getRetryCount()).isZero();
+    }
+
+    @Test
+    void searchRepositories_ShouldRetryAttemptTimeouts() {
+        // Arrange
+        slowCalls.set(1);
+        slowCallDelayMs = 2_000;
+        GitHubResilience resilience = new GitHubResilience(300, 1, 10, 50, 0.5, false, 0.95, 10, 20,
+                false, 0.5, 20, 10, 30_000);
+        GitHubApiService service = service(resilience);
+
+        // Act
+        long start = System.nanoTime();
+        GitHubSearchResult result = service.searchRepositories(new GitHubSearchRequest("spring", null, "stars")).block();
+
+        // Assert
+        assertThat(result.getRepositories()).hasSize(1);
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(1_500));
+        assertThat(resilience.getRetryCount()).isEqualTo(1);
+    }
+
+    @Test
+    void searchRepositories_ShouldCountTimedOutAttempts_InHedgeDelay() {
+        // Arrange: hedging starts after two samples, so neither attempt below is hedged
+        slowCalls.set(1);
+        slowCallDelayMs = 2_000;
+        GitHubResilience resilience = new GitHubResilience(300, 1, 10, 50, 0.5, true, 0.95, 10, 2,
+                false, 0.5, 20, 10, 30_000);
+        GitHubApiService service = service(resilience);
+
+        // Act
+        service.searchRepositories(new GitHubSearchRequest("spring", null, "stars")).block();
+
+        // Assert
+        assertThat(resilience.getRetryCount()).isEqualTo(1);
+        assertThat(resilience.getHedgeCount()).isZero();
+        assertThat(resilience.getHedgeDelay()).isGreaterThanOrEqualTo(Duration.ofMillis(300));
+    }
+
+    @Test
+    void searchRepositories_ShouldHedgeSlowCall_AndTakeTheFasterAnswer() {
+        // Arrange: one fast call teaches the latency window what normal looks like
+        GitHubResilience resilience = new GitHubResilience(5000, 0, 10, 10, 0.5, true, 0.95, 50, 1,
+                false, 0.5, 20, 10, 30_000);
+        GitHubApiService service = service(resilience);
+        service.searchRepositories(new GitHubSearchRequest("warm-up", null, "stars")).block();
+        slowCalls.set(1);
+        slowCallDelayMs = 3_000;
+
+        // Act
+        long start = System.nanoTime();
+        GitHubSearchResult result = service.searchRepositories(new GitHubSearchRequest("spring", null, "stars")).block();
+
+        // Assert
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(2_000));
+        assertThat(result.getRepositories()).hasSize(1);
+        assertThat(upstreamCalls.get()).isEqualTo(3);
+        assertThat(resilience.getHedgeCount()).isEqualTo(1);
+        assertThat(resilience.getHedgeWinCount()).isEqualTo(1);
+        assertThat(meterRegistry.get("github.api.requests").tags("status", "NONE", "outcome", "CANCELLED")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void searchRepositories_ShouldNotHedge_WhenCallAnswersInTime() {
+        // Arrange
+        GitHubResilience resilience = new GitHubResilience(5000, 0, 10, 10, 0.5, true, 0.95, 500, 1,
+                false, 0.5, 20, 10, 30_000);
+        GitHubApiService service = service(resilience);
+
+        // Act
+        service.searchRepositories(new GitHubSearchRequest("warm-up", null, "stars")).block();
+        service.searchRepositories(new GitHubSearchRequest("spring", null, "stars")).block();
+
+        // Assert
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(resilience.getHedgeCount()).isZero();
+    }
+
+    @Test
+    void searchRepositories_ShouldFailFast_WhenCircuitIsOpen() throws Exception {
+        // Arrange
+        status = 503;
+        GitHubResilience resilience = new GitHubResilience(5000, 0, 10, 10, 0.5, false, 0.95, 10, 20,
+                true, 0.5, 4, 2, 300);
+        GitHubApiService service = service(resilience);
+        GitHubSearchRequest request = new GitHubSearchRequest("spring", null, "stars");
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> service.searchRepositories(request).block())
+                    .isInstanceOf(GitHubUnavailableException.class);
+        }
+
+        // Act & Assert: rejected without calling upstream
+        assertThatThrownBy(() -> service.searchRepositories(request).block())
+                .isInstanceOfSatisfying(GitHubCircuitOpenException.class, e ->
+                        assertThat(e.getRetryAfter()).isPositive());
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+        assertThat(resilience.getCircuitBreaker().getState()).isEqualTo(GitHubCircuitBreaker.State.OPEN);
+
+        // Act & Assert: after the open period one probe closes it again
+        status = 200;
+        Thread.sleep(400);
+        assertThat(service.searchRepositories(request).block().getRepositories()).hasSize(1);
+        assertThat(resilience.getCircuitBreaker().getState()).isEqualTo(GitHubCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void execute_ShouldRejectWithoutTakingAPermit_WhenCircuitIsOpen() {
+        // Arrange
+        GitHubResilience resilience = new GitHubResilience(5000, 0, 10, 10, 0.5, false, 0.95, 10, 20,
+                true, 0.5, 2, 2, 30_000);
+        AtomicInteger permits = new AtomicInteger();
+        Mono<Void> permit = Mono.fromRunnable(permits::incrementAndGet);
+        for (int i = 0; i < 2; i++) {
+            assertThatThrownBy(() -> resilience.execute(permit,
+                    () -> Mono.error(new GitHubUnavailableException("GitHub is down"))).block())
+                    .isInstanceOf(GitHubUnavailableException.class);
+        }
+
+        // Act & Assert
+        assertThatThrownBy(() -> resilience.execute(permit, () -> Mono.just("ok")).block())
+                .isInstanceOf(GitHubCircuitOpenException.class);
+        assertThat(permits.get()).isEqualTo(2);
+    }
+
+    private GitHubApiService service(long cacheTtlMs, int cacheMaxEntries) {
+        return service(cacheTtlMs, cacheMaxEntries, new GitHubRateLimiter(1000, 1000, 5_000, 100));
+    }
+
+    private GitHubApiService service(long cacheTtlMs, int cacheMaxEntries, boolean compression) {
+        return service(cacheTtlMs, cacheMaxEntries, new GitHubRateLimiter(1000, 1000, 5_000, 100), compression);
+    }
+
+    private GitHubApiService service(long cacheTtlMs, int cacheMaxEntries, GitHubRateLimiter rateLimiter) {
+        return service(cacheTtlMs, cacheMaxEntries, rateLimiter, true);
+    }
+
+    private GitHubApiService service(long cacheTtlMs, int cacheMaxEntries, GitHubRateLimiter rateLimiter,
+                                     boolean compression) {
+        return service(cacheTtlMs, cacheMaxEntries, rateLimiter, compression, noResilience());
+    }
+
+    private GitHubApiService service(GitHubResilience resilience) {
+        return service(0, 100, new GitHubRateLimiter(1000, 1000, 5_000, 100), true, resilience);
+    }
+
+    private GitHubApiService service(long cacheTtlMs, int cacheMaxEntries, GitHubRateLimiter rateLimiter,
+                                     boolean compression, GitHubResilience resilience) {
+        return new GitHubApiService(clientConfig.gitHubWebClient(connectionProvider,
+                "http://localhost:" + server.getAddress().getPort(), 5000, 5000, 5000, compression, false),
+                5000, cacheTtlMs, cacheMaxEntries, 1000, 4, rateLimiter, resilience, meterRegistry);
+    }
+
+    private static GitHubResilience noResilience() {
+        return new GitHubResilience(5000, 0, 10, 10, 0.5, false, 0.95, 10, 20, false, 0.5, 20, 10, 30_000);
+    }
+
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        upstreamCalls.incrementAndGet();
+        requestedQueries.add(queryParams(exchange.getRequestURI().getRawQuery()).get("q"));
+        if (slowCalls.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            sleepQuietly(slowCallDelayMs);
+        }
+        if (failingCalls.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return;
+        }
+        if (rateLimitRemaining >= 0) {
+            exchange.getResponseHeaders().set("X-RateLimit-Remaining", String.valueOf(rateLimitRemaining));
+            exchange.getResponseHeaders().set("X-RateLimit-Reset", String.valueOf(rateLimitResetEpochSeconds));
+        }
+        if (deepTotalCount > 0) {
+            handleDeepSearch(exchange);
+            return;
+        }
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        ifNoneMatchHeaders.add(ifNoneMatch != null ? ifNoneMatch : "");
+
+        if (status != 200) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        if (ETAG.equals(ifNoneMatch)) {
+            exchange.getResponseHeaders().set("ETag", ETAG);
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        acceptEncodingHeaders.add(acceptEncoding != null ? acceptEncoding : "");
+        byte[] body = SEARCH_RESPONSE.getBytes(StandardCharsets.UTF_8);
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            body = gzip(body);
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        bytesOnWire.addAndGet(body.length);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.getResponseHeaders().set("ETag", ETAG);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void handleDeepSearch(HttpExchange exchange) throws IOException {
+        int inFlight = concurrentRequests.incrementAndGet();
+        maxConcurrentRequests.accumulateAndGet(inFlight, Math::max);
+        try {
+            Map<String, String> params = queryParams(exchange.getRequestURI().getRawQuery());
+            int perPage = Integer.parseInt(params.get("per_page"));
+            int page = Integer.parseInt(params.get("page"));
+            requestedPerPage.add(params.get("per_page"));
+            if (page > 1) {
+                Thread.sleep(pageDelayMs);
+            } else {
+                Thread.sleep(pageDelayMs / 2);
+            }
+
+            // Ids overlap by one between consecutive pages to simulate shifting results
+            long firstId = (long) (page - 1) * (perPage - 1) + 1;
+            int count = Math.max(0, Math.min(perPage, deepTotalCount - (page - 1) * perPage));
+            StringBuilder items = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    items.append(',');
+                }
+                long id = firstId + i;
+                items.append("{\"id\":").append(id).append(",\"name\":\"repo-").append(id)
+                        .append("\",\"stargazers_count\":1,\"forks_count\":1,")
+                        .append("\"updated_at\":\"2024-01-01T10:00:00Z\",\"owner\":{\"login\":\"o\"}}");
+            }
+            byte[] body = ("{\"total_count\":" + deepTotalCount + ",\"incomplete_results\":false,\"items\":["
+                    + items + "]}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            concurrentRequests.decrementAndGet();
+        }
+    }
+
+    private static Map<String, String> queryParams(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            params.put(pair.substring(0, separator),
+                    URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.repositorysearcher.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GitHubCircuitBreakerTest {
+
+    @Test
+    void onFailure_ShouldOpen_WhenFailureRateReachesThreshold() {
+        // Arrange
+        GitHubCircuitBreaker breaker = new GitHubCircuitBreaker(0.5, 4, 4, Duration.ofMinutes(1));
+
+        // Act
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onFailure();
+        GitHubCircuitBreaker.State beforeThreshold = breaker.getState();
+        breaker.onFailure();
+
+        // Assert
+        assertThat(beforeThreshold).isEqualTo(GitHubCircuitBreaker.State.CLOSED);
+        assertThat(breaker.getState()).isEqualTo(GitHubCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.getRejectedCount()).isEqualTo(1);
+        assertThat(breaker.getRemainingOpenTime()).isPositive();
+    }
+
+    @Test
+    void onFailure_ShouldStayClosed_WhenOldFailuresLeftTheWindow() {
+        // Arrange
+        GitHubCircuitBreaker breaker = new GitHubCircuitBreaker(0.5, 4, 4, Duration.ofMinutes(1));
+        breaker.onFailure();
+
+        // Act: the first failure slides out of the window of 4
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess();
+        }
+        breaker.onFailure();
+
+        // Assert
+        assertThat(breaker.getState()).isEqualTo(GitHubCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void tryAcquire_ShouldLetOneProbeThrough_AfterOpenDuration() throws Exception {
+        // Arrange
+        GitHubCircuitBreaker breaker = new GitHubCircuitBreaker(0.5, 2, 1, Duration.ofMillis(50));
+        breaker.onFailure();
+        Thread.sleep(100);
+
+        // Act
+        boolean probe = breaker.tryAcquire();
+        boolean secondCall = breaker.tryAcquire();
+
+        // Assert
+        assertThat(probe).isTrue();
+        assertThat(secondCall).isFalse();
+        assertThat(breaker.getState()).isEqualTo(GitHubCircuitBreaker.State.HALF_OPEN);
+    }
+
+    @Test
+    void onFailure_ShouldReopen_WhenProbeFails() throws Exception {
+        // Arrange
+        GitHubCircuitBreaker breaker = new GitHubCircuitBreaker(0.5, 2, 1, Duration.ofMillis(50));
+        breaker.onFailure();
+        Thread.sleep(100);
+        breaker.tryAcquire();
+
+        // Act
+        breaker.onFailure();
+
+        // Assert
+        assertThat(breaker.getState()).isEqualTo(GitHubCircuitBreaker.State.OPEN);
+        assertThat(breaker.getOpenedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void onIgnored_ShouldReleaseProbe_WhenItWasCancelled() throws Exception {
+        // Arrange
+        GitHubCircuitBreaker breaker = new GitHubCircuitBreaker(0.5, 2, 1, Duration.ofMillis(50));
+        breaker.onFailure();
+        Thread.sleep(100);
+        breaker.tryAcquire();
+
+        // Act
+        breaker.onIgnored();
+
+        // Assert
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+}
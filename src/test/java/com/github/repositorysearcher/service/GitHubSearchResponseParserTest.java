@@ -0,0 +1,97 @@
+package com.github.repositorysearcher.service;
+
+import com.github.repositorysearcher.dto.GitHubSearchResult;
+import com.github.repositorysearcher.entity.Repository;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GitHubSearchResponseParserTest {
+
+    private final GitHubSearchResponseParser parser = new GitHubSearchResponseParser();
+
+    @Test
+    void parse_ShouldReadStoredFieldsAndSkipEverythingElse() throws IOException {
+        // Arrange
+        String json = """
+                {
+                  "total_count": 2,
+                  "incomplete_results": true,
+                  "items": [
+                    {
+                      "id": 123456,
+                      "node_id": "MDEwOlJlcG9zaXRvcnk=",
+                      "name": "spring-boot",
+                      "full_name": "spring-projects/spring-boot",
+                      "owner": {"id": 1, "login": "spring-projects", "site_admin": false},
+                      "description": "Spring Boot framework",
+                      "topics": ["java", "spring"],
+                      "license": {"key": "apache-2.0", "name": "Apache License 2.0"},
+                      "language": "Java",
+                      "stargazers_count": 1000,
+                      "forks_count": 500,
+                      "updated_at": "2024-01-01T10:00:00Z",
+                      "score": 1.0
+                    },
+                    {
+                      "id": 7,
+                      "name": "bare",
+                      "description": null,
+                      "language": null,
+                      "owner": null
+                    }
+                  ]
+                }
+                """;
+
+        // Act
+        GitHubSearchResult result = parser.parse(json.getBytes(StandardCharsets.UTF_8));
+
+        // Assert
+        assertThat(result.getTotalCount()).isEqualTo(2);
+        assertThat(result.getIncompleteResults()).isTrue();
+        assertThat(result.getRepositories()).hasSize(2);
+
+        Repository first = result.getRepositories().get(0);
+        assertThat(first.getRepositoryId()).isEqualTo(123456L);
+        assertThat(first.getName()).isEqualTo("spring-boot");
+        assertThat(first.getOwnerName()).isEqualTo("spring-projects");
+        assertThat(first.getDescription()).isEqualTo("Spring Boot framework");
+        assertThat(first.getProgrammingLanguage()).isEqualTo("Java");
+        assertThat(first.getLanguageKey()).isEqualTo("java");
+        assertThat(first.getStarsCount()).isEqualTo(1000);
+        assertThat(first.getForksCount()).isEqualTo(500);
+        assertThat(first.getLastUpdatedDate()).isEqualTo(LocalDateTime.of(2024, 1, 1, 10, 0));
+        assertThat(first.getContentHash()).isEqualTo(first.computeContentHash());
+
+        Repository second = result.getRepositories().get(1);
+        assertThat(second.getOwnerName()).isEqualTo("Unknown");
+        assertThat(second.getDescription()).isNull();
+        assertThat(second.getProgrammingLanguage()).isNull();
+        assertThat(second.getStarsCount()).isZero();
+        assertThat(second.getForksCount()).isZero();
+        assertThat(second.getContentHash()).isNotNull().isNotEqualTo(first.getContentHash());
+    }
+
+    @Test
+    void parse_ShouldConvertOffsetTimestampsToUtc() throws IOException {
+        String json = "{\"items\":[{\"id\":1,\"name\":\"r\",\"updated_at\":\"2024-01-01T12:00:00+02:00\"}]}";
+
+        GitHubSearchResult result = parser.parse(json.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(result.getTotalCount()).isNull();
+        assertThat(result.getRepositories().get(0).getLastUpdatedDate())
+                .isEqualTo(LocalDateTime.of(2024, 1, 1, 10, 0));
+    }
+
+    @Test
+    void parse_ShouldFail_WhenBodyIsNotAnObject() {
+        assertThatThrownBy(() -> parser.parse("[]".getBytes(StandardCharsets.UTF_8)))
+                .isInstanceOf(IOException.class);
+    }
+}
@@ -1,23 +1,65 @@
 package com.github.repositorysearcher.service;
 
-import com.github.repositorysearcher.dto.GitHubApiResponse;
+import com.github.repositorysearcher.config.ReadRoutingDataSourceConfig;
+import com.github.repositorysearcher.config.ReadWriteRoutingDataSource;
+import com.github.repositorysearcher.dto.BatchSearchResult;
+import com.github.repositorysearcher.dto.DeltaSyncResult;
 import com.github.repositorysearcher.dto.GitHubSearchRequest;
+import com.github.repositorysearcher.dto.GitHubSearchResult;
+import com.github.repositorysearcher.dto.RepositoryCursor;
 import com.github.repositorysearcher.dto.RepositoryDto;
+import com.github.repositorysearcher.dto.RepositoryPage;
+import com.github.repositorysearcher.dto.RepositoryStats;
+import com.github.repositorysearcher.dto.SearchResults;
 import com.github.repositorysearcher.entity.Repository;
+import com.github.repositorysearcher.entity.SearchQuery;
+import com.github.repositorysearcher.exception.GitHubApiException;
+import com.github.repositorysearcher.exception.GitHubUnavailableException;
+import com.github.repositorysearcher.exception.SearchIndexUnavailableException;
+import com.github.repositorysearcher.exception.WriteQueueFullException;
+import com.github.repositorysearcher.index.InvertedIndex;
+import com.github.repositorysearcher.index.RepositoryReadIndex;
+import com.github.repositorysearcher.index.RepositoryStatsIndex;
+import com.github.repositorysearcher.index.RepositoryTextIndex;
 import com.github.repositorysearcher.repository.RepositoryRepository;
+import com.github.repositorysearcher.repository.SearchQueryRepository;
+import com.github.repositorysearcher.repository.UpsertResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
 
+import javax.sql.DataSource;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -30,50 +72,54 @@ class RepositoryServiceTest {
     @Mock
     private RepositoryRepository repositoryRepository;
 
-    @InjectMocks
+    @Mock
+    private SearchQueryRepository searchQueryRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private RepositoryReadIndex readIndex;
+
+    @Mock
+    private RepositoryTextIndex textIndex;
+
+    @Mock
+    private RepositoryStatsIndex statsIndex;
+
+    private SimpleMeterRegistry meterRegistry;
+
     private RepositoryService repositoryService;
 
     private GitHubSearchRequest searchRequest;
-    private GitHubApiResponse apiResponse;
+    private GitHubSearchResult searchResult;
     private Repository repository;
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        repositoryService = new RepositoryService(gitHubApiService, repositoryRepository, searchQueryRepository,
+                readIndex, textIndex, statsIndex, List.of(readIndex), transactionManager, Schedulers.immediate(), meterRegistry);
+
         searchRequest = new GitHubSearchRequest("spring", "Java", "stars");
         
-        // Create mock API response
-        apiResponse = new GitHubApiResponse();
-        apiResponse.setTotalCount(1);
-        
-        GitHubApiResponse.GitHubRepository githubRepo = new GitHubApiResponse.GitHubRepository();
-        githubRepo.setId(123456L);
-        githubRepo.setName("spring-boot");
-        githubRepo.setDescription("Spring Boot framework");
-        githubRepo.setLanguage("Java");
-        githubRepo.setStargazersCount(1000);
-        githubRepo.setForksCount(500);
-        githubRepo.setUpdatedAt(LocalDateTime.now());
-        
-        GitHubApiResponse.GitHubRepository.Owner owner = new GitHubApiResponse.GitHubRepository.Owner();
-        owner.setLogin("spring-projects");
-        githubRepo.setOwner(owner);
-        
-        apiResponse.setItems(List.of(githubRepo));
-        
         // Create mock repository entity
         repository = new Repository(123456L, "spring-boot", "Spring Boot framework", 
                                   "spring-projects", "Java", 1000, 500, LocalDateTime.now());
+
+        // Create mock search result, as decoded from the GitHub API response
+        searchResult = new GitHubSearchResult(1, false, List.of(repository));
     }
 
     @Test
     void searchAndSaveRepositories_ShouldReturnRepositories_WhenValidRequest() {
         // Arrange
-        when(gitHubApiService.searchRepositories(searchRequest)).thenReturn(apiResponse);
-        when(repositoryRepository.findByRepositoryId(123456L)).thenReturn(Optional.empty());
-        when(repositoryRepository.save(any(Repository.class))).thenReturn(repository);
+        when(gitHubApiService.searchRepositories(searchRequest)).thenReturn(Mono.just(searchResult));
+        when(repositoryRepository.upsertAll(anyList())).thenReturn(new UpsertResult(1, 0));
 
         // Act
-        List<RepositoryDto> result = repositoryService.searchAndSaveRepositories(searchRequest);
+        List<RepositoryDto> result = repositoryService.searchAndSaveRepositories(searchRequest).block()
+                .getRepositories();
 
         // Assert
         assertThat(result).hasSize(1);
@@ -83,88 +129,724 @@ class RepositoryServiceTest {
         assertThat(result.get(0).getStars()).isEqualTo(1000);
         
         verify(gitHubApiService).searchRepositories(searchRequest);
-        verify(repositoryRepository).save(any(Repository.class));
+        verify(repositoryRepository).upsertAll(anyList());
+        assertThat(meterRegistry.get("repositories.upsert").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("repositories.upsert.batch.rows").summary().totalAmount()).isEqualTo(1);
+        assertThat(meterRegistry.get("repositories.upsert.rows").tag("result", "inserted").summary().totalAmount())
+                .isEqualTo(1);
     }
 
     @Test
-    void searchAndSaveRepositories_ShouldUpdateExistingRepository_WhenRepositoryExists() {
+    void searchAndSaveRepositories_ShouldUpsertAllRepositoriesInOneCall_WhenRepositoryExists() {
         // Arrange
-        Repository existingRepo = new Repository(123456L, "old-name", "old-description", 
-                                               "old-owner", "Java", 800, 400, LocalDateTime.now().minusDays(1));
-        
-        when(gitHubApiService.searchRepositories(searchRequest)).thenReturn(apiResponse);
-        when(repositoryRepository.findByRepositoryId(123456L)).thenReturn(Optional.of(existingRepo));
-        when(repositoryRepository.save(any(Repository.class))).thenReturn(repository);
+        when(gitHubApiService.searchRepositories(searchRequest)).thenReturn(Mono.just(searchResult));
+        when(repositoryRepository.upsertAll(anyList())).thenReturn(new UpsertResult(0, 1));
 
         // Act
-        List<RepositoryDto> result = repositoryService.searchAndSaveRepositories(searchRequest);
+        List<RepositoryDto> result = repositoryService.searchAndSaveRepositories(searchRequest).block()
+                .getRepositories();
 
         // Assert
         assertThat(result).hasSize(1);
-        verify(repositoryRepository).save(existingRepo);
-        // Verify that existing repository was updated
-        assertThat(existingRepo.getName()).isEqualTo("spring-boot");
-        assertThat(existingRepo.getStarsCount()).isEqualTo(1000);
+        ArgumentCaptor<List<Repository>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repositoryRepository).upsertAll(captor.capture());
+        assertThat(captor.getValue()).hasSize(1);
+        assertThat(captor.getValue().get(0).getName()).isEqualTo("spring-boot");
+        assertThat(captor.getValue().get(0).getStarsCount()).isEqualTo(1000);
+        verify(repositoryRepository, never()).findByRepositoryId(any());
+        verify(repositoryRepository, never()).save(any());
     }
 
     @Test
     void searchAndSaveRepositories_ShouldReturnEmptyList_WhenNoRepositoriesFound() {
         // Arrange
-        GitHubApiResponse emptyResponse = new GitHubApiResponse();
-        emptyResponse.setItems(List.of());
+        GitHubSearchResult emptyResult = new GitHubSearchResult(0, false, List.of());
         
-        when(gitHubApiService.searchRepositories(searchRequest)).thenReturn(emptyResponse);
+        when(gitHubApiService.searchRepositories(searchRequest)).thenReturn(Mono.just(emptyResult));
 
         // Act
-        List<RepositoryDto> result = repositoryService.searchAndSaveRepositories(searchRequest);
+        List<RepositoryDto> result = repositoryService.searchAndSaveRepositories(searchRequest).block()
+                .getRepositories();
 
         // Assert
         assertThat(result).isEmpty();
-        verify(repositoryRepository, never()).save(any());
+        verify(repositoryRepository, never()).upsertAll(any());
+    }
+
+    @Test
+    void searchAndSaveRepositories_ShouldShareOneUpstreamCall_WhenIdenticalSearchesRunConcurrently() throws Exception {
+        // Arrange
+        int callers = 32;
+        Sinks.One<GitHubSearchResult> upstream = Sinks.one();
+        when(gitHubApiService.searchRepositories(any())).thenReturn(upstream.asMono());
+        when(repositoryRepository.upsertAll(anyList())).thenReturn(new UpsertResult(1, 0));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<SearchResults>> results = new ArrayList<>();
+
+        // Act
+        try {
+            List<CompletableFuture<CompletableFuture<SearchResults>>> submitted = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                // Differently formatted spellings of the same search
+                GitHubSearchRequest request = i % 2 == 0 ?
+                        new GitHubSearchRequest("spring", "Java", "stars") :
+                        new GitHubSearchRequest("  SPRING ", "java", "STARS");
+                submitted.add(CompletableFuture.supplyAsync(() -> {
+                    awaitQuietly(start);
+                    return repositoryService.searchAndSaveRepositories(request).toFuture();
+                }, executor));
+            }
+            start.countDown();
+            for (CompletableFuture<CompletableFuture<SearchResults>> future : submitted) {
+                results.add(future.get(5, TimeUnit.SECONDS));
+            }
+            upstream.tryEmitValue(searchResult);
+
+            // Assert
+            for (CompletableFuture<SearchResults> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS).getRepositories()).hasSize(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(gitHubApiService, times(1)).searchRepositories(any());
+        verify(repositoryRepository, times(1)).upsertAll(anyList());
+        SearchCoalescer coalescer = repositoryService.getSearchCoalescer();
+        assertThat(coalescer.getRequestCount()).isEqualTo(callers);
+        assertThat(coalescer.getCoalescedCount()).isEqualTo(callers - 1);
+        assertThat(coalescer.getInFlightCount()).isZero();
+    }
+
+    @Test
+    void searchAndSaveRepositories_ShouldCallUpstreamPerKey_WhenSearchesDiffer() {
+        // Arrange
+        Sinks.One<GitHubSearchResult> upstream = Sinks.one();
+        when(gitHubApiService.searchRepositories(any())).thenReturn(upstream.asMono());
+        when(repositoryRepository.upsertAll(anyList())).thenReturn(new UpsertResult(1, 0));
+
+        // Act
+        CompletableFuture<SearchResults> java = repositoryService
+                .searchAndSaveRepositories(new GitHubSearchRequest("spring", "Java", "stars")).toFuture();
+        CompletableFuture<SearchResults> kotlin = repositoryService
+                .searchAndSaveRepositories(new GitHubSearchRequest("spring", "Kotlin", "stars")).toFuture();
+        upstream.tryEmitValue(searchResult);
+
+        // Assert
+        assertThat(java.join().getRepositories()).hasSize(1);
+        assertThat(kotlin.join().getRepositories()).hasSize(1);
+        verify(gitHubApiService, times(2)).searchRepositories(any());
+        assertThat(repositoryService.getSearchCoalescer().getCoalescedCount()).isZero();
+    }
+
+    @Test
+    void searchAndSaveRepositories_ShouldStartNewSearch_WhenPreviousOneCompleted() {
+        // Arrange
+        when(gitHubApiService.searchRepositories(searchRequest)).thenReturn(Mono.just(searchResult));
+        when(repositoryRepository.upsertAll(anyList())).thenReturn(new UpsertResult(1, 0));
+
+        // Act
+        repositoryService.searchAndSaveRepositories(searchRequest).block();
+        repositoryService.searchAndSaveRepositories(searchRequest).block();
+
+        // Assert
+        verify(gitHubApiService, times(2)).searchRepositories(searchRequest);
+        assertThat(repositoryService.getSearchCoalescer().getCoalescedCount()).isZero();
+    }
+
+    @Test
+    void searchAndSaveRepositories_ShouldShareFailure_WhenCoalescedSearchFails() {
+        // Arrange
+        Sinks.One<GitHubSearchResult> upstream = Sinks.one();
+        when(gitHubApiService.searchRepositories(searchRequest)).thenReturn(upstream.asMono());
+
+        // Act
+        CompletableFuture<SearchResults> first = repositoryService.searchAndSaveRepositories(searchRequest).toFuture();
+        CompletableFuture<SearchResults> second = repositoryService.searchAndSaveRepositories(searchRequest).toFuture();
+        upstream.tryEmitError(new IllegalStateException("boom"));
+
+        // Assert
+        assertThat(first).isCompletedExceptionally();
+        assertThat(second).isCompletedExceptionally();
+        verify(gitHubApiService, times(1)).searchRepositories(searchRequest);
+        assertThat(repositoryService.getSearchCoalescer().getInFlightCount()).isZero();
+    }
+
+    @Test
+    void searchAndSaveRepositories_ShouldNotifyChangeListeners_AfterSaving() {
+        // Arrange
+        when(gitHubApiService.searchRepositories(searchRequest)).thenReturn(Mono.just(searchResult));
+        when(repositoryRepository.upsertAll(anyList())).thenReturn(new UpsertResult(1, 0));
+
+        // Act
+        repositoryService.searchAndSaveRepositories(searchRequest).block();
+
+        // Assert
+        InOrder inOrder = inOrder(repositoryRepository, transactionManager, readIndex);
+        inOrder.verify(repositoryRepository).upsertAll(anyList());
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(readIndex).onRepositoriesUpserted(List.of(repository));
+    }
+
+    @Test
+    void searchAndSaveRepositories_ShouldBumpDataVersion_AfterListenersAreNotified() {
+        // Arrange
+        when(gitHubApiService.searchRepositories(searchRequest)).thenReturn(Mono.just(searchResult));
+        when(repositoryRepository.upsertAll(anyList())).thenReturn(new UpsertResult(1, 0));
+        long before = repositoryService.getDataVersion();
+        AtomicLong seenByListener = new AtomicLong();
+        doAnswer(invocation -> {
+            seenByListener.set(repositoryService.getDataVersion());
+            return null;
+        }).when(readIndex).onRepositoriesUpserted(anyList());
+
+        // Act
+        repositoryService.searchAndSaveRepositories(searchRequest).block();
+
+        // Assert
+        assertThat(seenByListener.get()).isEqualTo(before);
+        assertThat(repositoryService.getDataVersion()).isGreaterThan(before);
+    }
+
+    @Test
+    void searchAndSaveRepositories_ShouldKeepDataVersion_WhenNothingWasFound() {
+        // Arrange
+        when(gitHubApiService.searchRepositories(searchRequest))
+                .thenReturn(Mono.just(new GitHubSearchResult(0, false, List.of())));
+        long before = repositoryService.getDataVersion();
+
+        // Act
+        repositoryService.searchAndSaveRepositories(searchRequest).block();
+
+        // Assert
+        assertThat(repositoryService.getDataVersion()).isEqualTo(before);
+    }
+
+    @Test
+    void searchAndSaveRepositories_ShouldRecordNormalizedSearch_ForBackgroundResync() {
+        // Arrange
+        when(gitHubApiService.searchRepositories(any())).thenReturn(Mono.just(searchResult));
+        when(repositoryRepository.upsertAll(anyList())).thenReturn(new UpsertResult(1, 0));
+
+        // Act
+        repositoryService.searchAndSaveRepositories(new GitHubSearchRequest("  SPRING ", "Java", "STARS")).block();
+
+        // Assert
+        ArgumentCaptor<SearchQuery> captor = ArgumentCaptor.forClass(SearchQuery.class);
+        verify(searchQueryRepository).save(captor.capture());
+        SearchQuery recorded = captor.getValue();
+        assertThat(recorded.getQueryKey()).isEqualTo(SearchQuery.keyOf(searchRequest.normalized()));
+        assertThat(recorded.getQuery()).isEqualTo("SPRING");
+        assertThat(recorded.getLastSyncedAt()).isEqualTo(recorded.getLastRequestedAt());
+        assertThat(recorded.getSyncCount()).isZero();
+    }
+
+    @Test
+    void searchAndSaveRepositories_ShouldNotMoveLastSyncBackwards_WhenSearchIsAlreadyRecorded() {
+        // Arrange
+        LocalDateTime future = LocalDateTime.now().plusDays(1);
+        SearchQuery existing = SearchQuery.of(searchRequest, future);
+        when(searchQueryRepository.findByQueryKey(existing.getQueryKey())).thenReturn(Optional.of(existing));
+        when(gitHubApiService.searchRepositories(searchRequest)).thenReturn(Mono.just(searchResult));
+        when(repositoryRepository.upsertAll(anyList())).thenReturn(new UpsertResult(1, 0));
+
+        // Act
+        repositoryService.searchAndSaveRepositories(searchRequest).block();
+
+        // Assert
+        verify(searchQueryRepository).save(existing);
+        assertThat(existing.getLastSyncedAt()).isEqualTo(future);
+        assertThat(existing.getLastRequestedAt()).isBefore(future);
+    }
+
+    @Test
+    void searchAndSaveRepositories_ShouldRecordSnapshot_WhenSnapshotsAreEnabled() {
+        // Arrange
+        ReflectionTestUtils.setField(repositoryService, "snapshotsEnabled", true);
+        when(gitHubApiService.searchRepositories(searchRequest)).thenReturn(Mono.just(searchResult));
+        when(repositoryRepository.upsertAll(anyList())).thenReturn(new UpsertResult(1, 0));
+
+        // Act
+        SearchResults result = repositoryService.searchAndSaveRepositories(searchRequest).block();
+
+        // Assert
+        ArgumentCaptor<SearchQuery> captor = ArgumentCaptor.forClass(SearchQuery.class);
+        verify(searchQueryRepository).save(captor.capture());
+        assertThat(captor.getValue().snapshotRepositoryIds()).containsExactly(123456L);
+        assertThat(captor.getValue().getSnapshotFetchedAt()).isEqualTo(result.getFetchedAt());
+        assertThat(result.isStale()).isFalse();
+    }
+
+    @Test
+    void searchAndSaveRepositories_ShouldAnswerFromSnapshot_WhenGitHubFails() {
+        // Arrange
+        ReflectionTestUtils.setField(repositoryService, "snapshotsEnabled", true);
+        Repository other = new Repository(654321L, "boot-starter", null, "someone", "Java", 10, 1, LocalDateTime.now());
+        LocalDateTime fetchedAt = LocalDateTime.now(ZoneOffset.UTC).minusMinutes(5);
+        SearchQuery recorded = SearchQuery.of(searchRequest, fetchedAt);
+        recorded.setSnapshot(List.of(654321L, 999L, 123456L), fetchedAt);
+        when(searchQueryRepository.findByQueryKey(recorded.getQueryKey())).thenReturn(Optional.of(recorded));
+        when(repositoryRepository.findAllById(List.of(654321L, 999L, 123456L))).thenReturn(List.of(repository, other));
+        when(gitHubApiService.searchRepositories(searchRequest))
+                .thenReturn(Mono.error(new GitHubUnavailableException("GitHub API is currently unavailable")));
+
+        // Act
+        SearchResults result = repositoryService.searchAndSaveRepositories(searchRequest).block();
+
+        // Assert: snapshot order is kept and rows deleted since are skipped
+        assertThat(result.isStale()).isTrue();
+        assertThat(result.getFetchedAt()).isEqualTo(fetchedAt);
+        assertThat(result.getRepositories()).extracting(RepositoryDto::getId).containsExactly(654321L, 123456L);
+        assertThat(meterRegistry.get("repositories.search.snapshots").tag("result", "stale").counter().count())
+                .isEqualTo(1);
+        verify(repositoryRepository, never()).upsertAll(any());
+    }
+
+    @Test
+    void searchAndSaveRepositories_ShouldPassFailureOn_WhenSnapshotIsTooOld() {
+        // Arrange
+        ReflectionTestUtils.setField(repositoryService, "snapshotsEnabled", true);
+        ReflectionTestUtils.setField(repositoryService, "snapshotMaxAgeMs", 60_000L);
+        LocalDateTime fetchedAt = LocalDateTime.now(ZoneOffset.UTC).minusMinutes(5);
+        SearchQuery recorded = SearchQuery.of(searchRequest, fetchedAt);
+        recorded.setSnapshot(List.of(123456L), fetchedAt);
+        when(searchQueryRepository.findByQueryKey(recorded.getQueryKey())).thenReturn(Optional.of(recorded));
+        when(gitHubApiService.searchRepositories(searchRequest))
+                .thenReturn(Mono.error(new GitHubUnavailableException("GitHub API is currently unavailable")));
+
+        // Act & Assert
+        assertThatThrownBy(() -> repositoryService.searchAndSaveRepositories(searchRequest).block())
+                .isInstanceOf(GitHubUnavailableException.class);
+        verify(repositoryRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void searchAndSaveRepositories_ShouldSkipGitHub_WhenSnapshotIsWithinFreshnessWindow() {
+        // Arrange
+        ReflectionTestUtils.setField(repositoryService, "snapshotsEnabled", true);
+        ReflectionTestUtils.setField(repositoryService, "snapshotFreshForMs", 60_000L);
+        LocalDateTime fetchedAt = LocalDateTime.now(ZoneOffset.UTC).minusSeconds(10);
+        SearchQuery recorded = SearchQuery.of(searchRequest, fetchedAt);
+        recorded.setSnapshot(List.of(123456L), fetchedAt);
+        when(searchQueryRepository.findByQueryKey(recorded.getQueryKey())).thenReturn(Optional.of(recorded));
+        when(repositoryRepository.findAllById(List.of(123456L))).thenReturn(List.of(repository));
+
+        // Act
+        SearchResults result = repositoryService.searchAndSaveRepositories(searchRequest).block();
+
+        // Assert
+        assertThat(result.isStale()).isFalse();
+        assertThat(result.getRepositories()).extracting(RepositoryDto::getName).containsExactly("spring-boot");
+        verifyNoInteractions(gitHubApiService);
+    }
+
+    @Test
+    void resyncRepositories_ShouldUpsertDeltaWithoutRecordingIt() {
+        // Arrange
+        GitHubSearchRequest delta = new GitHubSearchRequest("spring pushed:>=2024-01-01", "java", "stars", 100);
+        when(gitHubApiService.searchRepositories(delta)).thenReturn(Mono.just(searchResult));
+        when(repositoryRepository.upsertAll(anyList())).thenReturn(new UpsertResult(0, 1));
+
+        // Act
+        DeltaSyncResult result = repositoryService.resyncRepositories(delta).block();
+
+        // Assert
+        assertThat(result.getUpsertResult().getUpdated()).isEqualTo(1);
+        assertThat(result.isComplete()).isTrue();
+        verify(readIndex).onRepositoriesUpserted(List.of(repository));
+        verifyNoInteractions(searchQueryRepository);
+        assertThat(repositoryService.getSearchCoalescer().getRequestCount()).isZero();
+    }
+
+    @Test
+    void resyncRepositories_ShouldReportIncompleteDelta_WhenGitHubMatchedMoreThanWasFetched() {
+        // Arrange
+        GitHubSearchRequest delta = new GitHubSearchRequest("spring pushed:>=2024-01-01", "java", "stars", 100);
+        when(gitHubApiService.searchRepositories(delta))
+                .thenReturn(Mono.just(new GitHubSearchResult(250, false, List.of(repository))));
+        when(repositoryRepository.upsertAll(anyList())).thenReturn(new UpsertResult(0, 1));
+
+        // Act
+        DeltaSyncResult result = repositoryService.resyncRepositories(delta).block();
+
+        // Assert
+        assertThat(result.isComplete()).isFalse();
+        assertThat(result.getFetched()).isEqualTo(1);
+        assertThat(result.getTotalCount()).isEqualTo(250);
+    }
+
+    @Test
+    void searchAndSaveRepositories_ShouldRespondBeforeWriting_WhenWriteBehindIsEnabled() throws Exception {
+        // Arrange
+        CountDownLatch upsertStarted = new CountDownLatch(1);
+        CountDownLatch releaseUpsert = new CountDownLatch(1);
+        when(gitHubApiService.searchRepositories(searchRequest)).thenReturn(Mono.just(searchResult));
+        when(repositoryRepository.upsertAll(anyList())).thenAnswer(invocation -> {
+            upsertStarted.countDown();
+            awaitQuietly(releaseUpsert);
+            return new UpsertResult(1, 0);
+        });
+        ReflectionTestUtils.setField(repositoryService, "writeBehindEnabled", true);
+        repositoryService.startWriteBehind();
+
+        try {
+            // Act
+            List<RepositoryDto> result = repositoryService.searchAndSaveRepositories(searchRequest).block()
+                .getRepositories();
+
+            // Assert
+            assertThat(result).hasSize(1);
+            assertThat(upsertStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            verify(readIndex, never()).onRepositoriesUpserted(anyList());
+            releaseUpsert.countDown();
+            verify(readIndex, timeout(5000)).onRepositoriesUpserted(List.of(repository));
+        } finally {
+            releaseUpsert.countDown();
+            repositoryService.stopWriteBehind();
+        }
+        assertThat(repositoryService.getWriteBehindQueue().getFlushedRowCount()).isEqualTo(1);
+    }
+
+    @Test
+    void searchAndSaveBatch_ShouldRunDistinctSearchesOnceAndSaveUnionInOneWrite() {
+        // Arrange
+        Repository other = new Repository(654321L, "boot-starter", null, "someone", "Java", 10, 1, LocalDateTime.now());
+        when(gitHubApiService.searchRepositories(new GitHubSearchRequest("spring", "Java", "stars")))
+                .thenReturn(Mono.just(searchResult));
+        when(gitHubApiService.searchRepositories(new GitHubSearchRequest("boot", "Java", "stars")))
+                .thenReturn(Mono.just(new GitHubSearchResult(2, false, List.of(repository, other))));
+        when(repositoryRepository.upsertAll(anyList())).thenReturn(new UpsertResult(1, 1, 0));
+
+        // Act
+        BatchSearchResult result = repositoryService.searchAndSaveBatch(List.of(
+                new GitHubSearchRequest("spring", "Java", "stars"),
+                new GitHubSearchRequest("boot", "Java", "stars"),
+                new GitHubSearchRequest("  SPRING ", "java", "stars"))).block();
+
+        // Assert
+        verify(gitHubApiService, times(2)).searchRepositories(any());
+        ArgumentCaptor<List<Repository>> written = ArgumentCaptor.forClass(List.class);
+        verify(repositoryRepository).upsertAll(written.capture());
+        assertThat(written.getValue()).extracting(Repository::getRepositoryId)
+                .containsExactlyInAnyOrder(123456L, 654321L);
+        assertThat(result.getDistinctSearches()).isEqualTo(2);
+        assertThat(result.getRepositories()).isEqualTo(2);
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getResults()).extracting(BatchSearchResult.SearchResult::getQuery)
+                .containsExactly("spring", "boot", "spring");
+        assertThat(result.getResults()).extracting(BatchSearchResult.SearchResult::getRepositories)
+                .containsExactly(1, 2, 1);
+        verify(searchQueryRepository, times(2)).save(any(SearchQuery.class));
+        verify(readIndex).onRepositoriesUpserted(anyList());
+    }
+
+    @Test
+    void searchAndSaveBatch_ShouldReportFailedSearchesAndSaveTheRest() {
+        // Arrange
+        when(gitHubApiService.searchRepositories(new GitHubSearchRequest("spring", "Java", "stars")))
+                .thenReturn(Mono.just(searchResult));
+        when(gitHubApiService.searchRepositories(new GitHubSearchRequest("broken", null, "stars")))
+                .thenReturn(Mono.error(new GitHubApiException("GitHub API error: 503 Service Unavailable")));
+        when(repositoryRepository.upsertAll(anyList())).thenReturn(new UpsertResult(1, 0));
+
+        // Act
+        BatchSearchResult result = repositoryService.searchAndSaveBatch(List.of(
+                new GitHubSearchRequest("broken", null, "stars"),
+                new GitHubSearchRequest("spring", "Java", "stars"))).block();
+
+        // Assert
+        assertThat(result.getFailedSearches()).isEqualTo(1);
+        assertThat(result.getResults().get(0).isSuccess()).isFalse();
+        assertThat(result.getResults().get(0).getError()).contains("503");
+        assertThat(result.getResults().get(1).isSuccess()).isTrue();
+        verify(repositoryRepository).upsertAll(List.of(repository));
+        verify(searchQueryRepository, times(1)).save(any(SearchQuery.class));
+    }
+
+    @Test
+    void searchAndSaveBatch_ShouldReportFailedSave_InsteadOfFailingTheBatch() {
+        // Arrange
+        when(gitHubApiService.searchRepositories(new GitHubSearchRequest("spring", "Java", "stars")))
+                .thenReturn(Mono.just(searchResult));
+        when(gitHubApiService.searchRepositories(new GitHubSearchRequest("empty", null, "stars")))
+                .thenReturn(Mono.just(new GitHubSearchResult(0, false, List.of())));
+        when(repositoryRepository.upsertAll(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        // Act
+        BatchSearchResult result = repositoryService.searchAndSaveBatch(List.of(
+                new GitHubSearchRequest("spring", "Java", "stars"),
+                new GitHubSearchRequest("empty", null, "stars"))).block();
+
+        // Assert
+        assertThat(result.getFailedSearches()).isEqualTo(1);
+        assertThat(result.getResults().get(0).isSuccess()).isFalse();
+        assertThat(result.getResults().get(0).getRepositories()).isEqualTo(1);
+        assertThat(result.getResults().get(0).getError()).isEqualTo("Saving repositories failed: Connection refused");
+        assertThat(result.getResults().get(1).isSuccess()).isTrue();
+        verify(searchQueryRepository, never()).save(any(SearchQuery.class));
+        verify(readIndex, never()).onRepositoriesUpserted(anyList());
+    }
+
+    @Test
+    void searchAndSaveBatch_ShouldReportFullWriteQueue_InsteadOfFailingTheBatch() {
+        // Arrange
+        WriteBehindQueue writeBehindQueue = mock(WriteBehindQueue.class);
+        doThrow(new WriteQueueFullException("Too many pending repository writes. Please try again later."))
+                .when(writeBehindQueue).enqueue(anyList(), any());
+        ReflectionTestUtils.setField(repositoryService, "writeBehindQueue", writeBehindQueue);
+        when(gitHubApiService.searchRepositories(new GitHubSearchRequest("spring", "Java", "stars")))
+                .thenReturn(Mono.just(searchResult));
+
+        // Act
+        BatchSearchResult result = repositoryService.searchAndSaveBatch(List.of(
+                new GitHubSearchRequest("spring", "Java", "stars"))).block();
+
+        // Assert
+        assertThat(result.getFailedSearches()).isEqualTo(1);
+        assertThat(result.getResults().get(0).getError()).contains("Too many pending repository writes");
+        verify(repositoryRepository, never()).upsertAll(anyList());
+    }
+
+    @Test
+    void searchAndSaveBatch_ShouldRejectOversizedBatch() {
+        // Arrange
+        List<GitHubSearchRequest> requests = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            requests.add(new GitHubSearchRequest("query " + i, null, "stars"));
+        }
+
+        // Act & Assert
+        assertThatThrownBy(() -> repositoryService.searchAndSaveBatch(requests))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(gitHubApiService);
+    }
+
+    @Test
+    void getRepositories_ShouldServeFromReadIndex_WhenIndexIsReady() {
+        // Arrange
+        RepositoryDto dto = new RepositoryDto(repository);
+        when(readIndex.isReady()).thenReturn(true);
+        when(readIndex.findPage("Java", 100, "stars", null, 1)).thenReturn(List.of(dto));
+
+        // Act
+        RepositoryPage result = repositoryService.getRepositories("Java", 100, "stars", 1, null);
+
+        // Assert
+        assertThat(result.getRepositories()).containsExactly(dto);
+        assertThat(RepositoryCursor.decode(result.getNext(), "stars").getRepositoryId()).isEqualTo(123456L);
+        verifyNoInteractions(repositoryRepository, transactionManager);
+        assertThat(meterRegistry.get("repositories.query")
+                .tags("sort", "stars", "source", "index", "language_filter", "true").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getRepositories_ShouldReportReplicaRead_WhileReplicaLagsBehindTheLastWrite() throws Exception {
+        // Arrange: the primary already has the upserted stars, the replica still the old ones
+        DataSource dataSource = new ReadRoutingDataSourceConfig().dataSource(new ReadWriteRoutingDataSource(
+                starsDatabase("etag-primary", 2000), List.of(starsDatabase("etag-replica", 1000)), 1));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        repositoryService = new RepositoryService(gitHubApiService, repositoryRepository, searchQueryRepository,
+                readIndex, textIndex, statsIndex, List.of(readIndex), new DataSourceTransactionManager(dataSource),
+                Schedulers.immediate(), meterRegistry);
+        ReflectionTestUtils.setField(repositoryService, "replicaLagMs", 500L);
+        when(repositoryRepository.findPage(null, null, "stars", null, 30)).thenAnswer(invocation -> List.of(
+                new RepositoryDto(new Repository(123456L, "spring-boot", null, "spring-projects", "Java",
+                        jdbcTemplate.queryForObject("SELECT stars FROM repository_stars", Integer.class), 500,
+                        LocalDateTime.now()))));
+        when(gitHubApiService.searchRepositories(searchRequest)).thenReturn(Mono.just(searchResult));
+        when(repositoryRepository.upsertAll(anyList())).thenReturn(new UpsertResult(0, 1));
+        boolean lagBeforeWrite = repositoryService.mayReplicasLag();
+
+        // Act
+        repositoryService.searchAndSaveRepositories(searchRequest).block();
+        boolean lagAfterWrite = repositoryService.mayReplicasLag();
+        RepositoryPage page = repositoryService.getRepositories(null, null, "stars", null, null);
+        Thread.sleep(700);
+        boolean lagLater = repositoryService.mayReplicasLag();
+
+        // Assert: the replica still serves reads, and its page is marked as possibly behind
+        assertThat(lagBeforeWrite).isFalse();
+        assertThat(lagAfterWrite).isTrue();
+        assertThat(page.getRepositories().get(0).getStars()).isEqualTo(1000);
+        assertThat(page.isFromReplica()).isTrue();
+        assertThat(lagLater).isFalse();
+    }
+
+    @Test
+    void getRepositories_ShouldRecordRepeatedReadsOnTheSameMeters() {
+        // Arrange
+        when(readIndex.isReady()).thenReturn(true);
+        when(readIndex.findPage("Java", 100, "stars", null, 1)).thenReturn(List.of(new RepositoryDto(repository)));
+
+        // Act
+        repositoryService.getRepositories("Java", 100, "stars", 1, null);
+        repositoryService.getRepositories("Java", 100, "stars", 1, null);
+
+        // Assert
+        assertThat(meterRegistry.get("repositories.query").timers()).hasSize(1);
+        assertThat(meterRegistry.get("repositories.query").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("repositories.query.results").summary().totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void searchStoredRepositories_ShouldReturnRowsInRankingOrder() {
+        // Arrange
+        Repository other = new Repository(7L, "boot-starter", null, "someone", "Java", 5, 1, LocalDateTime.now());
+        when(textIndex.isReady()).thenReturn(true);
+        when(textIndex.search("spring boot", 30)).thenReturn(List.of(
+                new InvertedIndex.Hit(7L, 2.5), new InvertedIndex.Hit(123456L, 1.5), new InvertedIndex.Hit(99L, 1.0)));
+        when(repositoryRepository.findAllById(List.of(7L, 123456L, 99L))).thenReturn(List.of(repository, other));
+
+        // Act
+        List<RepositoryDto> result = repositoryService.searchStoredRepositories("spring boot", null);
+
+        // Assert
+        assertThat(result).extracting(RepositoryDto::getId).containsExactly(7L, 123456L);
+    }
+
+    @Test
+    void getRepositoryStats_ShouldUseDefaultTopAndCapIt() {
+        // Arrange
+        RepositoryStats stats = new RepositoryStats();
+        when(statsIndex.isReady()).thenReturn(true);
+        when(statsIndex.snapshot(anyInt())).thenReturn(stats);
+
+        // Act
+        repositoryService.getRepositoryStats(null);
+        repositoryService.getRepositoryStats(1000);
+
+        // Assert
+        verify(statsIndex).snapshot(5);
+        verify(statsIndex).snapshot(100);
+    }
+
+    @Test
+    void getRepositoryStats_ShouldFail_WhenStatsAreNotReady() {
+        // Act & Assert
+        assertThatThrownBy(() -> repositoryService.getRepositoryStats(null))
+                .isInstanceOf(SearchIndexUnavailableException.class);
+        verify(statsIndex, never()).snapshot(anyInt());
+    }
+
+    @Test
+    void searchStoredRepositories_ShouldRejectBlankQuery() {
+        assertThatThrownBy(() -> repositoryService.searchStoredRepositories("  ", null))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(textIndex, repositoryRepository);
+    }
+
+    @Test
+    void searchStoredRepositories_ShouldFail_WhenIndexIsNotReady() {
+        assertThatThrownBy(() -> repositoryService.searchStoredRepositories("spring", null))
+                .isInstanceOf(SearchIndexUnavailableException.class);
+        verifyNoInteractions(repositoryRepository);
     }
 
     @Test
     void getRepositories_ShouldReturnFilteredRepositories_WhenValidFilters() {
         // Arrange
-        List<Repository> repositories = List.of(repository);
-        when(repositoryRepository.findRepositoriesWithFilters("Java", 100, "stars"))
+        List<RepositoryDto> repositories = List.of(new RepositoryDto(repository));
+        when(repositoryRepository.findPage("Java", 100, "stars", null, 30))
                 .thenReturn(repositories);
 
         // Act
-        List<RepositoryDto> result = repositoryService.getRepositories("Java", 100, "stars");
+        RepositoryPage result = repositoryService.getRepositories("Java", 100, "stars", null, null);
 
         // Assert
-        assertThat(result).hasSize(1);
-        assertThat(result.get(0).getLanguage()).isEqualTo("Java");
-        verify(repositoryRepository).findRepositoriesWithFilters("Java", 100, "stars");
+        assertThat(result.getRepositories()).hasSize(1);
+        assertThat(result.getRepositories().get(0).getLanguage()).isEqualTo("Java");
+        assertThat(result.getNext()).isNull();
+        verify(repositoryRepository).findPage("Java", 100, "stars", null, 30);
     }
 
     @Test
     void getRepositories_ShouldUseDefaultSort_WhenInvalidSortProvided() {
         // Arrange
-        List<Repository> repositories = List.of(repository);
-        when(repositoryRepository.findRepositoriesWithFilters(null, null, "stars"))
+        List<RepositoryDto> repositories = List.of(new RepositoryDto(repository));
+        when(repositoryRepository.findPage(null, null, "stars", null, 30))
                 .thenReturn(repositories);
 
         // Act
-        List<RepositoryDto> result = repositoryService.getRepositories(null, null, "invalid");
+        RepositoryPage result = repositoryService.getRepositories(null, null, "invalid", null, null);
 
         // Assert
-        assertThat(result).hasSize(1);
-        verify(repositoryRepository).findRepositoriesWithFilters(null, null, "stars");
+        assertThat(result.getRepositories()).hasSize(1);
+        verify(repositoryRepository).findPage(null, null, "stars", null, 30);
     }
 
     @Test
     void validateSortParameter_ShouldReturnStars_WhenNullOrEmptySort() {
         // This tests the private method indirectly through getRepositories
-        List<Repository> repositories = List.of(repository);
-        when(repositoryRepository.findRepositoriesWithFilters(null, null, "stars"))
+        List<RepositoryDto> repositories = List.of(new RepositoryDto(repository));
+        when(repositoryRepository.findPage(null, null, "stars", null, 30))
                 .thenReturn(repositories);
 
-        repositoryService.getRepositories(null, null, null);
-        repositoryService.getRepositories(null, null, "");
-        repositoryService.getRepositories(null, null, "  ");
+        repositoryService.getRepositories(null, null, null, null, null);
+        repositoryService.getRepositories(null, null, "", null, null);
+        repositoryService.getRepositories(null, null, "  ", null, null);
+
+        verify(repositoryRepository, times(3)).findPage(null, null, "stars", null, 30);
+    }
+
+    @Test
+    void getRepositories_ShouldReturnNextCursor_WhenPageIsFull() {
+        // Arrange
+        when(repositoryRepository.findPage(null, null, "forks", null, 1))
+                .thenReturn(List.of(new RepositoryDto(repository)));
+
+        // Act
+        RepositoryPage result = repositoryService.getRepositories(null, null, "forks", 1, null);
+
+        // Assert
+        assertThat(result.getNext()).isNotNull();
+        RepositoryCursor cursor = RepositoryCursor.decode(result.getNext(), "forks");
+        assertThat(cursor.getCountValue()).isEqualTo(500);
+        assertThat(cursor.getRepositoryId()).isEqualTo(123456L);
+    }
+
+    @Test
+    void getRepositories_ShouldSeekPastCursor_WhenCursorProvided() {
+        // Arrange
+        RepositoryCursor after = new RepositoryCursor("forks", "500", 123456L);
+        String cursor = after.encode();
+        when(repositoryRepository.findPage(null, null, "forks", after, 30))
+                .thenReturn(List.of());
+
+        // Act
+        RepositoryPage result = repositoryService.getRepositories(null, null, "forks", null, cursor);
+
+        // Assert
+        assertThat(result.getRepositories()).isEmpty();
+        assertThat(result.getNext()).isNull();
+        verify(repositoryRepository).findPage(null, null, "forks", after, 30);
+    }
+
+    @Test
+    void getRepositories_ShouldRejectCursor_WhenIssuedForAnotherSort() {
+        String cursor = new RepositoryCursor("stars", "1000", 123456L).encode();
+
+        assertThatThrownBy(() -> repositoryService.getRepositories(null, null, "forks", null, cursor))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(repositoryRepository);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-        verify(repositoryRepository, times(3)).findRepositoriesWithFilters(null, null, "stars");
+    private static DataSource starsDatabase(String name, int stars) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("DROP TABLE IF EXISTS repository_stars");
+        setup.execute("CREATE TABLE repository_stars (stars INT)");
+        setup.update("INSERT INTO repository_stars (stars) VALUES (?)", stars);
+        return dataSource;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,219 @@
+package com.github.repositorysearcher.service;
+
+import com.github.repositorysearcher.dto.DeltaSyncResult;
+import com.github.repositorysearcher.dto.GitHubSearchRequest;
+import com.github.repositorysearcher.entity.SearchQuery;
+import com.github.repositorysearcher.repository.SearchQueryRepository;
+import com.github.repositorysearcher.repository.UpsertResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchResyncServiceTest {
+
+    @Mock
+    private RepositoryService repositoryService;
+
+    @Mock
+    private SearchQueryRepository searchQueryRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private SearchResyncService searchResyncService;
+
+    @BeforeEach
+    void setUp() {
+        searchResyncService = new SearchResyncService(repositoryService, searchQueryRepository,
+                3_600_000, 604_800_000, 50, 2, 0, 100, true, meterRegistry);
+    }
+
+    @Test
+    void deltaRequest_ShouldOnlyAskForRepositoriesPushedSinceLastSync() {
+        // Arrange
+        SearchQuery searchQuery = recorded(1L, "spring boot", LocalDateTime.of(2024, 3, 5, 23, 59));
+
+        // Act
+        GitHubSearchRequest delta = searchResyncService.deltaRequest(searchQuery);
+
+        // Assert
+        assertThat(delta.getQuery()).isEqualTo("spring boot pushed:>=2024-03-05");
+        assertThat(delta.getLanguage()).isEqualTo("java");
+        assertThat(delta.getSort()).isEqualTo("stars");
+        assertThat(delta.getMaxResults()).isEqualTo(100);
+    }
+
+    @Test
+    void resyncDueQueries_ShouldRecordChurnAndAdvanceLastSync() {
+        // Arrange
+        LocalDateTime lastSynced = LocalDateTime.now().minusDays(1);
+        SearchQuery searchQuery = recorded(1L, "spring", lastSynced);
+        when(searchQueryRepository.findByLastSyncedAtBeforeAndLastRequestedAtAfterOrderByLastSyncedAtAsc(
+                any(), any(), any(Pageable.class))).thenReturn(List.of(searchQuery));
+        when(repositoryService.resyncRepositories(any()))
+                .thenReturn(Mono.just(new DeltaSyncResult(new UpsertResult(2, 5, 3), 10, 10, true)));
+
+        // Act
+        searchResyncService.resyncDueQueries();
+
+        // Assert
+        ArgumentCaptor<LocalDateTime> syncedAt = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(searchQueryRepository).recordSync(eq(1L), syncedAt.capture(), eq(2), eq(5), eq(3), eq(7L),
+                anyLong(), isNull());
+        assertThat(syncedAt.getValue()).isAfter(lastSynced);
+        verify(searchQueryRepository, never()).save(any());
+        assertThat(meterRegistry.get("repositories.resync").tag("outcome", "SUCCESS").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void deltaRequest_ShouldAskForAClosedPushedRange_WhenGivenAnEnd() {
+        // Arrange
+        SearchQuery searchQuery = recorded(1L, "spring boot", LocalDateTime.of(2024, 3, 5, 23, 59));
+
+        // Act
+        GitHubSearchRequest delta = searchResyncService.deltaRequest(searchQuery,
+                LocalDate.of(2024, 3, 5), LocalDate.of(2024, 3, 9));
+
+        // Assert
+        assertThat(delta.getQuery()).isEqualTo("spring boot pushed:2024-03-05..2024-03-09");
+    }
+
+    @Test
+    void resyncDueQueries_ShouldAdvanceToTheEndOfTheFirstHalf_WhenDeltaWasTooLargeToFetch() {
+        // Arrange
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        SearchQuery searchQuery = recorded(1L, "spring", today.minusDays(4).atTime(10, 0));
+        when(searchQueryRepository.findByLastSyncedAtBeforeAndLastRequestedAtAfterOrderByLastSyncedAtAsc(
+                any(), any(), any(Pageable.class))).thenReturn(List.of(searchQuery));
+        when(repositoryService.resyncRepositories(any())).thenAnswer(invocation -> {
+            GitHubSearchRequest delta = invocation.getArgument(0);
+            return delta.getQuery().contains("..") ?
+                    Mono.just(new DeltaSyncResult(new UpsertResult(40, 0, 0), 40, 40, true)) :
+                    Mono.just(new DeltaSyncResult(new UpsertResult(100, 0, 0), 100, 250, false));
+        });
+
+        // Act
+        searchResyncService.resyncDueQueries();
+
+        // Assert
+        ArgumentCaptor<GitHubSearchRequest> deltas = ArgumentCaptor.forClass(GitHubSearchRequest.class);
+        verify(repositoryService, times(2)).resyncRepositories(deltas.capture());
+        assertThat(deltas.getAllValues()).extracting(GitHubSearchRequest::getQuery).containsExactly(
+                "spring pushed:>=" + today.minusDays(4),
+                "spring pushed:" + today.minusDays(4) + ".." + today.minusDays(2));
+        verify(searchQueryRepository).recordSync(eq(1L), eq(today.minusDays(1).atStartOfDay()), eq(140), eq(0),
+                eq(0), eq(140L), anyLong(), isNull());
+        assertThat(meterRegistry.get("repositories.resync").tag("outcome", "PARTIAL").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void resyncDueQueries_ShouldMovePastADay_WhenGitHubCannotReturnAllOfIt() {
+        // Arrange
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        LocalDate yesterday = today.minusDays(1);
+        SearchQuery searchQuery = recorded(1L, "spring", yesterday.atTime(10, 0));
+        when(searchQueryRepository.findByLastSyncedAtBeforeAndLastRequestedAtAfterOrderByLastSyncedAtAsc(
+                any(), any(), any(Pageable.class))).thenReturn(List.of(searchQuery));
+        when(repositoryService.resyncRepositories(any()))
+                .thenReturn(Mono.just(new DeltaSyncResult(new UpsertResult(100, 0, 0), 100, 250, false)));
+
+        // Act
+        searchResyncService.resyncDueQueries();
+
+        // Assert
+        ArgumentCaptor<GitHubSearchRequest> deltas = ArgumentCaptor.forClass(GitHubSearchRequest.class);
+        verify(repositoryService, times(2)).resyncRepositories(deltas.capture());
+        assertThat(deltas.getAllValues().get(1).getQuery()).isEqualTo("spring pushed:" + yesterday + ".." + yesterday);
+        verify(searchQueryRepository).recordSync(eq(1L), eq(today.atStartOfDay()), eq(200), eq(0), eq(0), eq(200L),
+                anyLong(), eq("Delta incomplete: fetched 100 of 250 repositories pushed on " + yesterday));
+        assertThat(meterRegistry.get("repositories.resync").tag("outcome", "INCOMPLETE").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void resyncDueQueries_ShouldKeepGoing_WhenOneQueryFails() {
+        // Arrange
+        LocalDateTime lastSynced = LocalDateTime.now().minusDays(1);
+        SearchQuery failing = recorded(1L, "broken", lastSynced);
+        SearchQuery healthy = recorded(2L, "spring", lastSynced);
+        when(searchQueryRepository.findByLastSyncedAtBeforeAndLastRequestedAtAfterOrderByLastSyncedAtAsc(
+                any(), any(), any(Pageable.class))).thenReturn(List.of(failing, healthy));
+        when(repositoryService.resyncRepositories(any())).thenAnswer(invocation -> {
+            GitHubSearchRequest delta = invocation.getArgument(0);
+            return delta.getQuery().startsWith("broken") ?
+                    Mono.error(new RuntimeException("GitHub API error: 502")) :
+                    Mono.just(new DeltaSyncResult(new UpsertResult(0, 1), 1, 1, true));
+        });
+
+        // Act
+        searchResyncService.resyncDueQueries();
+
+        // Assert
+        verify(searchQueryRepository).recordSyncFailure(eq(1L), anyLong(), eq("GitHub API error: 502"));
+        verify(searchQueryRepository, never()).recordSync(eq(1L), any(), anyInt(), anyInt(), anyInt(), anyLong(),
+                anyLong(), any());
+        verify(searchQueryRepository).recordSync(eq(2L), any(), eq(0), eq(1), eq(0), eq(1L), anyLong(), isNull());
+        assertThat(meterRegistry.get("repositories.resync").tag("outcome", "FAILURE").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("repositories.resync").tag("outcome", "SUCCESS").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void resyncDueQueries_ShouldOnlyPickQueriesRequestedWithinRetention() {
+        // Arrange
+        when(searchQueryRepository.findByLastSyncedAtBeforeAndLastRequestedAtAfterOrderByLastSyncedAtAsc(
+                any(), any(), any(Pageable.class))).thenReturn(List.of());
+
+        // Act
+        searchResyncService.resyncDueQueries();
+
+        // Assert
+        ArgumentCaptor<LocalDateTime> syncedBefore = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> requestedAfter = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+        verify(searchQueryRepository).findByLastSyncedAtBeforeAndLastRequestedAtAfterOrderByLastSyncedAtAsc(
+                syncedBefore.capture(), requestedAfter.capture(), page.capture());
+        assertThat(requestedAfter.getValue()).isBefore(syncedBefore.getValue());
+        assertThat(page.getValue().getPageSize()).isEqualTo(50);
+        verifyNoInteractions(repositoryService);
+    }
+
+    @Test
+    void resyncDueQueries_ShouldDoNothing_WhenDisabled() {
+        // Arrange
+        searchResyncService = new SearchResyncService(repositoryService, searchQueryRepository,
+                3_600_000, 604_800_000, 50, 2, 0, 100, false, meterRegistry);
+
+        // Act
+        searchResyncService.resyncDueQueries();
+
+        // Assert
+        verifyNoInteractions(searchQueryRepository, repositoryService);
+    }
+
+    private SearchQuery recorded(Long id, String query, LocalDateTime lastSyncedAt) {
+        SearchQuery searchQuery = SearchQuery.of(new GitHubSearchRequest(query, "java", "stars", 30), lastSyncedAt);
+        searchQuery.setId(id);
+        searchQuery.setLastRequestedAt(LocalDateTime.now());
+        return searchQuery;
+    }
+}
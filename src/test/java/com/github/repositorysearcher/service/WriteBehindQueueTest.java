@@ -0,0 +1,173 @@
+package com.github.repositorysearcher.service;
+
+import com.github.repositorysearcher.entity.Repository;
+import com.github.repositorysearcher.exception.WriteQueueFullException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WriteBehindQueueTest {
+
+    private WriteBehindQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.close(Duration.ofSeconds(5));
+        }
+    }
+
+    @Test
+    void enqueue_ShouldWriteEveryRepositoryInBatches() {
+        // Arrange
+        List<List<Repository>> batches = Collections.synchronizedList(new ArrayList<>());
+        queue = new WriteBehindQueue(1000, 2, 50, 0, Duration.ZERO, batches::add);
+
+        // Act
+        queue.enqueue(repositories(1, 300), Duration.ofSeconds(1));
+        queue.close(Duration.ofSeconds(5));
+
+        // Assert
+        assertThat(batches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(50));
+        assertThat(batches.stream().mapToInt(List::size).sum()).isEqualTo(300);
+        assertThat(queue.getFlushedRowCount()).isEqualTo(300);
+        assertThat(queue.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void enqueue_ShouldKeepWriteOrderPerRepository() {
+        // Arrange
+        List<Integer> writtenStars = Collections.synchronizedList(new ArrayList<>());
+        queue = new WriteBehindQueue(1000, 4, 1, 0, Duration.ZERO, batch -> batch.stream()
+                .filter(repository -> repository.getRepositoryId() == 7L)
+                .forEach(repository -> writtenStars.add(repository.getStarsCount())));
+
+        // Act
+        for (int stars = 0; stars < 100; stars++) {
+            queue.enqueue(List.of(repository(7L, stars)), Duration.ofSeconds(1));
+        }
+        queue.close(Duration.ofSeconds(5));
+
+        // Assert
+        assertThat(writtenStars).isSorted().hasSize(100);
+    }
+
+    @Test
+    void enqueue_ShouldRejectWithBackpressure_WhenQueueStaysFull() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch flushing = new CountDownLatch(1);
+        Consumer<List<Repository>> blockedFlusher = batch -> {
+            flushing.countDown();
+            awaitQuietly(release);
+        };
+        queue = new WriteBehindQueue(2, 1, 1, 0, Duration.ZERO, blockedFlusher);
+        queue.enqueue(repositories(1, 1), Duration.ofSeconds(1));
+        assertThat(flushing.await(5, TimeUnit.SECONDS)).isTrue();
+        queue.enqueue(repositories(2, 2), Duration.ofSeconds(1));
+
+        // Act & Assert
+        assertThatThrownBy(() -> queue.enqueue(repositories(4, 2), Duration.ofMillis(50)))
+                .isInstanceOf(WriteQueueFullException.class);
+        assertThat(queue.getRejectedCount()).isEqualTo(2);
+
+        release.countDown();
+        queue.close(Duration.ofSeconds(5));
+        assertThat(queue.getFlushedRowCount()).isEqualTo(3);
+    }
+
+    @Test
+    void close_ShouldFlushQueuedWritesAndRejectNewOnes() {
+        // Arrange
+        List<Repository> written = Collections.synchronizedList(new ArrayList<>());
+        queue = new WriteBehindQueue(1000, 1, 10, 0, Duration.ZERO, written::addAll);
+        queue.enqueue(repositories(1, 25), Duration.ofSeconds(1));
+
+        // Act
+        queue.close(Duration.ofSeconds(5));
+
+        // Assert
+        assertThat(written.stream().map(Repository::getRepositoryId).collect(Collectors.toList()))
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, 25).boxed().collect(Collectors.toList()));
+        assertThatThrownBy(() -> queue.enqueue(repositories(26, 1), Duration.ofSeconds(1)))
+                .isInstanceOf(WriteQueueFullException.class);
+    }
+
+    @Test
+    void flush_ShouldRetryBatch_WhenFirstFlushFails() {
+        // Arrange
+        List<Repository> written = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger attempts = new AtomicInteger();
+        queue = new WriteBehindQueue(1000, 1, 10, 3, Duration.ofMillis(10), batch -> {
+            if (attempts.getAndIncrement() == 0) {
+                throw new IllegalStateException("connection reset");
+            }
+            written.addAll(batch);
+        });
+
+        // Act
+        queue.enqueue(repositories(1, 5), Duration.ofSeconds(1));
+        queue.close(Duration.ofSeconds(5));
+
+        // Assert
+        assertThat(written.stream().map(Repository::getRepositoryId).collect(Collectors.toList()))
+                .containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(queue.getFlushedRowCount()).isEqualTo(5);
+        assertThat(queue.getFailedRowCount()).isZero();
+        assertThat(queue.getRetryCount()).isEqualTo(1);
+    }
+
+    @Test
+    void flush_ShouldCountFailedRowsAndKeepDraining_WhenRetriesAreExhausted() {
+        // Arrange
+        List<Repository> written = Collections.synchronizedList(new ArrayList<>());
+        queue = new WriteBehindQueue(1000, 1, 1, 2, Duration.ofMillis(10), batch -> {
+            if (batch.get(0).getRepositoryId() == 1L) {
+                throw new IllegalStateException("connection reset");
+            }
+            written.addAll(batch);
+        });
+
+        // Act
+        queue.enqueue(repositories(1, 3), Duration.ofSeconds(1));
+        queue.close(Duration.ofSeconds(5));
+
+        // Assert
+        assertThat(queue.getFailedRowCount()).isEqualTo(1);
+        assertThat(queue.getRetryCount()).isEqualTo(2);
+        assertThat(written).hasSize(2);
+        assertThat(queue.getFlushCount()).isEqualTo(5);
+    }
+
+    private static List<Repository> repositories(long firstId, int count) {
+        return LongStream.range(firstId, firstId + count)
+                .mapToObj(id -> repository(id, 10))
+                .collect(Collectors.toList());
+    }
+
+    private static Repository repository(long id, int stars) {
+        return new Repository(id, "repo-" + id, null, "owner", "Java", stars, 1, LocalDateTime.now());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}